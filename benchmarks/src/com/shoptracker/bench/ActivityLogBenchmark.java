@@ -0,0 +1,55 @@
+package com.shoptracker.bench;
+
+import com.shoptracker.ActivityLogService;
+import com.shoptracker.ActivityLogService.Action;
+import com.shoptracker.ActivityLogService.Outcome;
+import com.shoptracker.Role;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of writing to the activity log (free text and structured records),
+ * single-threaded and from every core, and of reading a full ring back.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ActivityLogBenchmark {
+
+    private ActivityLogService log;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        log = new ActivityLogService(ActivityLogService.DEFAULT_CAPACITY);
+        for (int i = 0; i < ActivityLogService.DEFAULT_CAPACITY; i++) {
+            log.log(Action.LOGIN, "user" + i, null, Outcome.SUCCESS);
+        }
+    }
+
+    @Benchmark
+    public void logMessage() {
+        log.log("Inventory listener failed: timeout");
+    }
+
+    @Benchmark
+    public void logStructured() {
+        log.log(Action.CHANGE_ROLE, "admin", "bob", Outcome.SUCCESS, Role.USER, Role.MANAGER);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public void logStructuredContended() {
+        log.log(Action.CHANGE_ROLE, "admin", "bob", Outcome.SUCCESS, Role.USER, Role.MANAGER);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<String> readAllEntries() {
+        return log.getEntries();
+    }
+}
@@ -0,0 +1,43 @@
+package com.shoptracker.bench;
+
+import com.shoptracker.Role;
+import com.shoptracker.User;
+
+/**
+ * Deterministic test data shared by the benchmarks.
+ */
+final class BenchData {
+
+    private static final String[] ADJECTIVES = {
+            "Organic", "Fresh", "Frozen", "Large", "Small", "Red", "Green", "Smoked", "Salted", "Sweet"
+    };
+    private static final String[] NOUNS = {
+            "Apple", "Banana", "Carrot", "Cheese", "Bread", "Milk", "Salmon", "Coffee", "Pasta", "Yoghurt",
+            "Butter", "Onion", "Tomato", "Rice", "Tea", "Honey"
+    };
+    private static final String[] FIRST = {
+            "Anna", "Ben", "Cara", "Dan", "Eve", "Finn", "Gina", "Hugo", "Ida", "Jack", "Kim", "Liam"
+    };
+    private static final String[] LAST = {
+            "Murphy", "Kelly", "Byrne", "Ryan", "Walsh", "Stone", "Lane", "Doyle", "Nolan", "Quinn"
+    };
+
+    /** Queries with few, many and no matches. */
+    static final String[] PRODUCT_QUERIES = {"apple", "fresh", "smoked salmon", "ee", "red b", "zzz"};
+    static final String[] USER_QUERIES = {"anna", "kelly", "user12", "@shop", "zz"};
+
+    // Placeholder hash: benchmarks never verify passwords, and restore() skips hashing.
+    private static final String HASH = "pbkdf2-sha512$1$AAAAAAAAAAAAAAAAAAAAAA$AAAAAAAAAAAAAAAAAAAAAA";
+
+    private BenchData() {}
+
+    static String productName(int i) {
+        return ADJECTIVES[i % ADJECTIVES.length] + ' ' + NOUNS[(i / ADJECTIVES.length) % NOUNS.length] + ' ' + i;
+    }
+
+    static User user(int i, Role role) {
+        String first = FIRST[i % FIRST.length];
+        String last = LAST[(i / FIRST.length) % LAST.length];
+        return User.restore("user" + i, HASH, first + ' ' + last, "user" + i + "@shop.com", role, true);
+    }
+}
@@ -0,0 +1,116 @@
+package com.shoptracker.bench;
+
+import com.shoptracker.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * InventoryService hot paths at catalogue sizes from 100 to 1M products.
+ * {@code *Contended} variants run on every core at once; {@code adjustHotProduct}
+ * has all threads hitting one product (a single lock stripe).
+ * <p>
+ * History is kept in a {@link ColumnarHistoryStore} so the events appended
+ * by the adjust benchmarks stay compact.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx6g"})
+@State(Scope.Benchmark)
+public class InventoryBenchmark {
+
+    @Param({"100", "10000", "100000", "1000000"})
+    public int size;
+
+    private InventoryService inventory;
+    private Session admin;
+    private String[] ids;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        inventory = new InventoryService(AccessControl.getInstance(), new ColumnarHistoryStore());
+        admin = SessionManager.getInstance().start(BenchData.user(0, Role.ADMIN));
+        ids = new String[size];
+        for (int i = 0; i < size; i++) {
+            ids[i] = "P" + i;
+            // quantities 0..19, so a quarter of the catalogue is at or below the default threshold
+            inventory.addProduct(admin, new Product(ids[i], BenchData.productName(i), i % 20, 1.0 + i % 50));
+        }
+    }
+
+    // ---------------- adjustQuantity ----------------
+
+    @Benchmark
+    public boolean adjustQuantity() {
+        return adjustRandom();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public boolean adjustQuantityContended() {
+        return adjustRandom();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean adjustHotProduct() {
+        return inventory.adjustQuantity(admin, ids[0], ThreadLocalRandom.current().nextBoolean() ? 1 : -1);
+    }
+
+    private boolean adjustRandom() {
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        return inventory.adjustQuantity(admin, ids[rnd.nextInt(size)], rnd.nextBoolean() ? 1 : -1);
+    }
+
+    // ---------------- searchByName ----------------
+
+    @Benchmark
+    public List<Product> searchByName() {
+        return search();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public List<Product> searchByNameContended() {
+        return search();
+    }
+
+    private List<Product> search() {
+        String[] queries = BenchData.PRODUCT_QUERIES;
+        return inventory.searchByName(queries[ThreadLocalRandom.current().nextInt(queries.length)], 50);
+    }
+
+    // ---------------- low stock / history ----------------
+
+    @Benchmark
+    public List<Product> getLowStockProducts() {
+        return inventory.getLowStockProducts();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public List<Product> getLowStockProductsContended() {
+        return inventory.getLowStockProducts();
+    }
+
+    @Benchmark
+    public InventoryEvent getHistoryLatest() {
+        List<InventoryEvent> history = inventory.getHistory();
+        return history.get(history.size() - 1);
+    }
+
+    @Benchmark
+    public List<InventoryEvent> historyPageForProduct() {
+        return inventory.historyFor(ids[ThreadLocalRandom.current().nextInt(size)], null, null, 50, 0);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public List<InventoryEvent> historyPageForProductContended() {
+        return inventory.historyFor(ids[ThreadLocalRandom.current().nextInt(size)], null, null, 50, 0);
+    }
+}
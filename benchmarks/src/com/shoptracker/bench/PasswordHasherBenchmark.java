@@ -0,0 +1,55 @@
+package com.shoptracker.bench;
+
+import com.shoptracker.PasswordHasher;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one password verification at different PBKDF2 iteration counts,
+ * single-threaded and with all cores verifying at once (a login storm).
+ * Pick the largest {@code iterations} whose contended score still fits the
+ * login latency budget and set it via {@code -Dshoptracker.password.iterations}.
+ * <p>
+ * {@code verifyCached} measures a repeat login served by the verify cache.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PasswordHasherBenchmark {
+
+    @Param({"50000", "100000", "210000", "400000", "600000"})
+    public int iterations;
+
+    private PasswordHasher uncached;
+    private PasswordHasher cached;
+    private String stored;
+
+    @Setup
+    public void setUp() {
+        uncached = new PasswordHasher(iterations, 0);
+        cached = new PasswordHasher(iterations, 1024);
+        stored = uncached.hash("correct horse battery staple");
+        cached.verify("correct horse battery staple", stored);
+    }
+
+    @Benchmark
+    public boolean verify() {
+        return uncached.verify("correct horse battery staple", stored);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public boolean verifyContended() {
+        return uncached.verify("correct horse battery staple", stored);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public boolean verifyCached() {
+        return cached.verify("correct horse battery staple", stored);
+    }
+}
@@ -0,0 +1,52 @@
+package com.shoptracker.bench;
+
+import com.shoptracker.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link UserService#searchUsers} over 100 to 100k in-memory users.
+ * (A million accounts is beyond what a shop deployment will hold, and the
+ * trigram index for it would dominate the heap.)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class UserServiceBenchmark {
+
+    @Param({"100", "10000", "100000"})
+    public int users;
+
+    private UserService service;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        UserRepository repo = new UserRepository(null, UserRepository.DEFAULT_CACHE_SIZE);
+        for (int i = 0; i < users; i++) {
+            repo.save(BenchData.user(i, i == 0 ? Role.ADMIN : Role.USER));
+        }
+        service = new UserService(repo);
+    }
+
+    @Benchmark
+    public List<User> searchUsers() {
+        return search();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public List<User> searchUsersContended() {
+        return search();
+    }
+
+    private List<User> search() {
+        String[] queries = BenchData.USER_QUERIES;
+        return service.searchUsers(queries[ThreadLocalRandom.current().nextInt(queries.length)]);
+    }
+}
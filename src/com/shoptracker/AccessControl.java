@@ -1,36 +1,171 @@
 package com.shoptracker;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Role-based permissions. Each role maps to a bitmask of {@link Permission}s
+ * and every check is a single mask test: this table's mask for the role a
+ * live {@link Session} was started with. Any other {@link Actor}, a revoked
+ * session or null holds nothing.
+ * <p>
+ * The role table can be overridden by a properties file, one line per role:
+ * <pre>
+ * MANAGER = STOCK_ADJUST, STOCK_EDIT, LOG_VIEW
+ * USER    = STOCK_ADJUST
+ * </pre>
+ * The shared instance reads {@value #CONFIG_PROPERTY} if set, otherwise
+ * {@code permissions.properties} in the data directory if present. Roles
+ * not listed keep their defaults.
+ */
 public final class AccessControl {
 
-    private static final AccessControl INSTANCE = new AccessControl();
+    public static final String CONFIG_PROPERTY = "shoptracker.permissions";
+
+    private static final AccessControl INSTANCE = loadDefault();
+
+    private final int[] masksByRole = new int[Role.values().length];
 
     private AccessControl() {
-        // singleton
+        int all = 0;
+        for (Permission p : Permission.values()) {
+            all |= p.mask();
+        }
+        masksByRole[Role.ADMIN.ordinal()] = all;
+        masksByRole[Role.MANAGER.ordinal()] = all;
+        masksByRole[Role.USER.ordinal()] = Permission.STOCK_ADJUST.mask();
     }
 
     public static AccessControl getInstance() {
         return INSTANCE;
     }
 
-    // shared logic so SonarQube doesn’t see duplicated code
-    private boolean hasElevatedRole(User user) {
-        return user != null &&
-               (user.getRole() == Role.ADMIN || user.getRole() == Role.MANAGER);
+    /**
+     * Built-in table overridden by the given role lines.
+     *
+     * @throws IllegalArgumentException for an unknown role or permission name
+     */
+    public static AccessControl fromProperties(Properties config) {
+        AccessControl ac = new AccessControl();
+        for (String key : config.stringPropertyNames()) {
+            Role role = parse(Role.class, key, "role");
+            int mask = 0;
+            for (String name : config.getProperty(key).split(",")) {
+                if (!name.isBlank()) {
+                    mask |= parse(Permission.class, name, "permission").mask();
+                }
+            }
+            ac.masksByRole[role.ordinal()] = mask;
+        }
+        return ac;
+    }
+
+    public static AccessControl load(Path file) throws IOException {
+        Properties config = new Properties();
+        try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            config.load(in);
+        }
+        return fromProperties(config);
+    }
+
+    // A broken config falls back to the defaults (and says so in the activity log)
+    // rather than locking everyone out.
+    private static AccessControl loadDefault() {
+        String configured = System.getProperty(CONFIG_PROPERTY);
+        Path file = configured != null
+                ? Paths.get(configured)
+                : InventoryService.dataDirectory().resolve("permissions.properties");
+        if (!Files.isReadable(file)) {
+            return new AccessControl();
+        }
+        try {
+            return load(file);
+        } catch (IOException | IllegalArgumentException e) {
+            ActivityLogService.getInstance().log("Ignoring permission config " + file + ": " + e.getMessage());
+            return new AccessControl();
+        }
+    }
+
+    private static <E extends Enum<E>> E parse(Class<E> type, String name, String what) {
+        try {
+            return Enum.valueOf(type, name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown " + what + ": " + name.trim(), e);
+        }
+    }
+
+    // ---------------- LOOKUP ----------------
+
+    public int permissionsFor(Role role) {
+        return masksByRole[role.ordinal()];
+    }
+
+    /**
+     * @return the user's mask, or 0 if the user is null or inactive
+     */
+    public int permissionsFor(User user) {
+        return user == null || !user.isActive() ? 0 : permissionsFor(user.getRole());
+    }
+
+    public Set<Permission> permissionSet(Role role) {
+        Set<Permission> out = EnumSet.noneOf(Permission.class);
+        int mask = permissionsFor(role);
+        for (Permission p : Permission.values()) {
+            if ((mask & p.mask()) != 0) {
+                out.add(p);
+            }
+        }
+        return out;
+    }
+
+    // ---------------- CHECKS ----------------
+
+    public boolean has(Actor actor, Permission permission) {
+        return (maskOf(actor) & permission.mask()) != 0;
+    }
+
+    public boolean canManageStock(Actor actor) {
+        return has(actor, Permission.STOCK_EDIT);
+    }
+
+    public boolean canEditPrices(Actor actor) {
+        return has(actor, Permission.PRICE_EDIT);
+    }
+
+    public boolean canAdjustStock(Actor actor) {
+        return has(actor, Permission.STOCK_ADJUST);
+    }
+
+    public boolean canManageUsers(Actor actor) {
+        return has(actor, Permission.USER_MANAGE);
     }
 
-    public boolean canManageStock(User user) {
-        return hasElevatedRole(user);
+    public boolean canViewLog(Actor actor) {
+        return has(actor, Permission.LOG_VIEW);
     }
 
-    public boolean canManageUsers(User user) {
-        return hasElevatedRole(user);
+    public boolean isAdmin(Actor actor) {
+        return maskOf(actor) != 0 && actor.getRole() == Role.ADMIN;
     }
 
-    public boolean isAdmin(User user) {
-        return user != null && user.getRole() == Role.ADMIN;
+    public boolean isManager(Actor actor) {
+        return maskOf(actor) != 0 && actor.getRole() == Role.MANAGER;
     }
 
-    public boolean isManager(User user) {
-        return user != null && user.getRole() == Role.MANAGER;
+    // Only SessionManager can create a Session, so nothing else is trusted;
+    // the bits come from this instance, so a per-service config applies.
+    private int maskOf(Actor actor) {
+        if (!(actor instanceof Session) || !((Session) actor).isValid()) {
+            return 0;
+        }
+        return masksByRole[actor.getRole().ordinal()];
     }
 }
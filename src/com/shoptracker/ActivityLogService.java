@@ -1,39 +1,450 @@
 package com.shoptracker;
 
-import java.time.LocalDateTime;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
 
+/**
+ * Application activity log.
+ * <p>
+ * Entries live in a fixed-size ring buffer: {@link #log} claims a sequence
+ * number with one atomic increment and stores a {@link LogRecord} in its
+ * slot, so callers never block and the oldest entries are overwritten once
+ * the ring is full. Records keep the raw timestamp, action and outcome codes
+ * and references to their arguments; text is only built when entries are
+ * read, and records can be filtered by action or actor without parsing it.
+ * <p>
+ * An optional file sink ({@link #startFileSink}) follows the same ring from a
+ * background thread, appending everything logged since its last pass in one
+ * write and flush, and rolling the file once it reaches a size limit. If the
+ * writer falls a whole ring behind, the skipped entries are noted in the file.
+ * <p>
+ * Entries logged, entries lost by the file sink and the time each sink pass
+ * takes are recorded in {@link MetricsRegistry}.
+ */
 public final class ActivityLogService {
 
-    private static final ActivityLogService INSTANCE = new ActivityLogService();
+    public static final int DEFAULT_CAPACITY = 16_384; // power of two
+    public static final long DEFAULT_MAX_FILE_BYTES = 5L * 1024 * 1024;
+    public static final int DEFAULT_MAX_FILES = 5;
+    private static final long FLUSH_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(200);
+
+    private static final ActivityLogService INSTANCE = new ActivityLogService(DEFAULT_CAPACITY);
     private static final DateTimeFormatter FORMATTER =
-            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneId.systemDefault());
+
+    private final int mask;
+    private final AtomicReferenceArray<LogRecord> ring;
+    private final AtomicLong nextSeq = new AtomicLong();
+    private volatile long clearedBefore; // entries below this are hidden from readers
 
-    private final List<String> entries = new ArrayList<>();
+    private final LongAdder loggedCount = MetricsRegistry.getInstance().counter("log.entries");
+    private final LongAdder lostCount = MetricsRegistry.getInstance().counter("log.file.lost");
+    private final LatencyHistogram drainTimer = MetricsRegistry.getInstance().histogram("log.file.drain");
 
-    private ActivityLogService() {}
+    private FileSink sink; // guarded by this
+    private boolean shutdownHookAdded; // guarded by this
+
+    /**
+     * Standalone log; the application uses {@link #getInstance()}.
+     *
+     * @param capacity number of retained entries, a power of two
+     */
+    public ActivityLogService(int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two: " + capacity);
+        }
+        this.mask = capacity - 1;
+        this.ring = new AtomicReferenceArray<>(capacity);
+    }
 
     public static ActivityLogService getInstance() {
         return INSTANCE;
     }
 
-    public synchronized void log(String message) {
-        String ts = LocalDateTime.now().format(FORMATTER);
-        entries.add(ts + " - " + message);
+    // ---------------- RECORD TYPES ----------------
+
+    /**
+     * What was attempted. {@link #MESSAGE} carries free text.
+     */
+    public enum Action {
+        LOGIN("Login"),
+        LOGOUT("Logout"),
+        CREATE_USER("Create user"),
+        DELETE_USER("Delete user"),
+        CHANGE_ROLE("Change role"),
+        SET_ACTIVE("Set active"),
+        RESET_PASSWORD("Password reset"),
+        MESSAGE("");
+
+        private final String label;
+
+        Action(String label) {
+            this.label = label;
+        }
+    }
+
+    public enum Outcome {
+        SUCCESS,
+        DENIED,
+        FAILED
+    }
+
+    // ---------------- LOGGING ----------------
+
+    /**
+     * Free-text entry. Lock-free; never blocks on readers or on the file sink.
+     */
+    public void log(String message) {
+        append(Action.MESSAGE, null, null, Outcome.SUCCESS, message, null);
+    }
+
+    public void log(Action action, String actor, String target, Outcome outcome) {
+        append(action, actor, target, outcome, null, null);
+    }
+
+    /**
+     * @param detail rendered with {@code String.valueOf} only when read
+     */
+    public void log(Action action, String actor, String target, Outcome outcome, Object detail) {
+        append(action, actor, target, outcome, detail, null);
+    }
+
+    /**
+     * Records a change of some value of the target, rendered as {@code "from -> to"}.
+     */
+    public void log(Action action, String actor, String target, Outcome outcome, Object from, Object to) {
+        append(action, actor, target, outcome, from, Objects.requireNonNullElse(to, "null"));
+    }
+
+    private void append(Action action, String actor, String target, Outcome outcome, Object detail, Object to) {
+        long seq = nextSeq.getAndIncrement();
+        ring.set(slot(seq), new LogRecord(seq, System.currentTimeMillis(),
+                action, actor, target, outcome, detail, to));
+        loggedCount.increment();
+    }
+
+    // ---------------- READING ----------------
+
+    /**
+     * @return the retained entries, oldest first, formatted as
+     *         {@code "yyyy-MM-dd HH:mm:ss - text"}
+     */
+    public List<String> getEntries() {
+        List<LogRecord> records = getRecords();
+        List<String> out = new ArrayList<>(records.size());
+        for (LogRecord r : records) {
+            out.add(r.toString());
+        }
+        return Collections.unmodifiableList(out);
+    }
+
+    /**
+     * @return the retained records, oldest first
+     */
+    public List<LogRecord> getRecords() {
+        return collect(null, null);
+    }
+
+    public List<LogRecord> getRecords(Action action) {
+        return collect(Objects.requireNonNull(action), null);
+    }
+
+    public List<LogRecord> getRecordsByActor(String actor) {
+        return collect(null, Objects.requireNonNull(actor));
+    }
+
+    private List<LogRecord> collect(Action action, String actor) {
+        long hi = nextSeq.get();
+        long lo = Math.max(clearedBefore, hi - ring.length());
+
+        List<LogRecord> out = new ArrayList<>();
+        for (long seq = lo; seq < hi; seq++) {
+            LogRecord r = ring.get(slot(seq));
+            if (r == null || r.seq != seq) {
+                continue; // still being written or already recycled
+            }
+            if ((action == null || r.action == action) && (actor == null || actor.equals(r.actor))) {
+                out.add(r);
+            }
+        }
+        return Collections.unmodifiableList(out);
+    }
+
+    public int size() {
+        long hi = nextSeq.get();
+        return (int) Math.min(ring.length(), hi - clearedBefore);
+    }
+
+    /**
+     * Empties the in-memory view; entries already handed to the file sink stay there.
+     */
+    public void clear() {
+        clearedBefore = nextSeq.get();
+    }
+
+    // ---------------- FILE SINK ----------------
+
+    /**
+     * Starts appending entries to {@code dir/activity.log} (rolled to
+     * {@code activity.log.1 .. .N}). Only entries logged from now on are
+     * written. Does nothing if a sink is already running; one that stopped
+     * on a write failure is replaced.
+     */
+    public synchronized void startFileSink(Path dir, long maxFileBytes, int maxFiles) throws IOException {
+        if (isFileSinkRunning()) {
+            return;
+        }
+        Files.createDirectories(dir);
+        sink = new FileSink(dir, maxFileBytes, maxFiles, nextSeq.get());
+        sink.start();
+        if (!shutdownHookAdded) {
+            Runtime.getRuntime().addShutdownHook(new Thread(this::stopFileSink, "activity-log-close"));
+            shutdownHookAdded = true;
+        }
+    }
+
+    public void startFileSink(Path dir) throws IOException {
+        startFileSink(dir, DEFAULT_MAX_FILE_BYTES, DEFAULT_MAX_FILES);
+    }
+
+    /**
+     * Writes out anything still pending and stops the writer thread.
+     */
+    public synchronized void stopFileSink() {
+        if (sink != null) {
+            sink.stop();
+            sink = null;
+        }
+    }
+
+    /**
+     * True while a file sink is writing; false once stopped or after a write failure.
+     */
+    public synchronized boolean isFileSinkRunning() {
+        return sink != null && !sink.failed;
+    }
+
+    private int slot(long seq) {
+        return (int) seq & mask;
     }
 
-    public synchronized List<String> getEntries() {
-        return Collections.unmodifiableList(new ArrayList<>(entries));
+    // ---------------- Internals ----------------
+
+    /**
+     * One immutable log entry. {@link #toString()} renders it.
+     */
+    public static final class LogRecord {
+        private final long seq;
+        private final long epochMillis;
+        private final Action action;
+        private final String actor;
+        private final String target;
+        private final Outcome outcome;
+        private final Object detail;
+        private final Object to; // non-null for "detail -> to" changes
+
+        LogRecord(long seq, long epochMillis, Action action, String actor, String target,
+                  Outcome outcome, Object detail, Object to) {
+            this.seq = seq;
+            this.epochMillis = epochMillis;
+            this.action = action;
+            this.actor = actor;
+            this.target = target;
+            this.outcome = outcome;
+            this.detail = detail;
+            this.to = to;
+        }
+
+        public Instant getTimestamp() { return Instant.ofEpochMilli(epochMillis); }
+        public Action getAction() { return action; }
+        public String getActor() { return actor; }
+        public String getTarget() { return target; }
+        public Outcome getOutcome() { return outcome; }
+
+        /**
+         * e.g. {@code "2025-03-01 09:00:00 - Change role DENIED: bob by manager"}
+         */
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder(64);
+            FORMATTER.formatTo(getTimestamp(), sb);
+            sb.append(" - ");
+
+            if (action == Action.MESSAGE) {
+                return sb.append(detail).toString();
+            }
+
+            sb.append(action.label);
+            if (outcome != Outcome.SUCCESS) {
+                sb.append(' ').append(outcome);
+            }
+            if (target != null) {
+                sb.append(": ").append(target);
+            }
+            if (actor != null) {
+                sb.append(" by ").append(actor);
+            }
+            if (to != null) {
+                sb.append(" (").append(detail).append(" -> ").append(to).append(')');
+            } else if (detail != null) {
+                sb.append(" (").append(detail).append(')');
+            }
+            return sb.toString();
+        }
     }
 
-    public synchronized int size() {
-        return entries.size();
+    private final class FileSink implements Runnable {
+        private static final String FILE_NAME = "activity.log";
+        private static final int LINE_SEPARATOR_BYTES = System.lineSeparator().length(); // ASCII
+
+        private final Path dir;
+        private final long maxFileBytes;
+        private final int maxFiles;
+        private final Thread thread;
+        private volatile boolean running = true;
+        private volatile boolean failed;
+
+        private long cursor; // next sequence number to write; writer thread only
+        private BufferedWriter out;
+        private long written;
+
+        FileSink(Path dir, long maxFileBytes, int maxFiles, long startSeq) {
+            this.dir = dir;
+            this.maxFileBytes = maxFileBytes;
+            this.maxFiles = maxFiles;
+            this.cursor = startSeq;
+            this.thread = new Thread(this, "activity-log-writer");
+            this.thread.setDaemon(true);
+        }
+
+        void start() throws IOException {
+            openFile();
+            thread.start();
+        }
+
+        void stop() {
+            running = false;
+            LockSupport.unpark(thread);
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (running) {
+                    LockSupport.parkNanos(FLUSH_INTERVAL_NANOS);
+                    drain();
+                }
+                drain();
+            } catch (IOException e) {
+                // Disk trouble: keep the in-memory log going, stop writing.
+                failed = true;
+                log("Activity log file sink stopped: " + e);
+            } finally {
+                close();
+            }
+        }
+
+        private void close() {
+            try {
+                out.close();
+            } catch (IOException e) {
+                failed = true;
+                log("Activity log file sink could not close " + FILE_NAME + ": " + e);
+            }
+        }
+
+        // Writes every published entry from the cursor onwards, then flushes once.
+        private void drain() throws IOException {
+            long start = System.nanoTime();
+            long hi = nextSeq.get();
+            if (hi - cursor > ring.length()) {
+                lostCount.add(hi - ring.length() - cursor);
+                writeLine("... " + (hi - ring.length() - cursor) + " entries lost (writer fell behind)");
+                cursor = hi - ring.length();
+            }
+            while (cursor < hi) {
+                LogRecord r = ring.get(slot(cursor));
+                if (r == null || r.seq < cursor) {
+                    break; // claimed but not published yet; pick it up next pass
+                }
+                if (r.seq == cursor) {
+                    writeLine(r.toString());
+                }
+                cursor++;
+            }
+            out.flush();
+            drainTimer.recordSince(start);
+        }
+
+        private void writeLine(String line) throws IOException {
+            if (written >= maxFileBytes) {
+                roll();
+            }
+            out.write(line);
+            out.newLine();
+            written += utf8Length(line) + LINE_SEPARATOR_BYTES;
+        }
+
+        private void roll() throws IOException {
+            out.close();
+            Files.deleteIfExists(dir.resolve(FILE_NAME + "." + maxFiles));
+            for (int i = maxFiles - 1; i >= 1; i--) {
+                Path from = dir.resolve(FILE_NAME + "." + i);
+                if (Files.exists(from)) {
+                    Files.move(from, dir.resolve(FILE_NAME + "." + (i + 1)), StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            Files.move(dir.resolve(FILE_NAME), dir.resolve(FILE_NAME + ".1"), StandardCopyOption.REPLACE_EXISTING);
+            openFile();
+        }
+
+        private void openFile() throws IOException {
+            Path file = dir.resolve(FILE_NAME);
+            out = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            written = Files.size(file);
+        }
     }
 
-    public synchronized void clear() {
-        entries.clear();
+    // Bytes the line takes in UTF-8, without encoding it a second time.
+    static long utf8Length(String s) {
+        long bytes = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                bytes += 1;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < s.length()
+                    && Character.isLowSurrogate(s.charAt(i + 1))) {
+                bytes += 4; // one supplementary code point
+                i++;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
     }
 }
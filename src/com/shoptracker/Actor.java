@@ -0,0 +1,13 @@
+package com.shoptracker;
+
+/**
+ * Whoever is performing a service call. Only a {@link Session} issued by
+ * {@link SessionManager} is granted anything; {@link AccessControl} denies
+ * every other implementation.
+ */
+public interface Actor {
+
+    String getUsername();
+
+    Role getRole();
+}
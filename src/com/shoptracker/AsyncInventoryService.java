@@ -0,0 +1,70 @@
+package com.shoptracker;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Non-blocking facade over {@link InventoryService}. Every call runs on a
+ * background executor and completes the returned future there; UI code
+ * should marshal results back to the EDT before touching components.
+ */
+public final class AsyncInventoryService {
+
+    private final InventoryService delegate;
+    private final Executor executor;
+
+    public AsyncInventoryService(InventoryService delegate) {
+        this(delegate, BackgroundExecutor.getInstance());
+    }
+
+    public AsyncInventoryService(InventoryService delegate, Executor executor) {
+        this.delegate = Objects.requireNonNull(delegate);
+        this.executor = Objects.requireNonNull(executor);
+    }
+
+    public InventoryService getDelegate() {
+        return delegate;
+    }
+
+    public CompletableFuture<Boolean> addProduct(Actor actor, Product product) {
+        return CompletableFuture.supplyAsync(() -> delegate.addProduct(actor, product), executor);
+    }
+
+    public CompletableFuture<Boolean> removeProduct(Actor actor, String id) {
+        return CompletableFuture.supplyAsync(() -> delegate.removeProduct(actor, id), executor);
+    }
+
+    public CompletableFuture<Boolean> updateProduct(Actor actor, String id, int qty, double price) {
+        return CompletableFuture.supplyAsync(() -> delegate.updateProduct(actor, id, qty, price), executor);
+    }
+
+    public CompletableFuture<Boolean> adjustQuantity(Actor actor, String id, int delta) {
+        return CompletableFuture.supplyAsync(() -> delegate.adjustQuantity(actor, id, delta), executor);
+    }
+
+    public CompletableFuture<List<Product>> getAllProducts() {
+        return CompletableFuture.supplyAsync(delegate::getAllProducts, executor);
+    }
+
+    public CompletableFuture<List<Product>> searchByName(String name, int limit) {
+        return CompletableFuture.supplyAsync(() -> delegate.searchByName(name, limit), executor);
+    }
+
+    public CompletableFuture<List<InventoryEvent>> queryHistory(HistoryFilter filter, int limit, int offset) {
+        return CompletableFuture.supplyAsync(() -> delegate.queryHistory(filter, limit, offset), executor);
+    }
+
+    public CompletableFuture<Integer> countHistory(HistoryFilter filter) {
+        return CompletableFuture.supplyAsync(() -> delegate.countHistory(filter), executor);
+    }
+
+    public CompletableFuture<List<Product>> getLowStockProducts() {
+        return CompletableFuture.supplyAsync(delegate::getLowStockProducts, executor);
+    }
+
+    public CompletableFuture<List<RestockSuggestion>> getRestockSuggestions() {
+        return CompletableFuture.supplyAsync(delegate::getRestockSuggestions, executor);
+    }
+}
@@ -0,0 +1,87 @@
+package com.shoptracker;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Non-blocking facade over {@link UserService}. Exceptions thrown by the
+ * service (e.g. {@link SecurityException}) complete the future exceptionally.
+ * Logins run on a separate bounded executor (by default the
+ * {@link PasswordHasher#verificationExecutor()}) so a burst of password
+ * checks cannot hold up other service calls.
+ */
+public final class AsyncUserService {
+
+    private final UserService delegate;
+    private final Executor executor;
+    private final Executor loginExecutor;
+
+    public AsyncUserService(UserService delegate) {
+        this(delegate, BackgroundExecutor.getInstance());
+    }
+
+    public AsyncUserService(UserService delegate, Executor executor) {
+        this(delegate, executor, PasswordHasher.getInstance().verificationExecutor());
+    }
+
+    public AsyncUserService(UserService delegate, Executor executor, Executor loginExecutor) {
+        this.delegate = Objects.requireNonNull(delegate);
+        this.executor = Objects.requireNonNull(executor);
+        this.loginExecutor = Objects.requireNonNull(loginExecutor);
+    }
+
+    /**
+     * Completes exceptionally with {@link RejectedExecutionException}
+     * when too many logins are already queued.
+     */
+    public CompletableFuture<Optional<User>> authenticate(String username, String password) {
+        try {
+            return CompletableFuture.supplyAsync(() -> delegate.authenticate(username, password), loginExecutor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Like {@link #authenticate}, but starts a session on success.
+     */
+    public CompletableFuture<Optional<Session>> login(String username, String password) {
+        try {
+            return CompletableFuture.supplyAsync(() -> delegate.login(username, password), loginExecutor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    public CompletableFuture<Boolean> createUser(Actor actor, User newUser) {
+        return CompletableFuture.supplyAsync(() -> delegate.createUser(actor, newUser), executor);
+    }
+
+    public CompletableFuture<Boolean> deleteUser(Actor actor, String username) {
+        return CompletableFuture.supplyAsync(() -> delegate.deleteUser(actor, username), executor);
+    }
+
+    public CompletableFuture<List<User>> listUsers() {
+        return CompletableFuture.supplyAsync(delegate::listUsers, executor);
+    }
+
+    public CompletableFuture<List<User>> searchUsers(String query) {
+        return CompletableFuture.supplyAsync(() -> delegate.searchUsers(query), executor);
+    }
+
+    public CompletableFuture<Boolean> setUserActive(Actor actor, String username, boolean active) {
+        return CompletableFuture.supplyAsync(() -> delegate.setUserActive(actor, username, active), executor);
+    }
+
+    public CompletableFuture<Void> changeUserRole(Actor actor, String targetUsername, Role newRole) {
+        return CompletableFuture.runAsync(() -> delegate.changeUserRole(actor, targetUsername, newRole), executor);
+    }
+
+    public CompletableFuture<String> resetPassword(String username, String email) {
+        return CompletableFuture.supplyAsync(() -> delegate.resetPassword(username, email), executor);
+    }
+}
@@ -0,0 +1,42 @@
+package com.shoptracker;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shared, bounded pool of daemon threads for service calls that must not
+ * run on the Swing Event Dispatch Thread.
+ */
+public final class BackgroundExecutor {
+
+    private static final ExecutorService INSTANCE = Executors.newFixedThreadPool(
+            Math.max(2, Runtime.getRuntime().availableProcessors()),
+            new DaemonThreadFactory("service-worker"));
+
+    private BackgroundExecutor() {
+        // static holder
+    }
+
+    public static ExecutorService getInstance() {
+        return INSTANCE;
+    }
+
+    static final class DaemonThreadFactory implements ThreadFactory {
+
+        private final String prefix;
+        private final AtomicInteger counter = new AtomicInteger();
+
+        DaemonThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, prefix + "-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    }
+}
@@ -0,0 +1,365 @@
+package com.shoptracker;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Bulk CSV import and export of the product catalogue
+ * ({@value #HEADER}, header optional on import).
+ * <p>
+ * Import streams the file through a {@link FileChannel} in fixed-size chunks
+ * cut at line boundaries. Each chunk is decoded and parsed into products on a
+ * {@link ForkJoinPool} while the next one is read, so a supplier catalogue of
+ * a few hundred thousand lines never exists as one big String. Lines that do
+ * not parse or validate, and repeated ids, are rejected with their line
+ * number; everything else goes to {@link InventoryService#addProducts} as a
+ * single batch with one block of history.
+ * <p>
+ * Export walks one {@link InventoryService#snapshot()} of the catalogue, so
+ * the file is consistent even while stock keeps moving, and writes it to a
+ * temporary file that replaces the target when complete.
+ * <p>
+ * Fields may be quoted ({@code "Pears, tinned"}, with {@code ""} for a quote);
+ * quoted line breaks are not supported.
+ */
+public final class CatalogueImporter {
+
+    public static final String HEADER = "id,name,quantity,price";
+    public static final int DEFAULT_CHUNK_BYTES = 1 << 20;
+    public static final int MAX_REJECTS_KEPT = 1000;
+    private static final int MAX_REJECT_TEXT = 200;
+
+    private final InventoryService inventory;
+    private final ForkJoinPool pool;
+    private final int chunkBytes;
+
+    public CatalogueImporter(InventoryService inventory) {
+        this(inventory, ForkJoinPool.commonPool(), DEFAULT_CHUNK_BYTES);
+    }
+
+    public CatalogueImporter(InventoryService inventory, ForkJoinPool pool, int chunkBytes) {
+        if (chunkBytes < 1) {
+            throw new IllegalArgumentException("chunkBytes must be positive: " + chunkBytes);
+        }
+        this.inventory = Objects.requireNonNull(inventory);
+        this.pool = Objects.requireNonNull(pool);
+        this.chunkBytes = chunkBytes;
+    }
+
+    // ---------------- IMPORT ----------------
+
+    /**
+     * Imports every valid line of {@code file} as one batch. Nothing is
+     * applied if the actor may not manage stock or no line is valid.
+     */
+    public ImportResult importCsv(Actor actor, Path file) throws IOException {
+        List<Chunk> chunks = parse(file);
+
+        List<Product> accepted = new ArrayList<>();
+        List<Reject> rejects = new ArrayList<>();
+        int rejected = 0;
+        Map<String, Integer> firstLine = new HashMap<>();
+
+        int base = 0; // lines before the current chunk
+        for (Chunk chunk : chunks) {
+            int p = 0;
+            int r = 0;
+            // walk products and rejects in line order so kept rejects are the first ones
+            while (p < chunk.products.size() || r < chunk.rejects.size()) {
+                boolean nextIsProduct = r == chunk.rejects.size()
+                        || (p < chunk.products.size() && chunk.productLines.get(p) < chunk.rejects.get(r).line);
+                if (nextIsProduct) {
+                    Product product = chunk.products.get(p);
+                    int line = base + chunk.productLines.get(p);
+                    Integer seen = firstLine.putIfAbsent(product.getId(), line);
+                    if (seen == null) {
+                        accepted.add(product);
+                    } else {
+                        rejected++;
+                        keep(rejects, new Reject(line, "duplicate id " + product.getId()
+                                + " (first on line " + seen + ")", product.getId()));
+                    }
+                    p++;
+                } else {
+                    Reject reject = chunk.rejects.get(r);
+                    rejected++;
+                    keep(rejects, new Reject(base + reject.line, reject.reason, reject.text));
+                    r++;
+                }
+            }
+            base += chunk.lineCount;
+        }
+
+        boolean applied = !accepted.isEmpty() && inventory.addProducts(actor, accepted);
+        return new ImportResult(applied, applied ? accepted.size() : 0, rejected, rejects);
+    }
+
+    // Reads the file chunk by chunk, handing each to the pool as soon as it is cut.
+    private List<Chunk> parse(Path file) throws IOException {
+        List<ForkJoinTask<Chunk>> tasks = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buf = ByteBuffer.allocate(chunkBytes);
+            while (true) {
+                int n = channel.read(buf);
+                if (n >= 0 && buf.hasRemaining()) {
+                    continue;
+                }
+                boolean eof = n < 0;
+                int end = eof ? buf.position() : lastNewline(buf) + 1;
+                if (end == 0 && !eof) {
+                    // a single line longer than the buffer
+                    buf = ByteBuffer.allocate(buf.capacity() * 2).put(buf.flip());
+                    continue;
+                }
+                if (end > 0) {
+                    byte[] bytes = Arrays.copyOf(buf.array(), end);
+                    boolean first = tasks.isEmpty();
+                    tasks.add(pool.submit(() -> parseChunk(bytes, first)));
+                }
+                if (eof) {
+                    break;
+                }
+                // carry the partial last line into the next chunk
+                int rest = buf.position() - end;
+                System.arraycopy(buf.array(), end, buf.array(), 0, rest);
+                buf.position(rest);
+            }
+        }
+
+        List<Chunk> chunks = new ArrayList<>(tasks.size());
+        for (ForkJoinTask<Chunk> task : tasks) {
+            try {
+                chunks.add(task.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Import interrupted", e);
+            } catch (ExecutionException e) {
+                throw new IOException("Could not parse " + file, e.getCause());
+            }
+        }
+        return chunks;
+    }
+
+    private static int lastNewline(ByteBuffer buf) {
+        byte[] a = buf.array();
+        for (int i = buf.position() - 1; i >= 0; i--) {
+            if (a[i] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Line numbers in the result are 1-based within the chunk.
+    static Chunk parseChunk(byte[] bytes, boolean firstChunk) {
+        String text = new String(bytes, StandardCharsets.UTF_8);
+        Chunk chunk = new Chunk();
+
+        int start = 0;
+        int line = 0;
+        while (start < text.length()) {
+            int nl = text.indexOf('\n', start);
+            int end = nl < 0 ? text.length() : nl;
+            line++;
+            String raw = text.substring(start, end > start && text.charAt(end - 1) == '\r' ? end - 1 : end);
+            start = end + 1;
+
+            if (firstChunk && line == 1) {
+                raw = raw.startsWith("\uFEFF") ? raw.substring(1) : raw; // byte order mark
+                if (raw.trim().toLowerCase(Locale.ROOT).startsWith("id,")) {
+                    continue; // header
+                }
+            }
+            if (raw.isBlank()) {
+                continue;
+            }
+            parseLine(raw, line, chunk);
+        }
+        chunk.lineCount = line;
+        return chunk;
+    }
+
+    private static void parseLine(String raw, int line, Chunk chunk) {
+        List<String> fields = splitCsv(raw);
+        if (fields == null) {
+            chunk.rejects.add(new Reject(line, "unterminated quote", raw));
+            return;
+        }
+        if (fields.size() != 4) {
+            chunk.rejects.add(new Reject(line, "expected 4 fields, found " + fields.size(), raw));
+            return;
+        }
+        try {
+            int quantity = Integer.parseInt(fields.get(2).trim());
+            long priceMinor = Money.parse(fields.get(3));
+            chunk.products.add(Product.ofMinorUnits(
+                    fields.get(0).trim(), fields.get(1).trim(), quantity, priceMinor));
+            chunk.productLines.add(line);
+        } catch (NumberFormatException e) {
+            chunk.rejects.add(new Reject(line, "invalid number: " + e.getMessage(), raw));
+        } catch (IllegalArgumentException e) {
+            chunk.rejects.add(new Reject(line, e.getMessage(), raw));
+        }
+    }
+
+    /**
+     * @return the fields of one CSV line, or null if a quote is left open
+     */
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>(4);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            return null;
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static void keep(List<Reject> rejects, Reject reject) {
+        if (rejects.size() < MAX_REJECTS_KEPT) {
+            rejects.add(reject);
+        }
+    }
+
+    // ---------------- EXPORT ----------------
+
+    /**
+     * Writes the current catalogue to {@code file}, header first.
+     *
+     * @return the number of products written
+     */
+    public int exportCsv(Path file) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        int[] count = {0};
+        try (BufferedWriter out = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            out.write(HEADER);
+            out.newLine();
+            inventory.snapshot().forEach(p -> {
+                try {
+                    out.write(quote(p.getId()));
+                    out.write(',');
+                    out.write(quote(p.getName()));
+                    out.write(',');
+                    out.write(Integer.toString(p.getQuantity()));
+                    out.write(',');
+                    out.write(Money.format(p.getPriceMinor()));
+                    out.newLine();
+                    count[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return count[0];
+    }
+
+    static String quote(String field) {
+        if (field.indexOf(',') < 0 && field.indexOf('"') < 0) {
+            return field;
+        }
+        return '"' + field.replace("\"", "\"\"") + '"';
+    }
+
+    // ---------------- Result types ----------------
+
+    /**
+     * Outcome of one import. Only the first {@value #MAX_REJECTS_KEPT}
+     * rejects are kept; {@link #getRejectedCount()} counts all of them.
+     */
+    public static final class ImportResult {
+        private final boolean applied;
+        private final int importedCount;
+        private final int rejectedCount;
+        private final List<Reject> rejects;
+
+        ImportResult(boolean applied, int importedCount, int rejectedCount, List<Reject> rejects) {
+            this.applied = applied;
+            this.importedCount = importedCount;
+            this.rejectedCount = rejectedCount;
+            this.rejects = Collections.unmodifiableList(rejects);
+        }
+
+        /**
+         * @return false if nothing was imported (no valid lines, or not permitted)
+         */
+        public boolean isApplied() { return applied; }
+        public int getImportedCount() { return importedCount; }
+        public int getRejectedCount() { return rejectedCount; }
+        public List<Reject> getRejects() { return rejects; }
+    }
+
+    /**
+     * A line that was not imported.
+     */
+    public static final class Reject {
+        private final int line;
+        private final String reason;
+        private final String text;
+
+        Reject(int line, String reason, String text) {
+            this.line = line;
+            this.reason = reason;
+            this.text = text.length() > MAX_REJECT_TEXT ? text.substring(0, MAX_REJECT_TEXT) + "…" : text;
+        }
+
+        public int getLine() { return line; }
+        public String getReason() { return reason; }
+        public String getText() { return text; }
+
+        @Override
+        public String toString() {
+            return "line " + line + ": " + reason;
+        }
+    }
+
+    // Parsed products of one chunk with their chunk-relative line numbers.
+    static final class Chunk {
+        final List<Product> products = new ArrayList<>();
+        final IntList productLines = new IntList();
+        final List<Reject> rejects = new ArrayList<>();
+        int lineCount;
+    }
+}
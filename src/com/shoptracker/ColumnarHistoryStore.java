@@ -0,0 +1,130 @@
+package com.shoptracker;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact history store that keeps events in primitive parallel arrays.
+ * <p>
+ * Product ids, product names and usernames are interned into one string
+ * table and stored as int ordinals, timestamps as epoch millis, and the old
+ * and new quantities are packed into a single long (the delta is derived).
+ * That is roughly 36 bytes per event instead of a full {@link InventoryEvent}
+ * object graph; events are only materialised when {@link #get(int)} is called.
+ */
+public final class ColumnarHistoryStore implements HistoryStore {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final InventoryEvent.EventType[] TYPES = InventoryEvent.EventType.values();
+
+    // interned strings shared by ids, names and usernames
+    private final Map<String, Integer> ordinals = new HashMap<>();
+    private final List<String> strings = new ArrayList<>();
+
+    private int[] productIds = new int[INITIAL_CAPACITY];
+    private int[] productNames = new int[INITIAL_CAPACITY];
+    private int[] users = new int[INITIAL_CAPACITY];
+    private byte[] types = new byte[INITIAL_CAPACITY];
+    private long[] epochMillis = new long[INITIAL_CAPACITY];
+    private long[] quantities = new long[INITIAL_CAPACITY]; // old << 32 | new
+    private long[] prices = new long[INITIAL_CAPACITY]; // cents
+    private int size;
+
+    @Override
+    public synchronized void append(InventoryEvent event) {
+        if (size == epochMillis.length) {
+            grow();
+        }
+        int i = size;
+        productIds[i] = intern(event.getProductId());
+        productNames[i] = intern(event.getProductName());
+        users[i] = intern(event.getUsername());
+        types[i] = (byte) event.getType().ordinal();
+        epochMillis[i] = event.getInstant().toEpochMilli();
+        quantities[i] = ((long) event.getOldQuantity() << 32) | (event.getNewQuantity() & 0xFFFFFFFFL);
+        prices[i] = event.getPriceMinor();
+        size = i + 1;
+    }
+
+    @Override
+    public synchronized int size() {
+        return size;
+    }
+
+    @Override
+    public synchronized InventoryEvent get(int index) {
+        checkIndex(index);
+        long packed = quantities[index];
+        return InventoryEvent.ofMinorUnits(
+                strings.get(productIds[index]),
+                strings.get(productNames[index]),
+                strings.get(users[index]),
+                TYPES[types[index]],
+                (int) (packed >> 32),
+                (int) packed,
+                prices[index],
+                Instant.ofEpochMilli(epochMillis[index])
+        );
+    }
+
+    @Override
+    public synchronized long epochMillis(int index) {
+        checkIndex(index);
+        return epochMillis[index];
+    }
+
+    @Override
+    public synchronized void clear() {
+        ordinals.clear();
+        strings.clear();
+        productIds = new int[INITIAL_CAPACITY];
+        productNames = new int[INITIAL_CAPACITY];
+        users = new int[INITIAL_CAPACITY];
+        types = new byte[INITIAL_CAPACITY];
+        epochMillis = new long[INITIAL_CAPACITY];
+        quantities = new long[INITIAL_CAPACITY];
+        prices = new long[INITIAL_CAPACITY];
+        size = 0;
+    }
+
+    /**
+     * @return number of distinct ids, names and usernames held by the string table
+     */
+    public synchronized int internedStrings() {
+        return strings.size();
+    }
+
+    // ---------------- Helpers ----------------
+
+    private int intern(String s) {
+        Integer existing = ordinals.get(s);
+        if (existing != null) {
+            return existing;
+        }
+        int ordinal = strings.size();
+        strings.add(s);
+        ordinals.put(s, ordinal);
+        return ordinal;
+    }
+
+    private void grow() {
+        int capacity = epochMillis.length + (epochMillis.length >> 1);
+        productIds = Arrays.copyOf(productIds, capacity);
+        productNames = Arrays.copyOf(productNames, capacity);
+        users = Arrays.copyOf(users, capacity);
+        types = Arrays.copyOf(types, capacity);
+        epochMillis = Arrays.copyOf(epochMillis, capacity);
+        quantities = Arrays.copyOf(quantities, capacity);
+        prices = Arrays.copyOf(prices, capacity);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        }
+    }
+}
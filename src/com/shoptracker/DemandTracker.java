@@ -0,0 +1,98 @@
+package com.shoptracker;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sales velocity per product as an exponentially weighted moving average,
+ * updated in O(1) from each consuming event as it is recorded; history is
+ * never rescanned.
+ * <p>
+ * A product keeps {@code Σ units_i · e^(-(t - t_i)/τ)} as of its last sale.
+ * Dividing that by the equally weighted length of the observed window,
+ * {@code τ · (1 - e^(-elapsed/τ))}, gives units per unit of time, so a
+ * steady seller reads its true rate whether it has been selling for a day or
+ * a year, and the estimate fades with a half-life once sales stop.
+ * <p>
+ * Consumption is a DECREASE, or an ADJUST with a negative delta; removing a
+ * product forgets it. Writes come from InventoryService under its history
+ * lock; reads are lock-free, as each product's state is an immutable value.
+ */
+final class DemandTracker {
+
+    static final long DEFAULT_HALF_LIFE_MILLIS = TimeUnit.DAYS.toMillis(7);
+
+    private static final double MILLIS_PER_DAY = TimeUnit.DAYS.toMillis(1);
+    // a first sale moments ago is read as one day's demand, not a spike
+    private static final long MIN_WINDOW_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+    private final double tau; // mean lifetime of a sale's weight, in millis
+    private final Map<String, Rate> rates = new ConcurrentHashMap<>();
+
+    DemandTracker(long halfLifeMillis) {
+        if (halfLifeMillis <= 0) {
+            throw new IllegalArgumentException("halfLifeMillis must be positive: " + halfLifeMillis);
+        }
+        this.tau = halfLifeMillis / Math.log(2);
+    }
+
+    void record(InventoryEvent e) {
+        switch (e.getType()) {
+            case REMOVE:
+                rates.remove(e.getProductId());
+                break;
+            case DECREASE:
+            case ADJUST:
+                if (e.getDelta() < 0) {
+                    consume(e.getProductId(), -e.getDelta(), e.getInstant().toEpochMilli());
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void consume(String id, int units, long atMillis) {
+        Rate r = rates.get(id);
+        if (r == null) {
+            rates.put(id, new Rate(units, atMillis, atMillis));
+        } else {
+            long t = Math.max(atMillis, r.lastMillis); // tolerate a clock step backwards
+            rates.put(id, new Rate(decayed(r, t) + units, r.firstMillis, t));
+        }
+    }
+
+    /**
+     * @return units consumed per day as of {@code nowMillis}; 0 if none seen
+     */
+    double dailyRate(String id, long nowMillis) {
+        Rate r = rates.get(id);
+        if (r == null) {
+            return 0;
+        }
+        long t = Math.max(nowMillis, r.lastMillis);
+        double window = tau * -Math.expm1(-Math.max(t - r.firstMillis, MIN_WINDOW_MILLIS) / tau);
+        return decayed(r, t) / window * MILLIS_PER_DAY;
+    }
+
+    void clear() {
+        rates.clear();
+    }
+
+    private double decayed(Rate r, long atMillis) {
+        return r.weight * Math.exp(-(atMillis - r.lastMillis) / tau);
+    }
+
+    private static final class Rate {
+        final double weight; // decayed units as of lastMillis
+        final long firstMillis;
+        final long lastMillis;
+
+        Rate(double weight, long firstMillis, long lastMillis) {
+            this.weight = weight;
+            this.firstMillis = firstMillis;
+            this.lastMillis = lastMillis;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.shoptracker;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Immutable set of history constraints; a null field means "any".
+ * Time bounds are {@code from <= timestamp < to}.
+ */
+public final class HistoryFilter {
+
+    private static final HistoryFilter ALL = new HistoryFilter(null, null, null, null);
+
+    private final String productId;
+    private final String username;
+    private final Instant from;
+    private final Instant to;
+
+    private HistoryFilter(String productId, String username, Instant from, Instant to) {
+        this.productId = productId;
+        this.username = username;
+        this.from = from;
+        this.to = to;
+    }
+
+    public static HistoryFilter all() {
+        return ALL;
+    }
+
+    public HistoryFilter forProduct(String productId) {
+        return new HistoryFilter(blankToNull(productId), username, from, to);
+    }
+
+    public HistoryFilter byUser(String username) {
+        return new HistoryFilter(productId, blankToNull(username), from, to);
+    }
+
+    public HistoryFilter between(Instant from, Instant to) {
+        return new HistoryFilter(productId, username, from, to);
+    }
+
+    /**
+     * Bounds given as local wall-clock times (e.g. typed into the UI), read
+     * in the system time zone.
+     */
+    public HistoryFilter between(LocalDateTime from, LocalDateTime to) {
+        return between(toInstant(from), toInstant(to));
+    }
+
+    public String getProductId() { return productId; }
+    public String getUsername() { return username; }
+    public Instant getFrom() { return from; }
+    public Instant getTo() { return to; }
+
+    static Instant toInstant(LocalDateTime t) {
+        return t == null ? null : t.atZone(ZoneId.systemDefault()).toInstant();
+    }
+
+    private static String blankToNull(String s) {
+        return (s == null || s.isBlank()) ? null : s.trim();
+    }
+}
@@ -0,0 +1,174 @@
+package com.shoptracker;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Secondary indexes over a {@link HistoryStore}: event positions per product,
+ * per user and per event type. The store itself is in append (time) order,
+ * so it doubles as the time-ordered index and every posting list is sorted
+ * by time as well, which lets range queries binary-search on timestamps.
+ * <p>
+ * Not thread-safe; InventoryService only touches it under its history lock.
+ */
+final class HistoryIndex {
+
+    private final HistoryStore store;
+    private final Map<String, IntList> byProduct = new HashMap<>();
+    private final Map<String, IntList> byUser = new HashMap<>();
+    private final Map<InventoryEvent.EventType, IntList> byType =
+            new EnumMap<>(InventoryEvent.EventType.class);
+
+    HistoryIndex(HistoryStore store) {
+        this.store = store;
+    }
+
+    void add(int position, InventoryEvent e) {
+        byProduct.computeIfAbsent(e.getProductId(), k -> new IntList()).add(position);
+        byUser.computeIfAbsent(e.getUsername(), k -> new IntList()).add(position);
+        byType.computeIfAbsent(e.getType(), k -> new IntList()).add(position);
+    }
+
+    void clear() {
+        byProduct.clear();
+        byUser.clear();
+        byType.clear();
+    }
+
+    IntList forProduct(String productId) {
+        return byProduct.get(productId);
+    }
+
+    IntList forUser(String username) {
+        return byUser.get(username);
+    }
+
+    IntList forType(InventoryEvent.EventType type) {
+        return byType.get(type);
+    }
+
+    void forEachProduct(BiConsumer<String, IntList> action) {
+        byProduct.forEach(action);
+    }
+
+    /**
+     * Store position of the last posting with {@code timestamp <= millis}
+     * (null list: the whole store), or -1 if there is none. One binary search.
+     */
+    int latestAtOrBefore(IntList postings, long millis) {
+        int size = postings == null ? store.size() : postings.size();
+        int end = millis == Long.MAX_VALUE ? size : lowerBound(postings, size, millis + 1);
+        if (end == 0) {
+            return -1;
+        }
+        return postings == null ? end - 1 : postings.get(end - 1);
+    }
+
+    /**
+     * Picks one page of store positions out of a posting list, restricted to
+     * {@code fromMillis <= timestamp < toMillis}. A null list means "every
+     * event in the store". Costs two binary searches plus the page itself.
+     */
+    int[] select(IntList postings, long fromMillis, long toMillis, int limit, int offset) {
+        return select(postings, null, fromMillis, toMillis, limit, offset);
+    }
+
+    /**
+     * Like {@link #select(IntList, long, long, int, int)} but keeps only
+     * positions present in both lists (either may be null for "any"). Two
+     * lists are intersected by a merge walk over their time-ranged slices,
+     * so no event has to be materialised to test it.
+     */
+    int[] select(IntList a, IntList b, long fromMillis, long toMillis, int limit, int offset) {
+        if (b == null || a == null) {
+            IntList only = a != null ? a : b;
+            int size = only == null ? store.size() : only.size();
+            int lo = lowerBound(only, size, fromMillis);
+            int hi = lowerBound(only, size, toMillis);
+
+            int start = (int) Math.min((long) lo + offset, hi);
+            int end = (int) Math.min((long) start + limit, hi);
+
+            int[] page = new int[end - start];
+            for (int i = start; i < end; i++) {
+                page[i - start] = only == null ? i : only.get(i);
+            }
+            return page;
+        }
+
+        IntList page = new IntList(Math.min(limit, 64));
+        intersect(a, b, fromMillis, toMillis, offset, limit, page);
+        int[] out = new int[page.size()];
+        for (int i = 0; i < out.length; i++) {
+            out[i] = page.get(i);
+        }
+        return out;
+    }
+
+    /**
+     * Number of positions that {@code select} would return without paging.
+     */
+    int count(IntList a, IntList b, long fromMillis, long toMillis) {
+        if (b == null || a == null) {
+            IntList only = a != null ? a : b;
+            int size = only == null ? store.size() : only.size();
+            return lowerBound(only, size, toMillis) - lowerBound(only, size, fromMillis);
+        }
+        return intersect(a, b, fromMillis, toMillis, 0, Integer.MAX_VALUE, null);
+    }
+
+    // Merge walk over two ascending posting lists; collects [skip, skip+limit) of the matches.
+    private int intersect(IntList a, IntList b, long fromMillis, long toMillis,
+                          int skip, int limit, IntList out) {
+        int i = lowerBound(a, a.size(), fromMillis);
+        int iEnd = lowerBound(a, a.size(), toMillis);
+        int j = lowerBound(b, b.size(), fromMillis);
+        int jEnd = lowerBound(b, b.size(), toMillis);
+
+        int matched = 0;
+        while (i < iEnd && j < jEnd) {
+            int x = a.get(i);
+            int y = b.get(j);
+            if (x < y) {
+                i++;
+            } else if (y < x) {
+                j++;
+            } else {
+                if (out != null && matched >= skip) {
+                    if (out.size() == limit) {
+                        break;
+                    }
+                    out.add(x);
+                }
+                matched++;
+                i++;
+                j++;
+            }
+        }
+        return matched;
+    }
+
+    // first posting whose timestamp is >= millis
+    private int lowerBound(IntList postings, int size, long millis) {
+        if (millis == Long.MIN_VALUE) {
+            return 0;
+        }
+        if (millis == Long.MAX_VALUE) {
+            return size;
+        }
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            int position = postings == null ? mid : postings.get(mid);
+            if (store.epochMillis(position) < millis) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+}
@@ -0,0 +1,39 @@
+package com.shoptracker;
+
+import java.util.List;
+
+/**
+ * Append-only storage for inventory history.
+ * Implementations must tolerate reads running alongside appends;
+ * InventoryService already serialises the appends themselves.
+ */
+public interface HistoryStore {
+
+    void append(InventoryEvent event);
+
+    default void appendAll(List<InventoryEvent> events) {
+        for (InventoryEvent e : events) {
+            append(e);
+        }
+    }
+
+    /**
+     * @return number of events stored, i.e. the index the next append gets
+     */
+    int size();
+
+    /**
+     * @param index position in append order, {@code 0 <= index < size()}
+     */
+    InventoryEvent get(int index);
+
+    /**
+     * Timestamp of one event as epoch millis. Stores that keep the raw value
+     * override this so range queries need not materialise whole events.
+     */
+    default long epochMillis(int index) {
+        return get(index).getInstant().toEpochMilli();
+    }
+
+    void clear();
+}
@@ -0,0 +1,37 @@
+package com.shoptracker;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Default history store: events kept on the heap, lost on restart.
+ */
+public final class InMemoryHistoryStore implements HistoryStore {
+
+    private final List<InventoryEvent> events = new ArrayList<>();
+
+    @Override
+    public synchronized void append(InventoryEvent event) {
+        events.add(event);
+    }
+
+    @Override
+    public synchronized void appendAll(List<InventoryEvent> batch) {
+        events.addAll(batch);
+    }
+
+    @Override
+    public synchronized int size() {
+        return events.size();
+    }
+
+    @Override
+    public synchronized InventoryEvent get(int index) {
+        return events.get(index);
+    }
+
+    @Override
+    public synchronized void clear() {
+        events.clear();
+    }
+}
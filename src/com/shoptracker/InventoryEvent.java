@@ -1,11 +1,17 @@
 package com.shoptracker;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.Objects;
 
 /**
  * Represents one change in product stock history.
  * Fully immutable and SonarQube-clean.
+ * <p>
+ * The time of the change is kept as an {@link Instant}, so history order and
+ * point-in-time queries do not depend on the JVM time zone or daylight saving
+ * changes; {@link #getTimestamp()} converts to local time for display.
  */
 public final class InventoryEvent {
 
@@ -26,7 +32,8 @@ public final class InventoryEvent {
     private final int oldQuantity;
     private final int newQuantity;
     private final int delta;
-    private final LocalDateTime timestamp;
+    private final long priceMinor;
+    private final Instant instant;
 
     /**
      * Creates a new immutable event describing a stock change.
@@ -45,6 +52,53 @@ public final class InventoryEvent {
             EventType type,
             int oldQuantity,
             int newQuantity
+    ) {
+        this(productId, productName, username, type, oldQuantity, newQuantity, 0.0);
+    }
+
+    /**
+     * Creates an event that also captures the unit price at event time,
+     * so a persisted history is enough to rebuild the product catalogue.
+     */
+    public InventoryEvent(
+            String productId,
+            String productName,
+            String username,
+            EventType type,
+            int oldQuantity,
+            int newQuantity,
+            double price
+    ) {
+        this(productId, productName, username, type, oldQuantity, newQuantity, Money.toMinor(price), Instant.now());
+    }
+
+    /**
+     * Creates an event at a local wall-clock time, read in the system time
+     * zone. Prefer {@link #ofMinorUnits} with an instant.
+     */
+    public InventoryEvent(
+            String productId,
+            String productName,
+            String username,
+            EventType type,
+            int oldQuantity,
+            int newQuantity,
+            double price,
+            LocalDateTime timestamp
+    ) {
+        this(productId, productName, username, type, oldQuantity, newQuantity, Money.toMinor(price),
+                timestamp.atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    private InventoryEvent(
+            String productId,
+            String productName,
+            String username,
+            EventType type,
+            int oldQuantity,
+            int newQuantity,
+            long priceMinor,
+            Instant instant
     ) {
         this.productId = Objects.requireNonNull(productId, "productId");
         this.productName = Objects.requireNonNull(productName, "productName");
@@ -53,7 +107,26 @@ public final class InventoryEvent {
         this.oldQuantity = oldQuantity;
         this.newQuantity = newQuantity;
         this.delta = newQuantity - oldQuantity;
-        this.timestamp = LocalDateTime.now();
+        this.priceMinor = priceMinor;
+        this.instant = Objects.requireNonNull(instant, "instant");
+    }
+
+    /**
+     * Event with the unit price in minor units (cents), as InventoryService,
+     * the journal and the columnar store record it.
+     */
+    public static InventoryEvent ofMinorUnits(
+            String productId,
+            String productName,
+            String username,
+            EventType type,
+            int oldQuantity,
+            int newQuantity,
+            long priceMinor,
+            Instant instant
+    ) {
+        return new InventoryEvent(productId, productName, username, type, oldQuantity, newQuantity,
+                priceMinor, instant);
     }
 
     public String getProductId() {
@@ -84,13 +157,28 @@ public final class InventoryEvent {
         return delta;
     }
 
+    public double getPrice() {
+        return Money.toMajor(priceMinor);
+    }
+
+    public long getPriceMinor() {
+        return priceMinor;
+    }
+
+    /**
+     * When the change happened, in the system time zone; for display.
+     */
     public LocalDateTime getTimestamp() {
-        return timestamp;
+        return LocalDateTime.ofInstant(instant, ZoneId.systemDefault());
+    }
+
+    public Instant getInstant() {
+        return instant;
     }
 
     @Override
     public String toString() {
-        return timestamp +
+        return getTimestamp() +
                 " | " + username +
                 " | " + type +
                 " | " + productName + " (" + productId + ")" +
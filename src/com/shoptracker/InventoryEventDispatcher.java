@@ -0,0 +1,114 @@
+package com.shoptracker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands inventory events to listeners without slowing down the thread that
+ * changed the stock. Events go into a bounded array ring buffer; if it is
+ * full the event is counted as dropped rather than blocking the publisher.
+ * A single daemon thread, started when the first listener registers, drains
+ * the buffer in batches and calls the listeners in publish order.
+ */
+public final class InventoryEventDispatcher {
+
+    public static final int DEFAULT_CAPACITY = 8192;
+    private static final int BATCH_SIZE = 256;
+
+    private final BlockingQueue<InventoryEvent> queue;
+    private final List<InventoryListener> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicLong dropped = new AtomicLong();
+    private Thread worker; // guarded by this
+
+    public InventoryEventDispatcher() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public InventoryEventDispatcher(int capacity) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+    }
+
+    public void addListener(InventoryListener listener) {
+        listeners.add(Objects.requireNonNull(listener));
+        startIfNeeded();
+    }
+
+    public void removeListener(InventoryListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Non-blocking; a no-op while nobody is listening.
+     */
+    public void publish(InventoryEvent event) {
+        if (listeners.isEmpty()) {
+            return;
+        }
+        if (!queue.offer(event)) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    private synchronized void startIfNeeded() {
+        if (worker != null) {
+            return;
+        }
+        worker = new Thread(this::drain, "inventory-event-dispatcher");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    private void drain() {
+        List<InventoryEvent> batch = new ArrayList<>(BATCH_SIZE);
+        long reportedDrops = 0;
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                batch.add(queue.take());
+                queue.drainTo(batch, BATCH_SIZE - 1);
+
+                long drops = dropped.get();
+                if (drops != reportedDrops) {
+                    notifyDropped(drops - reportedDrops);
+                    reportedDrops = drops;
+                }
+
+                for (InventoryEvent e : batch) {
+                    deliver(e);
+                }
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void deliver(InventoryEvent event) {
+        for (InventoryListener listener : listeners) {
+            try {
+                listener.onInventoryEvent(event);
+            } catch (RuntimeException ex) {
+                // keep the dispatcher alive for the other listeners
+                ActivityLogService.getInstance().log("Inventory listener failed: " + ex);
+            }
+        }
+    }
+
+    private void notifyDropped(long count) {
+        for (InventoryListener listener : listeners) {
+            try {
+                listener.eventsDropped(count);
+            } catch (RuntimeException ex) {
+                ActivityLogService.getInstance().log("Inventory listener failed: " + ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,523 @@
+package com.shoptracker;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.Instant;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Append-only, memory-mapped journal of inventory events.
+ * <p>
+ * Events are written in a compact binary form into fixed-size segment files
+ * ({@code segment-000000.log}, {@code segment-000001.log}, ...). A new segment
+ * is started when the current one is full. Each record is
+ * {@code [int length][payload]}; a zero length marks the end of written data.
+ * The payload is copied into the mapped segment first and the length is
+ * written last, so a partially written record is never visible.
+ * <p>
+ * Each segment starts with a header holding the journal's epoch, which
+ * {@link #clear()} advances. Loading stops at the first segment from another
+ * epoch, so segments left over from before a clear are never read back even
+ * if zeroing them was interrupted. (Segments written before headers existed
+ * start directly with a record and are still read.)
+ * <p>
+ * A snapshot file records the full product catalogue together with the number
+ * of events it already covers, so {@link #recover()} only has to replay the
+ * events appended after the last checkpoint.
+ */
+public final class InventoryJournal implements HistoryStore, Closeable {
+
+    public static final int DEFAULT_SEGMENT_SIZE = 8 * 1024 * 1024;
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String SNAPSHOT_FILE = "snapshot.bin";
+    private static final String SNAPSHOT_TMP = "snapshot.tmp";
+    private static final int SNAPSHOT_MAGIC = 0x53544b53; // "STKS"
+    private static final int SNAPSHOT_VERSION = 1;
+
+    private static final int LENGTH_BYTES = Integer.BYTES;
+    // segment header: magic + epoch. The magic is negative, so never a record length.
+    private static final int SEGMENT_MAGIC = 0xC0FFEE5E;
+    private static final int HEADER_BYTES = Integer.BYTES + Long.BYTES;
+    // epochMillis + type + oldQty + newQty + price + three string lengths
+    private static final int FIXED_PAYLOAD = Long.BYTES + 1 + Integer.BYTES * 2 + Long.BYTES + Short.BYTES * 3;
+    private static final int MAX_STRING_BYTES = 0xFFFF;
+
+    private static final InventoryEvent.EventType[] TYPES = InventoryEvent.EventType.values();
+
+    private final Path directory;
+    private final int segmentSize;
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    private final ByteBuffer scratch;
+
+    private int activeSegments;
+    private MappedByteBuffer tail;
+    private long epoch;
+    // serialises snapshot writes; the last one published, guarded by checkpointLock
+    private final Object checkpointLock = new Object();
+    private long checkpointEpoch = -1;
+    private int checkpointCovered;
+
+    // per event: (segment index << 32) | position within the segment
+    private long[] offsets = new long[1024];
+    private int count;
+    private boolean closed;
+
+    private InventoryJournal(Path directory, int segmentSize) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.scratch = ByteBuffer.allocate(
+                Math.min(segmentSize - HEADER_BYTES - LENGTH_BYTES, FIXED_PAYLOAD + MAX_STRING_BYTES * 3));
+    }
+
+    public static InventoryJournal open(Path directory) throws IOException {
+        return open(directory, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Opens (or creates) the journal in {@code directory}, scanning existing
+     * segments to find where the next record goes.
+     */
+    public static InventoryJournal open(Path directory, int segmentSize) throws IOException {
+        if (segmentSize < HEADER_BYTES + LENGTH_BYTES + FIXED_PAYLOAD) {
+            throw new IllegalArgumentException("Segment size too small: " + segmentSize);
+        }
+        Files.createDirectories(directory);
+
+        InventoryJournal journal = new InventoryJournal(directory, segmentSize);
+        journal.load();
+        return journal;
+    }
+
+    // ---------------- APPEND ----------------
+
+    @Override
+    public synchronized void append(InventoryEvent event) {
+        ensureOpen();
+
+        scratch.clear();
+        encode(event, scratch);
+        scratch.flip();
+        int length = scratch.remaining();
+
+        if (tail.remaining() < LENGTH_BYTES + length) {
+            rollSegment();
+        }
+
+        int position = tail.position();
+        tail.put(position + LENGTH_BYTES, scratch, 0, length);
+        tail.putInt(position, length); // commit
+        tail.position(position + LENGTH_BYTES + length);
+
+        addOffset(activeSegments - 1, position);
+    }
+
+    // ---------------- READ ----------------
+
+    @Override
+    public synchronized int size() {
+        return count;
+    }
+
+    @Override
+    public synchronized InventoryEvent get(int index) {
+        Objects.checkIndex(index, count);
+        long offset = offsets[index];
+        return decode(segments.get((int) (offset >>> 32)), (int) offset + LENGTH_BYTES);
+    }
+
+    @Override
+    public synchronized long epochMillis(int index) {
+        Objects.checkIndex(index, count);
+        long offset = offsets[index];
+        return segments.get((int) (offset >>> 32)).getLong((int) offset + LENGTH_BYTES);
+    }
+
+    // ---------------- CHECKPOINT / RECOVERY ----------------
+
+    /**
+     * Writes a snapshot of the catalogue covering every event appended so far.
+     */
+    public void checkpoint(Collection<Product> products) {
+        checkpoint(size(), products);
+    }
+
+    /**
+     * Writes a snapshot of the catalogue as of the first {@code covered}
+     * events. Segments are forced to disk first so the snapshot never runs
+     * ahead of the journal it summarises. Only the bookkeeping holds the
+     * journal lock, so appends carry on while the snapshot is written; a
+     * snapshot overtaken by a newer one or by {@link #clear()} is dropped.
+     */
+    public void checkpoint(int covered, Collection<Product> products) {
+        List<MappedByteBuffer> toForce;
+        long atEpoch;
+        synchronized (this) {
+            ensureOpen();
+            if (covered < 0 || covered > count) {
+                throw new IllegalArgumentException("covered " + covered + " of " + count + " events");
+            }
+            toForce = new ArrayList<>(segments.subList(0, activeSegments));
+            atEpoch = epoch;
+        }
+
+        synchronized (checkpointLock) {
+            if (atEpoch == checkpointEpoch && covered <= checkpointCovered) {
+                return;
+            }
+            for (MappedByteBuffer segment : toForce) {
+                segment.force();
+            }
+
+            Path tmp = directory.resolve(SNAPSHOT_TMP);
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeInt(SNAPSHOT_VERSION);
+                out.writeInt(covered);
+
+                List<Product> copy = new ArrayList<>(products);
+                out.writeInt(copy.size());
+                for (Product p : copy) {
+                    out.writeUTF(p.getId());
+                    out.writeUTF(p.getName());
+                    out.writeInt(p.getQuantity());
+                    out.writeLong(p.getPriceMinor());
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not write inventory snapshot", e);
+            }
+
+            // the rename is quick; under the journal lock a clear() cannot slip in between
+            synchronized (this) {
+                if (closed || epoch != atEpoch) {
+                    return;
+                }
+                try {
+                    Files.move(tmp, directory.resolve(SNAPSHOT_FILE),
+                            StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Could not publish inventory snapshot", e);
+                }
+            }
+            checkpointEpoch = atEpoch;
+            checkpointCovered = covered;
+        }
+    }
+
+    /**
+     * Rebuilds the product catalogue: loads the last snapshot, then replays
+     * only the events appended after it. Replay is idempotent because every
+     * event carries absolute quantities and the price at event time.
+     */
+    public synchronized Map<String, Product> recover() {
+        ensureOpen();
+        Map<String, Product> products = new LinkedHashMap<>();
+        int from = readSnapshot(products);
+
+        for (int i = from; i < count; i++) {
+            apply(products, get(i));
+        }
+        return products;
+    }
+
+    /**
+     * @return number of events covered by the snapshot on disk (0 if none)
+     */
+    public synchronized int getCheckpointedEventCount() {
+        return readSnapshot(new HashMap<>());
+    }
+
+    private static void apply(Map<String, Product> products, InventoryEvent e) {
+        switch (e.getType()) {
+            case ADD:
+                products.put(e.getProductId(),
+                        Product.ofMinorUnits(e.getProductId(), e.getProductName(), e.getNewQuantity(),
+                                e.getPriceMinor()));
+                break;
+            case REMOVE:
+                products.remove(e.getProductId());
+                break;
+            default:
+                Product p = products.get(e.getProductId());
+                if (p == null) {
+                    products.put(e.getProductId(),
+                            Product.ofMinorUnits(e.getProductId(), e.getProductName(), e.getNewQuantity(),
+                                e.getPriceMinor()));
+                } else {
+                    products.put(p.getId(), p.withQuantity(e.getNewQuantity()).withPriceMinor(e.getPriceMinor()));
+                }
+                break;
+        }
+    }
+
+    private int readSnapshot(Map<String, Product> into) {
+        Path file = directory.resolve(SNAPSHOT_FILE);
+        if (!Files.exists(file)) {
+            return 0;
+        }
+
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                return 0;
+            }
+            int covered = in.readInt();
+            if (covered > count) {
+                return 0; // journal was cleared or truncated after the snapshot
+            }
+
+            int n = in.readInt();
+            for (int i = 0; i < n; i++) {
+                String id = in.readUTF();
+                String name = in.readUTF();
+                int qty = in.readInt();
+                long priceMinor = in.readLong();
+                into.put(id, Product.ofMinorUnits(id, name, qty, priceMinor));
+            }
+            return covered;
+        } catch (IOException e) {
+            into.clear();
+            return 0; // unreadable snapshot: fall back to a full replay
+        }
+    }
+
+    // ---------------- CLEAR / CLOSE ----------------
+
+    /**
+     * Empties the journal. Segment files stay mapped and are reused, so this
+     * works even where mapped files cannot be deleted: all of them are zeroed
+     * and the first starts a new epoch.
+     */
+    @Override
+    public synchronized void clear() {
+        ensureOpen();
+        // the new epoch goes in first, so later segments are stale even if zeroing them is cut short
+        zeroFill(segments.get(0));
+        epoch++;
+        writeHeader(segments.get(0));
+        for (int i = 1; i < segments.size(); i++) {
+            zeroFill(segments.get(i));
+        }
+        activeSegments = 1;
+        tail = segments.get(0);
+        tail.position(HEADER_BYTES);
+        count = 0;
+
+        try {
+            Files.deleteIfExists(directory.resolve(SNAPSHOT_FILE));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not delete inventory snapshot", e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        for (int i = 0; i < activeSegments; i++) {
+            segments.get(i).force();
+        }
+        closed = true;
+    }
+
+    // ---------------- SEGMENTS ----------------
+
+    private void load() throws IOException {
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing
+                    .filter(p -> p.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                    .filter(p -> p.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+
+        for (Path file : files) {
+            segments.add(map(file));
+        }
+        if (segments.isEmpty()) {
+            segments.add(map(segmentPath(0)));
+        }
+
+        // Segment 0 fixes the epoch. The tail is the last segment after it that
+        // carries the same epoch; anything beyond is stale and zeroed before reuse.
+        MappedByteBuffer first = segments.get(0);
+        if (first.getInt(0) == SEGMENT_MAGIC) {
+            epoch = first.getLong(Integer.BYTES);
+        } else {
+            // blank (a new journal, or a clear() cut short) or no header at all,
+            // which is corrupt: start empty and outrank anything left behind
+            if (first.getInt(0) != 0) {
+                zeroFill(first);
+            }
+            epoch = newestEpoch() + 1;
+            writeHeader(first);
+        }
+
+        for (int s = 0; s < segments.size(); s++) {
+            MappedByteBuffer segment = segments.get(s);
+            if (s > 0 && !continuesJournal(segment)) {
+                break;
+            }
+            int pos = scan(segment, s, HEADER_BYTES);
+            activeSegments = s + 1;
+            tail = segment;
+            tail.position(pos);
+        }
+    }
+
+    private boolean continuesJournal(MappedByteBuffer segment) {
+        return segment.getInt(0) == SEGMENT_MAGIC && segment.getLong(Integer.BYTES) == epoch;
+    }
+
+    private long newestEpoch() {
+        long newest = -1;
+        for (MappedByteBuffer segment : segments) {
+            if (segment.getInt(0) == SEGMENT_MAGIC) {
+                newest = Math.max(newest, segment.getLong(Integer.BYTES));
+            }
+        }
+        return newest;
+    }
+
+    private void writeHeader(MappedByteBuffer segment) {
+        segment.putLong(Integer.BYTES, epoch);
+        segment.putInt(0, SEGMENT_MAGIC);
+    }
+
+    private int scan(MappedByteBuffer segment, int index, int start) {
+        int pos = start;
+        int limit = segment.capacity();
+        while (pos + LENGTH_BYTES <= limit) {
+            int length = segment.getInt(pos);
+            if (length <= 0 || pos + LENGTH_BYTES + length > limit) {
+                break;
+            }
+            addOffset(index, pos);
+            pos += LENGTH_BYTES + length;
+        }
+        return pos;
+    }
+
+    private void rollSegment() {
+        int next = activeSegments;
+        if (next < segments.size()) {
+            zeroFill(segments.get(next));
+        } else {
+            try {
+                segments.add(map(segmentPath(next)));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not create journal segment " + next, e);
+            }
+        }
+        activeSegments = next + 1;
+        tail = segments.get(next);
+        writeHeader(tail);
+        tail.position(HEADER_BYTES);
+    }
+
+    private MappedByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = Math.max(channel.size(), segmentSize);
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    private Path segmentPath(int index) {
+        return directory.resolve(String.format("%s%06d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX));
+    }
+
+    private static void zeroFill(MappedByteBuffer segment) {
+        byte[] zeros = new byte[4096];
+        for (int pos = 0; pos < segment.capacity(); pos += zeros.length) {
+            segment.put(pos, zeros, 0, Math.min(zeros.length, segment.capacity() - pos));
+        }
+    }
+
+    private void addOffset(int segment, int position) {
+        if (count == offsets.length) {
+            offsets = Arrays.copyOf(offsets, offsets.length * 2);
+        }
+        offsets[count++] = ((long) segment << 32) | position;
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Inventory journal is closed");
+        }
+    }
+
+    // ---------------- ENCODING ----------------
+
+    private void encode(InventoryEvent e, ByteBuffer out) {
+        byte[] id = utf8(e.getProductId());
+        byte[] name = utf8(e.getProductName());
+        byte[] user = utf8(e.getUsername());
+        if (FIXED_PAYLOAD + id.length + name.length + user.length > segmentSize - HEADER_BYTES - LENGTH_BYTES) {
+            throw new IllegalArgumentException("Event too large for journal segment");
+        }
+
+        out.putLong(e.getInstant().toEpochMilli());
+        out.put((byte) e.getType().ordinal());
+        out.putInt(e.getOldQuantity());
+        out.putInt(e.getNewQuantity());
+        out.putLong(e.getPriceMinor());
+        putString(out, id);
+        putString(out, name);
+        putString(out, user);
+    }
+
+    private static InventoryEvent decode(MappedByteBuffer segment, int pos) {
+        long millis = segment.getLong(pos);
+        pos += Long.BYTES;
+        InventoryEvent.EventType type = TYPES[segment.get(pos)];
+        pos += 1;
+        int oldQty = segment.getInt(pos);
+        pos += Integer.BYTES;
+        int newQty = segment.getInt(pos);
+        pos += Integer.BYTES;
+        long priceMinor = segment.getLong(pos);
+        pos += Long.BYTES;
+
+        int idLen = Short.toUnsignedInt(segment.getShort(pos));
+        String id = getString(segment, pos + Short.BYTES, idLen);
+        pos += Short.BYTES + idLen;
+        int nameLen = Short.toUnsignedInt(segment.getShort(pos));
+        String name = getString(segment, pos + Short.BYTES, nameLen);
+        pos += Short.BYTES + nameLen;
+        int userLen = Short.toUnsignedInt(segment.getShort(pos));
+        String user = getString(segment, pos + Short.BYTES, userLen);
+
+        return InventoryEvent.ofMinorUnits(id, name, user, type, oldQty, newQty, priceMinor,
+                Instant.ofEpochMilli(millis));
+    }
+
+    private static byte[] utf8(String s) {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_STRING_BYTES) {
+            throw new IllegalArgumentException("Value too long for journal: " + s.substring(0, 32) + "...");
+        }
+        return bytes;
+    }
+
+    private static void putString(ByteBuffer out, byte[] bytes) {
+        out.putShort((short) bytes.length);
+        out.put(bytes);
+    }
+
+    private static String getString(MappedByteBuffer segment, int pos, int length) {
+        byte[] bytes = new byte[length];
+        segment.get(pos, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,20 @@
+package com.shoptracker;
+
+/**
+ * Receives inventory events published by {@link InventoryService}.
+ * Delivered asynchronously on the dispatcher thread, in history order.
+ */
+@FunctionalInterface
+public interface InventoryListener {
+
+    void onInventoryEvent(InventoryEvent event);
+
+    /**
+     * Called before delivery resumes if events were dropped because the
+     * dispatch queue was full. Listeners that mirror state (e.g. a table
+     * model) should resynchronise from the service.
+     */
+    default void eventsDropped(long count) {
+        // ignore by default
+    }
+}
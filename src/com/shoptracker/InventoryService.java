@@ -1,10 +1,33 @@
 package com.shoptracker;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 
 /**
  * Central inventory system for products, stock levels, and history tracking.
  * SonarQube-safe, fully deterministic, and permission-controlled.
+ * <p>
+ * Thread-safe: every read-modify-write on a product runs under a lock stripe
+ * chosen from the product id, so tills working on different SKUs proceed in
+ * parallel while concurrent deltas on the same SKU are never lost. Readers
+ * never lock: the catalogue is an immutable {@link InventorySnapshot} that
+ * writers replace atomically, so {@link #snapshot()} and every query see one
+ * consistent point in time, batches included.
+ * <p>
+ * Stock adjustments, searches, low-stock and history queries record their
+ * latency in {@link MetricsRegistry}, and permission failures are counted.
  */
 public final class InventoryService {
 
@@ -13,94 +36,319 @@ public final class InventoryService {
 
     public static synchronized InventoryService getInstance() {
         if (INSTANCE == null) {
-            INSTANCE = new InventoryService(AccessControl.getInstance());
+            INSTANCE = openDefault();
         }
         return INSTANCE;
     }
 
+    // Persistent when the data directory is usable, in-memory otherwise.
+    private static InventoryService openDefault() {
+        Path dir = dataDirectory().resolve("inventory");
+        try {
+            InventoryJournal journal = InventoryJournal.open(dir);
+            Runtime.getRuntime().addShutdownHook(new Thread(journal::close, "inventory-journal-close"));
+            return new InventoryService(AccessControl.getInstance(), journal);
+        } catch (IOException | UncheckedIOException e) {
+            return new InventoryService(AccessControl.getInstance());
+        }
+    }
+
+    /**
+     * Root for persisted application data: {@value #DATA_DIR_PROPERTY} if set,
+     * otherwise {@code ~/.shoptracker}.
+     */
+    public static Path dataDirectory() {
+        return Paths.get(System.getProperty(DATA_DIR_PROPERTY,
+                Paths.get(System.getProperty("user.home"), ".shoptracker").toString()));
+    }
+
     // ---------------- FIELDS ----------------
     private final AccessControl accessControl;
-    private final Map<String, Product> products = new HashMap<>();
-    private final List<InventoryEvent> history = new ArrayList<>();
+    // current catalogue; writers publish a new snapshot under the product's stripe lock
+    private final AtomicReference<InventorySnapshot> state = new AtomicReference<>(InventorySnapshot.EMPTY);
+    private final HistoryStore history; // appends guarded by the store itself
+    private final InventoryJournal journal; // null when history is not persisted
+    private final HistoryIndex historyIndex; // guarded by the history lock
+    // events reflected in historyIndex and demand; guarded by the history lock
+    private int indexed;
+    private volatile boolean indexReady;
+    private Instant lastStamp = Instant.EPOCH; // guarded by the history lock
+    private final NGramIndex nameIndex = new NGramIndex();
 
-    private final Map<String, Integer> restockThresholds = new HashMap<>();
+    private final Map<String, Integer> restockThresholds = new ConcurrentHashMap<>();
+    // ids at or below their threshold; updated under the product's stripe lock
+    private final Set<String> lowStock = ConcurrentHashMap.newKeySet();
+    private final List<StockThresholdListener> thresholdListeners = new CopyOnWriteArrayList<>();
+    // crossings seen under a stripe lock, announced by the same thread once it is released
+    private static final ThreadLocal<List<Runnable>> PENDING_CROSSINGS = ThreadLocal.withInitial(ArrayList::new);
+    private final InventoryEventDispatcher dispatcher = new InventoryEventDispatcher();
     private static final int DEFAULT_THRESHOLD = 5;
+    // days between ordering and delivery, and days of stock an order should add
+    private static final int LEAD_TIME_DAYS = 3;
+    private static final int TARGET_COVER_DAYS = 14;
+    // fed under the history lock alongside historyIndex; read through demand()
+    private final DemandTracker demand = new DemandTracker(DemandTracker.DEFAULT_HALF_LIFE_MILLIS);
     private static final String SYSTEM_USER = "system";
 
+    public static final String DATA_DIR_PROPERTY = "shoptracker.data.dir";
+    private static final int CHECKPOINT_INTERVAL = 10_000;
+    // events the background indexer takes per turn of the history lock
+    private static final int INDEX_CHUNK = 4_096;
+
+    // power of two keeps the stripe pick cheap; 64 also lets a batch track
+    // the stripes it holds in a single long bitmask
+    private static final int LOCK_STRIPES = 64;
+    private final ReentrantLock[] stripes = new ReentrantLock[LOCK_STRIPES];
+
+    // shared by every instance through the registry
+    private static final MetricsRegistry METRICS = MetricsRegistry.getInstance();
+    private final LatencyHistogram adjustTimer = METRICS.histogram("inventory.adjustQuantity");
+    private final LatencyHistogram batchTimer = METRICS.histogram("inventory.adjustQuantities");
+    private final LatencyHistogram searchTimer = METRICS.histogram("inventory.searchByName");
+    private final LatencyHistogram lowStockTimer = METRICS.histogram("inventory.getLowStockProducts");
+    private final LatencyHistogram historyTimer = METRICS.histogram("inventory.queryHistory");
+    private final LongAdder deniedCount = METRICS.counter("inventory.denied");
 
     // ---------------- CONSTRUCTOR ----------------
     public InventoryService(AccessControl accessControl) {
+        this(accessControl, new InMemoryHistoryStore(), null);
+    }
+
+    /**
+     * Uses the given store for history; products still start empty.
+     */
+    public InventoryService(AccessControl accessControl, HistoryStore historyStore) {
+        this(accessControl, historyStore, null);
+    }
+
+    /**
+     * Persistent mode: history lives in the journal and the product
+     * catalogue is rebuilt from its last checkpoint plus replay.
+     */
+    public InventoryService(AccessControl accessControl, InventoryJournal journal) {
+        this(accessControl, journal, Objects.requireNonNull(journal));
+        InventorySnapshot recovered = InventorySnapshot.EMPTY;
+        for (Product p : journal.recover().values()) {
+            recovered = recovered.put(p);
+            nameIndex.put(p.getId(), p.getName());
+            if (isLow(p)) {
+                lowStock.add(p.getId());
+            }
+        }
+        state.set(recovered);
+    }
+
+    private InventoryService(AccessControl accessControl, HistoryStore historyStore, InventoryJournal journal) {
         this.accessControl = Objects.requireNonNull(accessControl);
+        this.history = Objects.requireNonNull(historyStore);
+        this.journal = journal;
+        this.historyIndex = new HistoryIndex(historyStore);
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        indexInBackground();
+    }
+
+    // Existing history is indexed off the startup path, a chunk at a time so
+    // writers interleave; a query that arrives first finishes the job itself.
+    private void indexInBackground() {
+        synchronized (history) {
+            if (indexSome(0)) {
+                return;
+            }
+        }
+        Thread indexer = new Thread(() -> {
+            boolean done = false;
+            while (!done) {
+                synchronized (history) {
+                    done = indexSome(INDEX_CHUNK);
+                }
+            }
+        }, "history-indexer");
+        indexer.setDaemon(true);
+        indexer.start();
+    }
+
+    // Called with the history lock held: feeds up to max not yet indexed
+    // events to the indexes and the demand rates; true once none are left.
+    private boolean indexSome(int max) {
+        int end = (int) Math.min(history.size(), (long) indexed + max);
+        for (; indexed < end; indexed++) {
+            InventoryEvent e = history.get(indexed);
+            historyIndex.add(indexed, e);
+            demand.record(e);
+        }
+        if (indexed < history.size()) {
+            return false;
+        }
+        indexReady = true;
+        return true;
+    }
+
+    // Called with the history lock held, before any read of historyIndex.
+    private void ensureIndexed() {
+        if (!indexReady) {
+            indexSome(Integer.MAX_VALUE);
+        }
+    }
+
+    // Demand is read without the history lock once indexing has finished.
+    private DemandTracker demand() {
+        if (!indexReady) {
+            synchronized (history) {
+                ensureIndexed();
+            }
+        }
+        return demand;
     }
 
     // ---------------- PRODUCT CRUD (ADMIN / MANAGER ONLY) ----------------
 
-    public boolean addProduct(User actor, Product product) {
+    public boolean addProduct(Actor actor, Product product) {
         if (!accessControl.canManageStock(actor)) {
-            return false;
+            return denied();
         }
         if (product == null) {
             return false;
         }
 
-        products.put(product.getId(), product);
+        addProductAs(actor.getUsername(), product);
+        return true;
+    }
 
-        recordEvent(
-                product.getId(),
-                product.getName(),
-                actor.getUsername(),
-                InventoryEvent.EventType.ADD,
-                0,
-                product.getQuantity()
-        );
+    // No permission check: the caller has made it, or is the system itself.
+    private void addProductAs(String username, Product product) {
+        ReentrantLock lock = stripeFor(product.getId());
+        lock.lock();
+        try {
+            publish(product);
+            nameIndex.put(product.getId(), product.getName());
+
+            recordEvent(
+                    product,
+                    username,
+                    InventoryEvent.EventType.ADD,
+                    0,
+                    product.getQuantity()
+            );
+        } finally {
+            unlock(lock);
+        }
+    }
+
+    /**
+     * Adds (or replaces) many products as one batch, e.g. a catalogue import:
+     * one permission check, the affected stripes locked once, and the ADD
+     * events appended to history as a single block. Null entries and
+     * duplicate ids are the caller's problem; see {@link CatalogueImporter}.
+     *
+     * @return false (and nothing applied) if the actor may not manage stock
+     */
+    public boolean addProducts(Actor actor, Collection<Product> batch) {
+        if (batch == null || batch.isEmpty()) {
+            return false;
+        }
+        if (!accessControl.canManageStock(actor)) {
+            return denied();
+        }
+
+        List<String> ids = new ArrayList<>(batch.size());
+        for (Product p : batch) {
+            ids.add(p.getId());
+        }
+
+        long held = lockStripes(ids);
+        try {
+            List<PendingEvent> events = new ArrayList<>(batch.size());
+            Map<String, Product> previousById = new HashMap<>();
+            InventorySnapshot before = state.get();
+            for (Product p : batch) {
+                Product previous = previousById.containsKey(p.getId())
+                        ? previousById.get(p.getId()) : before.getProduct(p.getId());
+                previousById.put(p.getId(), p);
+                nameIndex.put(p.getId(), p.getName());
+                events.add(new PendingEvent(p, InventoryEvent.EventType.ADD,
+                        previous == null ? 0 : previous.getQuantity(), p.getQuantity()));
+            }
+            publishAll(batch);
+            recordEvents(actor.getUsername(), events);
+            for (Product p : batch) {
+                trackLowStock(p);
+            }
+        } finally {
+            unlockStripes(held);
+        }
 
         return true;
     }
 
-    public boolean removeProduct(User actor, String id) {
+    public boolean removeProduct(Actor actor, String id) {
         if (!accessControl.canManageStock(actor)) {
-            return false;
+            return denied();
         }
 
-        Product removed = products.remove(id);
-        if (removed == null) {
+        if (id == null) {
             return false;
         }
 
-        recordEvent(
-                id,
-                removed.getName(),
-                actor.getUsername(),
-                InventoryEvent.EventType.REMOVE,
-                removed.getQuantity(),
-                0
-        );
+        ReentrantLock lock = stripeFor(id);
+        lock.lock();
+        try {
+            Product removed = current(id);
+            if (removed == null) {
+                return false;
+            }
+            publishRemoval(id);
+            nameIndex.remove(id);
+
+            recordEvent(
+                    removed,
+                    actor.getUsername(),
+                    InventoryEvent.EventType.REMOVE,
+                    removed.getQuantity(),
+                    0
+            );
+        } finally {
+            unlock(lock);
+        }
 
         return true;
     }
 
-    public boolean updateProduct(User actor, String id, int qty, double price) {
+    public boolean updateProduct(Actor actor, String id, int qty, double price) {
         if (!accessControl.canManageStock(actor)) {
-            return false;
+            return denied();
         }
 
-        Product p = products.get(id);
-        if (p == null) {
+        if (id == null) {
             return false;
         }
 
-        int oldQty = p.getQuantity();
-        p.setQuantity(qty);
-        p.setPrice(price);
+        ReentrantLock lock = stripeFor(id);
+        lock.lock();
+        try {
+            Product old = current(id);
+            if (old == null) {
+                return false;
+            }
+            if (old.getPriceMinor() != Money.toMinor(price) && !accessControl.canEditPrices(actor)) {
+                return denied();
+            }
 
-        recordEvent(
-                id,
-                p.getName(),
-                actor.getUsername(),
-                InventoryEvent.EventType.SET,
-                oldQty,
-                qty
-        );
+            int oldQty = old.getQuantity();
+            Product p = old.withQuantity(qty).withPrice(price);
+            publish(p);
+
+            recordEvent(
+                    p,
+                    actor.getUsername(),
+                    InventoryEvent.EventType.SET,
+                    oldQty,
+                    qty
+            );
+        } finally {
+            unlock(lock);
+        }
 
         return true;
     }
@@ -108,30 +356,101 @@ public final class InventoryService {
     // ---------------- GETTERS ----------------
 
     public Product getProduct(String id) {
-        return products.get(id);
+        return state.get().getProduct(id);
     }
 
+    /**
+     * @return a copy of the current catalogue; {@link #snapshot()} gives the
+     *         same consistent view without copying
+     */
     public List<Product> getAllProducts() {
-        return new ArrayList<>(products.values());
+        return state.get().getProducts();
+    }
+
+    /**
+     * The catalogue as of now, with its stock totals. O(1): nothing is
+     * copied and writers are never blocked; later changes do not affect it.
+     */
+    public InventorySnapshot snapshot() {
+        return state.get();
+    }
+
+    /**
+     * Visits every product of the current {@link #snapshot()}.
+     */
+    public void forEachProduct(Consumer<Product> action) {
+        state.get().forEach(action);
     }
 
     public void clearInventory() {
-        products.clear();
-        history.clear();
+        lockAll();
+        try {
+            state.set(InventorySnapshot.EMPTY);
+            nameIndex.clear();
+            lowStock.clear();
+            synchronized (history) {
+                history.clear();
+                historyIndex.clear();
+                demand.clear();
+                indexed = 0;
+                indexReady = true;
+            }
+        } finally {
+            unlockAll();
+        }
+    }
+
+    // ---------------- VALUATION ----------------
+
+    /**
+     * Total stock value (quantity x unit price over all products) in cents.
+     * Carried in every snapshot and updated with each change, so this is O(1).
+     */
+    public long getStockValueMinor() {
+        return state.get().getStockValueMinor();
+    }
+
+    public BigDecimal getStockValue() {
+        return Money.toBigDecimal(getStockValueMinor());
+    }
+
+    /**
+     * Total number of units in stock over all products.
+     */
+    public long getTotalUnits() {
+        return state.get().getTotalUnits();
     }
 
     // ---------------- SEARCH ----------------
 
     public List<Product> searchByName(String name) {
-        if (name == null) {
+        return searchByName(name, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Case-insensitive partial match on product names, answered from a
+     * trigram index kept up to date by add/remove. Best matches come first:
+     * exact name, then prefix, then word start, then any other substring.
+     */
+    public List<Product> searchByName(String name, int limit) {
+        long start = System.nanoTime();
+        try {
+            return doSearchByName(name, limit);
+        } finally {
+            searchTimer.recordSince(start);
+        }
+    }
+
+    private List<Product> doSearchByName(String name, int limit) {
+        if (name == null || limit <= 0) {
             return Collections.emptyList();
         }
 
-        String lower = name.toLowerCase();
+        InventorySnapshot snapshot = state.get();
         List<Product> result = new ArrayList<>();
-
-        for (Product p : products.values()) {
-            if (p.getName().toLowerCase().contains(lower)) {
+        for (String id : nameIndex.search(name, limit)) {
+            Product p = snapshot.getProduct(id);
+            if (p != null) {
                 result.add(p);
             }
         }
@@ -144,147 +463,865 @@ public final class InventoryService {
      * USERS are allowed to adjust stock (only +1 or -1 in UI).
      * ADMIN/MANAGER also allowed.
      */
-    public boolean adjustQuantity(User actor, String id, int delta) {
-        Product p = products.get(id);
-        if (p == null) {
+    public boolean adjustQuantity(Actor actor, String id, int delta) {
+        long start = System.nanoTime();
+        try {
+            return doAdjustQuantity(actor, id, delta);
+        } finally {
+            adjustTimer.recordSince(start);
+        }
+    }
+
+    private boolean doAdjustQuantity(Actor actor, String id, int delta) {
+        if (id == null) {
             return false;
         }
 
-        boolean hasPermission =
-                accessControl.canManageStock(actor) ||
-                Role.USER.equals(actor.getRole()); // allow basic user
+        ReentrantLock lock = stripeFor(id);
+        lock.lock();
+        try {
+            Product old = current(id);
+            if (old == null) {
+                return false;
+            }
+
+            if (!accessControl.canAdjustStock(actor)) {
+                return denied();
+            }
 
-        if (!hasPermission) {
+            int oldQty = old.getQuantity();
+            int newQty = oldQty + delta;
+
+            if (newQty < 0) {
+                return false;
+            }
+
+            Product p = old.withQuantity(newQty);
+            publish(p);
+
+            recordEvent(
+                    p,
+                    actor.getUsername(),
+                    InventoryEvent.EventType.ADJUST,
+                    oldQty,
+                    newQty
+            );
+        } finally {
+            unlock(lock);
+        }
+
+        return true;
+    }
+
+    /**
+     * Applies a whole delivery (or stock count) as one all-or-nothing batch.
+     * Permission is checked once, every line is validated before anything
+     * changes, and the resulting events are appended to history as one block.
+     *
+     * @param deltas product id to quantity change
+     * @return false (and nothing applied) if any id is unknown or any
+     *         resulting quantity would be negative
+     */
+    public boolean adjustQuantities(Actor actor, Map<String, Integer> deltas) {
+        long start = System.nanoTime();
+        try {
+            return doAdjustQuantities(actor, deltas);
+        } finally {
+            batchTimer.recordSince(start);
+        }
+    }
+
+    private boolean doAdjustQuantities(Actor actor, Map<String, Integer> deltas) {
+        if (deltas == null || deltas.isEmpty()) {
             return false;
         }
+        if (!accessControl.canAdjustStock(actor)) {
+            return denied();
+        }
+        for (Map.Entry<String, Integer> line : deltas.entrySet()) {
+            if (line.getKey() == null || line.getValue() == null) {
+                return false;
+            }
+        }
+
+        long held = lockStripes(deltas.keySet());
+        try {
+            InventorySnapshot before = state.get();
+            Product[] targets = new Product[deltas.size()];
+            int[] newQuantities = new int[deltas.size()];
 
-        int oldQty = p.getQuantity();
-        int newQty = oldQty + delta;
+            int i = 0;
+            for (Map.Entry<String, Integer> line : deltas.entrySet()) {
+                Product p = before.getProduct(line.getKey());
+                if (p == null) {
+                    return false;
+                }
+                int newQty = p.getQuantity() + line.getValue();
+                if (newQty < 0) {
+                    return false;
+                }
+                targets[i] = p;
+                newQuantities[i] = newQty;
+                i++;
+            }
 
-        if (newQty < 0) {
+            List<PendingEvent> events = new ArrayList<>(targets.length);
+            for (int j = 0; j < targets.length; j++) {
+                Product old = targets[j];
+                Product p = old.withQuantity(newQuantities[j]);
+                targets[j] = p;
+                events.add(new PendingEvent(p, InventoryEvent.EventType.ADJUST,
+                        old.getQuantity(), newQuantities[j]));
+            }
+            publishAll(Arrays.asList(targets));
+            recordEvents(actor.getUsername(), events);
+            for (Product p : targets) {
+                trackLowStock(p);
+            }
+        } finally {
+            unlockStripes(held);
+        }
+
+        return true;
+    }
+
+    /**
+     * Sets the quantity only if it still equals {@code expected}, e.g. when a
+     * stock count was taken against a value that may since have changed.
+     */
+    public boolean compareAndSetQuantity(Actor actor, String id, int expected, int newQty) {
+        if (id == null || newQty < 0) {
             return false;
         }
+        if (!accessControl.canAdjustStock(actor)) {
+            return denied();
+        }
 
-        p.setQuantity(newQty);
+        ReentrantLock lock = stripeFor(id);
+        lock.lock();
+        try {
+            Product old = current(id);
+            if (old == null || old.getQuantity() != expected) {
+                return false;
+            }
 
-        recordEvent(
-                id,
-                p.getName(),
-                actor.getUsername(),
-                InventoryEvent.EventType.ADJUST,
-                oldQty,
-                newQty
-        );
+            Product p = old.withQuantity(newQty);
+            publish(p);
+
+            recordEvent(
+                    p,
+                    actor.getUsername(),
+                    InventoryEvent.EventType.ADJUST,
+                    expected,
+                    newQty
+            );
+        } finally {
+            unlock(lock);
+        }
 
         return true;
     }
 
     // Increase by system (used by UI)
     public boolean increaseStock(String id) {
-        Product p = products.get(id);
-        if (p == null) {
+        if (id == null) {
             return false;
         }
 
-        int oldQty = p.getQuantity();
-        int newQty = oldQty + 1;
-        p.setQuantity(newQty);
+        ReentrantLock lock = stripeFor(id);
+        lock.lock();
+        try {
+            Product old = current(id);
+            if (old == null) {
+                return false;
+            }
+
+            int oldQty = old.getQuantity();
+            int newQty = oldQty + 1;
+            Product p = old.withQuantity(newQty);
+            publish(p);
 
-        recordEvent(
-                id,
-                p.getName(),
-                SYSTEM_USER,
-                InventoryEvent.EventType.INCREASE,
-                oldQty,
-                newQty
-        );
+            recordEvent(
+                    p,
+                    SYSTEM_USER,
+                    InventoryEvent.EventType.INCREASE,
+                    oldQty,
+                    newQty
+            );
+        } finally {
+            unlock(lock);
+        }
         return true;
     }
 
     public boolean decreaseStock(String id) {
-        Product p = products.get(id);
-        if (p == null || p.getQuantity() <= 0) {
+        if (id == null) {
             return false;
         }
 
-        int oldQty = p.getQuantity();
-        int newQty = oldQty - 1;
-        p.setQuantity(newQty);
+        ReentrantLock lock = stripeFor(id);
+        lock.lock();
+        try {
+            Product old = current(id);
+            if (old == null || old.getQuantity() <= 0) {
+                return false;
+            }
 
-        recordEvent(
-                id,
-                p.getName(),
-                SYSTEM_USER,
-                InventoryEvent.EventType.DECREASE,
-                oldQty,
-                newQty
-        );
+            int oldQty = old.getQuantity();
+            int newQty = oldQty - 1;
+            Product p = old.withQuantity(newQty);
+            publish(p);
+
+            recordEvent(
+                    p,
+                    SYSTEM_USER,
+                    InventoryEvent.EventType.DECREASE,
+                    oldQty,
+                    newQty
+            );
+        } finally {
+            unlock(lock);
+        }
         return true;
     }
 
     // ---------------- RESTOCK / LOW STOCK ----------------
 
+    /**
+     * Products at or below their restock threshold, furthest below first.
+     * Served from a set maintained on every stock or threshold change, so the
+     * cost depends on the number of low items, not the catalogue size.
+     */
     public List<Product> getLowStockProducts() {
-        List<Product> list = new ArrayList<>();
+        long start = System.nanoTime();
+        try {
+            return doGetLowStockProducts();
+        } finally {
+            lowStockTimer.recordSince(start);
+        }
+    }
+
+    private List<Product> doGetLowStockProducts() {
+        InventorySnapshot snapshot = state.get();
+        List<Product> list = new ArrayList<>(lowStock.size());
 
-        for (Product p : products.values()) {
-            if (p.getQuantity() <= getRestockThreshold(p.getId())) {
+        for (String id : lowStock) {
+            Product p = snapshot.getProduct(id);
+            if (p != null) {
                 list.add(p);
             }
         }
+        list.sort(Comparator.comparingInt(
+                (Product p) -> p.getQuantity() - getRestockThreshold(p.getId())));
         return list;
     }
 
     public int getRestockThreshold(String id) {
-        return restockThresholds.getOrDefault(id, DEFAULT_THRESHOLD);
+        return id == null ? DEFAULT_THRESHOLD : restockThresholds.getOrDefault(id, DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * Recent units sold per day: an exponentially weighted rate kept up to
+     * date from DECREASE and negative ADJUST events. 0 if nothing has sold.
+     */
+    public double getDailyDemand(String id) {
+        return id == null ? 0 : demand().dailyRate(id, System.currentTimeMillis());
+    }
+
+    /**
+     * Stock level at which to reorder: enough to cover the lead time at the
+     * recent sales rate, and never below the configured restock threshold.
+     */
+    public int getReorderPoint(String id) {
+        return reorderPoint(id, getDailyDemand(id));
     }
 
+    /**
+     * Units that bring the product up to {@value #TARGET_COVER_DAYS} days of
+     * cover after the lead time, at the recent sales rate. Without sales this
+     * is the old rule: top up to twice the restock threshold.
+     */
     public int getSuggestedRestockQuantity(Product p) {
-        int threshold = getRestockThreshold(p.getId());
-        return Math.max(0, (threshold * 2) - p.getQuantity());
+        return suggestedQuantity(p, getDailyDemand(p.getId()));
     }
 
-    public void setRestockThreshold(User actor, String id, int threshold) {
+    /**
+     * Every product at or below its reorder point, fewest days of cover
+     * first. One pass over a catalogue snapshot; no history is read.
+     */
+    public List<RestockSuggestion> getRestockSuggestions() {
+        DemandTracker rates = demand();
+        long now = System.currentTimeMillis();
+        List<RestockSuggestion> suggestions = new ArrayList<>();
+        state.get().forEach(p -> {
+            double rate = rates.dailyRate(p.getId(), now);
+            int reorderPoint = reorderPoint(p.getId(), rate);
+            int quantity = suggestedQuantity(p, rate);
+            if (p.getQuantity() <= reorderPoint && quantity > 0) {
+                suggestions.add(new RestockSuggestion(p, rate, reorderPoint, quantity));
+            }
+        });
+        suggestions.sort(Comparator.comparingDouble(RestockSuggestion::getDaysOfCover)
+                .thenComparingInt(s -> s.getProduct().getQuantity() - s.getReorderPoint()));
+        return suggestions;
+    }
+
+    private int reorderPoint(String id, double dailyRate) {
+        return (int) Math.max(getRestockThreshold(id), Math.ceil(dailyRate * LEAD_TIME_DAYS));
+    }
+
+    private int suggestedQuantity(Product p, double dailyRate) {
+        long target = Math.max(2L * getRestockThreshold(p.getId()),
+                (long) Math.ceil(dailyRate * (LEAD_TIME_DAYS + TARGET_COVER_DAYS)));
+        return (int) Math.min(Integer.MAX_VALUE, Math.max(0, target - p.getQuantity()));
+    }
+
+    public void setRestockThreshold(Actor actor, String id, int threshold) {
+        if (id == null) {
+            return;
+        }
         if (!accessControl.canManageStock(actor)) {
+            denied();
             return;
         }
-        restockThresholds.put(id, Math.max(0, threshold));
+
+        ReentrantLock lock = stripeFor(id);
+        lock.lock();
+        try {
+            restockThresholds.put(id, Math.max(0, threshold));
+            Product p = current(id);
+            if (p != null) {
+                trackLowStock(p);
+            }
+        } finally {
+            unlock(lock);
+        }
+    }
+
+    public void addThresholdListener(StockThresholdListener listener) {
+        thresholdListeners.add(Objects.requireNonNull(listener));
+    }
+
+    public void removeThresholdListener(StockThresholdListener listener) {
+        thresholdListeners.remove(listener);
+    }
+
+    private boolean isLow(Product p) {
+        return p.getQuantity() <= getRestockThreshold(p.getId());
+    }
+
+    // Callers hold the product's stripe lock; listeners hear of a crossing
+    // only after it is released, see unlock and unlockStripes.
+    private void trackLowStock(Product p) {
+        boolean low = isLow(p);
+        boolean crossed = low ? lowStock.add(p.getId()) : lowStock.remove(p.getId());
+        if (!crossed || thresholdListeners.isEmpty()) {
+            return;
+        }
+
+        int threshold = getRestockThreshold(p.getId());
+        PENDING_CROSSINGS.get().add(() -> notifyThreshold(p, threshold, low));
+    }
+
+    private void notifyThreshold(Product p, int threshold, boolean low) {
+        for (StockThresholdListener listener : thresholdListeners) {
+            try {
+                listener.thresholdCrossed(p, threshold, low);
+            } catch (RuntimeException e) {
+                // a faulty listener must not undo a stock change that already happened
+                ActivityLogService.getInstance().log("Threshold listener failed for " + p.getId() + ": " + e);
+            }
+        }
+    }
+
+    // ---------------- EVENT SUBSCRIPTION ----------------
+
+    /**
+     * Subscribes to every inventory event. Delivery is asynchronous on a
+     * dedicated thread, so listeners never slow down the mutating caller;
+     * Swing listeners must hop to the EDT themselves.
+     */
+    public void addInventoryListener(InventoryListener listener) {
+        dispatcher.addListener(listener);
+    }
+
+    public void removeInventoryListener(InventoryListener listener) {
+        dispatcher.removeListener(listener);
     }
 
     // ---------------- HISTORY ----------------
 
+    /**
+     * Read-only view of the history as it stood when called. Events are
+     * fetched from the store on access, so a journal-backed history is never
+     * copied onto the heap as a whole.
+     */
     public List<InventoryEvent> getHistory() {
-        return new ArrayList<>(history);
+        return new HistoryView(history, history.size());
+    }
+
+    /**
+     * Events for one product, oldest first, restricted to
+     * {@code from <= timestamp < to} (either bound may be null).
+     * Cost is proportional to the page returned, not to the whole history.
+     */
+    public List<InventoryEvent> historyFor(String productId,
+                                           LocalDateTime from,
+                                           LocalDateTime to,
+                                           int limit,
+                                           int offset) {
+        checkPage(limit, offset);
+        synchronized (history) {
+            ensureIndexed();
+            IntList postings = historyIndex.forProduct(productId);
+            if (postings == null) {
+                return Collections.emptyList();
+            }
+            return materialise(historyIndex.select(postings, toMillis(from, Long.MIN_VALUE),
+                    toMillis(to, Long.MAX_VALUE), limit, offset));
+        }
+    }
+
+    /**
+     * Stock of one product as it stood at {@code at}, counting events stamped
+     * at or before it; 0 if the product did not exist then. Every event
+     * records the resulting quantity, so this is one binary search over the
+     * product's history rather than a replay.
+     */
+    public int quantityAsOf(String productId, Instant at) {
+        long millis = toMillis(Objects.requireNonNull(at, "at"));
+        synchronized (history) {
+            ensureIndexed();
+            IntList postings = historyIndex.forProduct(productId);
+            int position = postings == null ? -1 : historyIndex.latestAtOrBefore(postings, millis);
+            if (position < 0) {
+                return 0;
+            }
+            InventoryEvent e = history.get(position);
+            return e.getType() == InventoryEvent.EventType.REMOVE ? 0 : e.getNewQuantity();
+        }
+    }
+
+    /**
+     * The catalogue as it stood at {@code at}: for each product, its last
+     * event at or before then (name, quantity and price as recorded). Costs
+     * one binary search per product ever seen, independent of history length.
+     */
+    public InventorySnapshot snapshotAsOf(Instant at) {
+        long millis = toMillis(Objects.requireNonNull(at, "at"));
+        List<InventoryEvent> latest = new ArrayList<>();
+        synchronized (history) {
+            ensureIndexed();
+            historyIndex.forEachProduct((id, postings) -> {
+                int position = historyIndex.latestAtOrBefore(postings, millis);
+                if (position >= 0) {
+                    latest.add(history.get(position));
+                }
+            });
+        }
+
+        InventorySnapshot snapshot = InventorySnapshot.EMPTY;
+        for (InventoryEvent e : latest) {
+            if (e.getType() != InventoryEvent.EventType.REMOVE) {
+                snapshot = snapshot.put(Product.ofMinorUnits(
+                        e.getProductId(), e.getProductName(), e.getNewQuantity(), e.getPriceMinor()));
+            }
+        }
+        return snapshot;
+    }
+
+    public List<InventoryEvent> historyByUser(String username, int limit, int offset) {
+        checkPage(limit, offset);
+        synchronized (history) {
+            ensureIndexed();
+            IntList postings = historyIndex.forUser(username);
+            if (postings == null) {
+                return Collections.emptyList();
+            }
+            return materialise(historyIndex.select(postings, Long.MIN_VALUE, Long.MAX_VALUE, limit, offset));
+        }
+    }
+
+    public List<InventoryEvent> historyByType(InventoryEvent.EventType type, int limit, int offset) {
+        checkPage(limit, offset);
+        synchronized (history) {
+            ensureIndexed();
+            IntList postings = historyIndex.forType(type);
+            if (postings == null) {
+                return Collections.emptyList();
+            }
+            return materialise(historyIndex.select(postings, Long.MIN_VALUE, Long.MAX_VALUE, limit, offset));
+        }
+    }
+
+    /**
+     * All events in {@code from <= timestamp < to}, found by binary search
+     * over the time-ordered history.
+     */
+    public List<InventoryEvent> historyBetween(LocalDateTime from, LocalDateTime to, int limit, int offset) {
+        checkPage(limit, offset);
+        synchronized (history) {
+            ensureIndexed();
+            return materialise(historyIndex.select(null, toMillis(from, Long.MIN_VALUE),
+                    toMillis(to, Long.MAX_VALUE), limit, offset));
+        }
+    }
+
+    /**
+     * One page of events matching every constraint in the filter, oldest
+     * first. The most selective index drives the lookup: product and user
+     * postings are intersected when both are given, and date bounds are
+     * binary searches, so nothing outside the result is materialised.
+     */
+    public List<InventoryEvent> queryHistory(HistoryFilter filter, int limit, int offset) {
+        long start = System.nanoTime();
+        try {
+            return doQueryHistory(filter, limit, offset);
+        } finally {
+            historyTimer.recordSince(start);
+        }
+    }
+
+    private List<InventoryEvent> doQueryHistory(HistoryFilter filter, int limit, int offset) {
+        checkPage(limit, offset);
+        synchronized (history) {
+            ensureIndexed();
+            IntList[] postings = postingsFor(filter);
+            if (postings == null) {
+                return Collections.emptyList();
+            }
+            return materialise(historyIndex.select(postings[0], postings[1],
+                    toMillis(filter.getFrom(), Long.MIN_VALUE), toMillis(filter.getTo(), Long.MAX_VALUE),
+                    limit, offset));
+        }
+    }
+
+    public int countHistory(HistoryFilter filter) {
+        synchronized (history) {
+            ensureIndexed();
+            IntList[] postings = postingsFor(filter);
+            if (postings == null) {
+                return 0;
+            }
+            return historyIndex.count(postings[0], postings[1],
+                    toMillis(filter.getFrom(), Long.MIN_VALUE), toMillis(filter.getTo(), Long.MAX_VALUE));
+        }
+    }
+
+    // {product postings, user postings}, null entries meaning "any"; null if nothing can match.
+    private IntList[] postingsFor(HistoryFilter filter) {
+        IntList byProduct = null;
+        IntList byUser = null;
+        if (filter.getProductId() != null) {
+            byProduct = historyIndex.forProduct(filter.getProductId());
+            if (byProduct == null) {
+                return null;
+            }
+        }
+        if (filter.getUsername() != null) {
+            byUser = historyIndex.forUser(filter.getUsername());
+            if (byUser == null) {
+                return null;
+            }
+        }
+        return new IntList[]{byProduct, byUser};
+    }
+
+    // Called with the history lock held.
+    private List<InventoryEvent> materialise(int[] positions) {
+        List<InventoryEvent> page = new ArrayList<>(positions.length);
+        for (int position : positions) {
+            page.add(history.get(position));
+        }
+        return page;
+    }
+
+    // Instants beyond the range of epoch millis clamp to "before/after everything".
+    private static long toMillis(Instant at) {
+        try {
+            return at.toEpochMilli();
+        } catch (ArithmeticException e) {
+            return at.isBefore(Instant.EPOCH) ? Long.MIN_VALUE : Long.MAX_VALUE;
+        }
     }
 
-    private void recordEvent(String id,
-                             String name,
+    private static void checkPage(int limit, int offset) {
+        if (limit < 0 || offset < 0) {
+            throw new IllegalArgumentException("limit and offset must not be negative");
+        }
+    }
+
+    // Local times from the UI are read in the system zone here, at the edge;
+    // history itself is kept and compared as instants.
+    private static long toMillis(LocalDateTime t, long unbounded) {
+        return toMillis(HistoryFilter.toInstant(t), unbounded);
+    }
+
+    private static long toMillis(Instant t, long unbounded) {
+        return t == null ? unbounded : toMillis(t);
+    }
+
+    // Called with the history lock held. Never goes backwards, even if the
+    // wall clock is stepped back, so append order stays time order.
+    private Instant stamp() {
+        Instant now = Instant.now();
+        if (now.isAfter(lastStamp)) {
+            lastStamp = now;
+        }
+        return lastStamp;
+    }
+
+    // Callers hold the product's stripe lock, so events for one SKU stay in order.
+    // The event is created under the history lock so history stays in time order.
+    // Every quantity change passes through here, which keeps the low-stock set current.
+    private void recordEvent(Product product,
                              String username,
                              InventoryEvent.EventType type,
                              int oldQty,
                              int newQty) {
 
-        history.add(new InventoryEvent(
-                id,
-                name,
+        Runnable checkpoint;
+        synchronized (history) {
+            InventoryEvent event = newEvent(product, username, type, oldQty, newQty, stamp());
+            int position = history.size();
+            history.append(event);
+            indexAppended(position, event);
+            checkpoint = checkpointDue(1);
+            dispatcher.publish(event);
+        }
+        if (checkpoint != null) {
+            checkpoint.run();
+        }
+
+        if (type == InventoryEvent.EventType.REMOVE) {
+            lowStock.remove(product.getId());
+        } else {
+            trackLowStock(product);
+        }
+    }
+
+    // Batches are stamped here, under the history lock like single events, so
+    // a concurrent write can never land earlier in history with a later time.
+    private void recordEvents(String username, List<PendingEvent> pending) {
+        Runnable checkpoint;
+        synchronized (history) {
+            Instant now = stamp();
+            List<InventoryEvent> events = new ArrayList<>(pending.size());
+            for (PendingEvent p : pending) {
+                events.add(newEvent(p.product, username, p.type, p.oldQty, p.newQty, now));
+            }
+            checkpoint = appendStamped(events);
+        }
+        if (checkpoint != null) {
+            checkpoint.run();
+        }
+    }
+
+    // Called with the history lock held; returns checkpointDue's task.
+    private Runnable appendStamped(List<InventoryEvent> events) {
+        int position = history.size();
+        history.appendAll(events);
+        for (InventoryEvent e : events) {
+            indexAppended(position++, e);
+            dispatcher.publish(e);
+        }
+        return checkpointDue(events.size());
+    }
+
+    // Called with the history lock held. While older history is still being
+    // indexed the new event is left for the indexer, which keeps demand in order.
+    private void indexAppended(int position, InventoryEvent event) {
+        if (indexed == position) {
+            historyIndex.add(position, event);
+            demand.record(event);
+            indexed = position + 1;
+        }
+    }
+
+    // One change of a batch, waiting for the timestamp recordEvents gives it.
+    private static final class PendingEvent {
+        final Product product;
+        final InventoryEvent.EventType type;
+        final int oldQty;
+        final int newQty;
+
+        PendingEvent(Product product, InventoryEvent.EventType type, int oldQty, int newQty) {
+            this.product = product;
+            this.type = type;
+            this.oldQty = oldQty;
+            this.newQty = newQty;
+        }
+    }
+
+    private static InventoryEvent newEvent(Product product,
+                                           String username,
+                                           InventoryEvent.EventType type,
+                                           int oldQty,
+                                           int newQty,
+                                           Instant timestamp) {
+        return InventoryEvent.ofMinorUnits(
+                product.getId(),
+                product.getName(),
                 username,
                 type,
                 oldQty,
-                newQty
-        ));
+                newQty,
+                product.getPriceMinor(),
+                timestamp
+        );
+    }
+
+    // Called with the history lock held, once every CHECKPOINT_INTERVAL events.
+    // Called with the history lock held. When the appends just made cross a
+    // checkpoint boundary, captures the catalogue and the event count it covers;
+    // the returned task copies, writes and forces them, and runs after the
+    // lock is released so writers are not held up. Null if none is due.
+    private Runnable checkpointDue(int appended) {
+        if (journal == null) {
+            return null;
+        }
+        int size = history.size();
+        if (size / CHECKPOINT_INTERVAL == (size - appended) / CHECKPOINT_INTERVAL) {
+            return null;
+        }
+        InventorySnapshot catalogue = state.get();
+        return () -> journal.checkpoint(size, catalogue.getProducts());
+    }
+
+    private static final class HistoryView extends AbstractList<InventoryEvent> implements RandomAccess {
+
+        private final HistoryStore store;
+        private final int size;
+
+        HistoryView(HistoryStore store, int size) {
+            this.store = store;
+            this.size = size;
+        }
+
+        @Override
+        public InventoryEvent get(int index) {
+            Objects.checkIndex(index, size);
+            return store.get(index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    // ---------------- SNAPSHOT PUBLISHING ----------------
+
+    private Product current(String id) {
+        return state.get().getProduct(id);
+    }
+
+    // Callers hold the product's stripe lock, so no one else changes this id
+    // meanwhile; the CAS loop only races with writers of other products.
+    private void publish(Product product) {
+        state.updateAndGet(s -> s.put(product));
+    }
+
+    private void publishRemoval(String id) {
+        state.updateAndGet(s -> s.remove(id));
+    }
+
+    // All products become visible together. Callers hold all their stripes.
+    private void publishAll(Collection<Product> batch) {
+        state.updateAndGet(s -> {
+            for (Product p : batch) {
+                s = s.put(p);
+            }
+            return s;
+        });
+    }
+
+    // ---------------- METRICS ----------------
+
+    // counts an authorization failure; returns false for "return denied();"
+    private boolean denied() {
+        deniedCount.increment();
+        return false;
+    }
+
+    // ---------------- LOCKING ----------------
+
+    private ReentrantLock stripeFor(String id) {
+        return stripes[stripeIndex(id)];
+    }
+
+    private static int stripeIndex(String id) {
+        int h = id.hashCode();
+        return (h ^ (h >>> 16)) & (LOCK_STRIPES - 1);
+    }
+
+    // Locks the stripes covering all ids in ascending order; returns them as a bitmask.
+    private long lockStripes(Collection<String> ids) {
+        long mask = 0L;
+        for (String id : ids) {
+            mask |= 1L << stripeIndex(id);
+        }
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            if ((mask & (1L << i)) != 0) {
+                stripes[i].lock();
+            }
+        }
+        return mask;
+    }
+
+    private void unlockStripes(long mask) {
+        for (int i = LOCK_STRIPES - 1; i >= 0; i--) {
+            if ((mask & (1L << i)) != 0) {
+                stripes[i].unlock();
+            }
+        }
+        announceCrossings();
+    }
+
+    private void unlock(ReentrantLock lock) {
+        lock.unlock();
+        if (lock.getHoldCount() == 0) {
+            announceCrossings();
+        }
+    }
+
+    // Runs the threshold notifications this thread queued while it held a stripe.
+    private static void announceCrossings() {
+        List<Runnable> pending = PENDING_CROSSINGS.get();
+        if (pending.isEmpty()) {
+            return;
+        }
+        // a listener may change stock itself and queue more
+        List<Runnable> crossings = new ArrayList<>(pending);
+        pending.clear();
+        for (Runnable crossing : crossings) {
+            crossing.run();
+        }
+    }
+
+    // Always taken in index order so bulk operations cannot deadlock each other.
+    private void lockAll() {
+        for (ReentrantLock lock : stripes) {
+            lock.lock();
+        }
+    }
+
+    private void unlockAll() {
+        for (int i = LOCK_STRIPES - 1; i >= 0; i--) {
+            stripes[i].unlock();
+        }
     }
 
     // ---------------- DEFAULT STOCK ----------------
 
     public void seedDefaultStockIfEmpty() {
-        if (!products.isEmpty()) {
+        if (!state.get().isEmpty()) {
             return;
         }
 
-        User system = new User(SYSTEM_USER, "1234", SYSTEM_USER, "system@local", Role.ADMIN);
-
-        addProduct(system, new Product("A01", "Apples", 20, 0.50));
-        addProduct(system, new Product("B01", "Bananas", 30, 0.40));
-        addProduct(system, new Product("O01", "Oranges", 25, 0.60));
+        // internal path: there is no session to authorize, and none is needed
+        addProductAs(SYSTEM_USER, new Product("A01", "Apples", 20, 0.50));
+        addProductAs(SYSTEM_USER, new Product("B01", "Bananas", 30, 0.40));
+        addProductAs(SYSTEM_USER, new Product("O01", "Oranges", 25, 0.60));
     }
 }
@@ -0,0 +1,108 @@
+package com.shoptracker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Immutable point-in-time view of the product catalogue, with the stock
+ * totals that belong to it.
+ * <p>
+ * {@link InventoryService#snapshot()} hands out the current root in O(1):
+ * products are immutable and held in a {@link PersistentHashMap}, and every
+ * change publishes a new snapshot instead of modifying this one. A reader can
+ * therefore walk, export or total a snapshot for as long as it likes without
+ * copying, without locking, and without seeing half of a concurrent change.
+ */
+public final class InventorySnapshot {
+
+    static final InventorySnapshot EMPTY = new InventorySnapshot(PersistentHashMap.empty(), 0, 0);
+
+    private final PersistentHashMap<String, Product> products;
+    private final long totalUnits;
+    private final long stockValueMinor;
+
+    private InventorySnapshot(PersistentHashMap<String, Product> products, long totalUnits, long stockValueMinor) {
+        this.products = products;
+        this.totalUnits = totalUnits;
+        this.stockValueMinor = stockValueMinor;
+    }
+
+    public Product getProduct(String id) {
+        return id == null ? null : products.get(id);
+    }
+
+    public boolean contains(String id) {
+        return getProduct(id) != null;
+    }
+
+    public int size() {
+        return products.size();
+    }
+
+    public boolean isEmpty() {
+        return products.isEmpty();
+    }
+
+    /**
+     * Total number of units in stock.
+     */
+    public long getTotalUnits() {
+        return totalUnits;
+    }
+
+    /**
+     * Total stock value (quantity x unit price) in cents.
+     */
+    public long getStockValueMinor() {
+        return stockValueMinor;
+    }
+
+    /**
+     * Visits every product, in no particular order.
+     */
+    public void forEach(Consumer<Product> action) {
+        products.forEach((id, p) -> action.accept(p));
+    }
+
+    /**
+     * @return a new list of every product (O(n); prefer {@link #forEach})
+     */
+    public List<Product> getProducts() {
+        List<Product> out = new ArrayList<>(products.size());
+        forEach(out::add);
+        return out;
+    }
+
+    // ---------------- Updates (InventoryService only) ----------------
+
+    /**
+     * @return this snapshot with {@code product} stored under its id
+     */
+    InventorySnapshot put(Product product) {
+        Product previous = products.get(product.getId());
+        return previous == product ? this : adjusted(products.put(product.getId(), product), previous, product);
+    }
+
+    /**
+     * @return this snapshot without the product {@code id}
+     */
+    InventorySnapshot remove(String id) {
+        Product previous = products.get(id);
+        return previous == null ? this : adjusted(products.remove(id), previous, null);
+    }
+
+    private InventorySnapshot adjusted(PersistentHashMap<String, Product> map, Product previous, Product current) {
+        return new InventorySnapshot(map,
+                totalUnits + units(current) - units(previous),
+                stockValueMinor + value(current) - value(previous));
+    }
+
+    private static long units(Product p) {
+        return p == null ? 0 : p.getQuantity();
+    }
+
+    private static long value(Product p) {
+        return p == null ? 0 : (long) p.getQuantity() * p.getPriceMinor();
+    }
+}
@@ -0,0 +1,156 @@
+package com.shoptracker;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram in the style of HdrHistogram: values in
+ * nanoseconds fall into log-linear buckets (every power of two split into
+ * 32 sub-buckets, so any reported percentile is within ~3% of the truth).
+ * Each bucket is a {@link LongAdder}, so concurrent recorders do not contend
+ * on a shared cache line. Values above ~18 minutes are clamped.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BITS = 5;
+    private static final int SUB_COUNT = 1 << SUB_BITS;          // 32 sub-buckets per power of two
+    private static final int LINEAR = SUB_COUNT << 1;            // values below 64 get their own bucket
+    private static final int MAX_MSB = 40;                       // 2^40 ns ≈ 18 minutes
+    private static final long MAX_VALUE = (1L << (MAX_MSB + 1)) - 1;
+    private static final int BUCKETS = LINEAR + (MAX_MSB - SUB_BITS) * SUB_COUNT;
+
+    private final String name;
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    LatencyHistogram(String name) {
+        this.name = name;
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void record(long nanos) {
+        long v = Math.min(Math.max(nanos, 0), MAX_VALUE);
+        buckets[bucketOf(v)].increment();
+        sum.add(v);
+        max.accumulate(v);
+    }
+
+    /**
+     * Records the time since {@code startNanos} (a {@link System#nanoTime()} value).
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets[i].sum();
+            total += counts[i];
+        }
+        return new Snapshot(name, counts, total, sum.sum(), max.get());
+    }
+
+    public void reset() {
+        for (LongAdder b : buckets) {
+            b.reset();
+        }
+        sum.reset();
+        max.reset();
+    }
+
+    // ---------------- Buckets ----------------
+
+    static int bucketOf(long v) {
+        if (v < LINEAR) {
+            return (int) v;
+        }
+        int msb = 63 - Long.numberOfLeadingZeros(v);
+        int shift = msb - SUB_BITS;
+        int sub = (int) (v >>> shift) & (SUB_COUNT - 1);
+        return LINEAR + (msb - SUB_BITS - 1) * SUB_COUNT + sub;
+    }
+
+    // Midpoint of the bucket's value range.
+    static long valueOf(int bucket) {
+        if (bucket < LINEAR) {
+            return bucket;
+        }
+        int k = bucket - LINEAR;
+        int msb = SUB_BITS + 1 + k / SUB_COUNT;
+        int shift = msb - SUB_BITS;
+        long lower = (long) (SUB_COUNT + k % SUB_COUNT) << shift;
+        return lower + ((1L << shift) >> 1);
+    }
+
+    /**
+     * Point-in-time view of a histogram. Concurrent recording while the
+     * snapshot is taken may make the counts slightly inconsistent, never wrong
+     * by more than the in-flight records.
+     */
+    public static final class Snapshot {
+        private final String name;
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+        Snapshot(String name, long[] counts, long count, long sum, long max) {
+            this.name = name;
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        public String getName() { return name; }
+        public long getCount() { return count; }
+        public long getMaxNanos() { return max; }
+
+        public long getMeanNanos() {
+            return count == 0 ? 0 : sum / count;
+        }
+
+        /**
+         * @param quantile in [0, 1], e.g. 0.99
+         * @return the latency at that quantile in nanoseconds (0 if empty)
+         */
+        public long percentileNanos(double quantile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(quantile * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(valueOf(i), max);
+                }
+            }
+            return max;
+        }
+
+        /**
+         * One report line: count, mean, p50, p99, p999 and max in microseconds.
+         */
+        @Override
+        public String toString() {
+            return String.format("%-36s count=%-10d mean=%-10s p50=%-10s p99=%-10s p999=%-10s max=%s",
+                    name, count, micros(getMeanNanos()), micros(percentileNanos(0.50)),
+                    micros(percentileNanos(0.99)), micros(percentileNanos(0.999)), micros(max));
+        }
+
+        static String micros(long nanos) {
+            return String.format("%.1fus", nanos / (double) TimeUnit.MICROSECONDS.toNanos(1));
+        }
+    }
+}
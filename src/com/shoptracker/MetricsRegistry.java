@@ -0,0 +1,147 @@
+package com.shoptracker;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process metrics: named counters and latency histograms.
+ * Singleton used across the application.
+ * <p>
+ * Counters are {@link LongAdder}s and histograms are {@link LatencyHistogram}s
+ * (also built from LongAdders), so recording from many threads is a striped
+ * add with no locking. Services look their instruments up once and keep the
+ * reference; lookups by name are only needed for reporting.
+ * <p>
+ * {@link #report()} renders everything as text; {@link #startFileDump} writes
+ * that report to a file periodically, and the Swing {@code MetricsUI} shows it
+ * live.
+ */
+public final class MetricsRegistry {
+
+    private static final MetricsRegistry INSTANCE = new MetricsRegistry();
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService dumper; // guarded by this
+
+    /**
+     * Standalone registry (mainly for tests); the application uses
+     * {@link #getInstance()}.
+     */
+    public MetricsRegistry() {
+    }
+
+    public static MetricsRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    // ---------------- INSTRUMENTS ----------------
+
+    public LongAdder counter(String name) {
+        return counters.computeIfAbsent(name, k -> new LongAdder());
+    }
+
+    public LatencyHistogram histogram(String name) {
+        return histograms.computeIfAbsent(name, LatencyHistogram::new);
+    }
+
+    /**
+     * @return counter values by name, sorted
+     */
+    public Map<String, Long> counterValues() {
+        Map<String, Long> out = new TreeMap<>();
+        counters.forEach((name, adder) -> out.put(name, adder.sum()));
+        return out;
+    }
+
+    /**
+     * @return a snapshot of every histogram, sorted by name
+     */
+    public List<LatencyHistogram.Snapshot> histogramSnapshots() {
+        List<LatencyHistogram.Snapshot> out = new ArrayList<>();
+        new TreeMap<>(histograms).values().forEach(h -> out.add(h.snapshot()));
+        return out;
+    }
+
+    /**
+     * Zeroes every counter and histogram (instruments stay registered).
+     */
+    public void reset() {
+        counters.values().forEach(LongAdder::reset);
+        histograms.values().forEach(LatencyHistogram::reset);
+    }
+
+    // ---------------- REPORTING ----------------
+
+    public String report() {
+        StringBuilder sb = new StringBuilder(1024);
+        sb.append("# Shop Tracker metrics at ").append(LocalDateTime.now().format(FORMATTER)).append('\n');
+        sb.append("\n## Latency\n");
+        for (LatencyHistogram.Snapshot s : histogramSnapshots()) {
+            sb.append(s).append('\n');
+        }
+        sb.append("\n## Counters\n");
+        counterValues().forEach((name, value) -> sb.append(String.format("%-36s %d%n", name, value)));
+        return sb.toString();
+    }
+
+    /**
+     * Rewrites {@code file} with {@link #report()} every {@code intervalSeconds}
+     * from a daemon thread (write to a temp file, then move, so readers never
+     * see half a report). Does nothing if a dump is already running.
+     */
+    public synchronized void startFileDump(Path file, long intervalSeconds) throws IOException {
+        if (dumper != null) {
+            return;
+        }
+        Path dir = file.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1,
+                new BackgroundExecutor.DaemonThreadFactory("metrics-dump"));
+        executor.scheduleWithFixedDelay(() -> dump(file), intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+        dumper = executor;
+    }
+
+    /**
+     * Stops the periodic dump after writing one final report.
+     */
+    public synchronized void stopFileDump(Path file) {
+        if (dumper != null) {
+            dumper.shutdownNow();
+            dumper = null;
+            dump(file);
+        }
+    }
+
+    /**
+     * Writes {@link #report()} to {@code file} once.
+     *
+     * @return false if the file could not be written
+     */
+    public boolean dump(Path file) {
+        try {
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.writeString(tmp, report(), StandardCharsets.UTF_8);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
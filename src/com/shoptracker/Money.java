@@ -0,0 +1,60 @@
+package com.shoptracker;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Fixed-point money helpers. Amounts are held as a {@code long} count of
+ * minor units (cents), so totals are exact integer sums; doubles and decimal
+ * text are converted at the edges only.
+ */
+public final class Money {
+
+    /** Decimal places of the minor unit (euro cents). */
+    public static final int SCALE = 2;
+
+    private Money() {}
+
+    /**
+     * Converts a decimal amount such as {@code 9.99}, rounding half-even to
+     * the nearest cent. The decimal form of the double is used, so
+     * {@code 0.1} is exactly 10 cents.
+     */
+    public static long toMinor(double amount) {
+        if (!Double.isFinite(amount)) {
+            throw new IllegalArgumentException("Not an amount: " + amount);
+        }
+        return BigDecimal.valueOf(amount).setScale(SCALE, RoundingMode.HALF_EVEN).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Parses decimal text such as {@code "12.5"} or {@code "0.99"} exactly.
+     *
+     * @throws IllegalArgumentException if it is not a number or has more
+     *                                  than {@value #SCALE} decimal places
+     */
+    public static long parse(String text) {
+        try {
+            return new BigDecimal(text.trim()).setScale(SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not an amount: " + text);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Amount must have at most " + SCALE + " decimal places: " + text);
+        }
+    }
+
+    public static double toMajor(long minor) {
+        return minor / 100.0;
+    }
+
+    public static BigDecimal toBigDecimal(long minor) {
+        return BigDecimal.valueOf(minor, SCALE);
+    }
+
+    /**
+     * @return e.g. {@code "1234.50"}
+     */
+    public static String format(long minor) {
+        return toBigDecimal(minor).toPlainString();
+    }
+}
@@ -0,0 +1,181 @@
+package com.shoptracker;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory trigram index for case-insensitive substring search.
+ * <p>
+ * Each key's text is lower-cased once when indexed. A query of three or more
+ * characters only verifies the keys in the smallest posting list of its
+ * trigrams; shorter queries fall back to a scan of the pre-normalised texts.
+ * Results are ranked: exact match, then prefix, then word start, then any
+ * other substring, ties broken by shorter text and then alphabetically.
+ */
+final class NGramIndex {
+
+    private static final int N = 3;
+
+    private final Map<String, String> texts = new HashMap<>();
+    private final Map<String, Set<String>> postings = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Indexes {@code text} under {@code key}, replacing any previous text.
+     */
+    void put(String key, String text) {
+        String normalised = normalise(text);
+        lock.writeLock().lock();
+        try {
+            String previous = texts.put(key, normalised);
+            if (previous != null) {
+                unindex(key, previous);
+            }
+            for (String gram : grams(normalised)) {
+                postings.computeIfAbsent(gram, g -> new HashSet<>()).add(key);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(String key) {
+        lock.writeLock().lock();
+        try {
+            String previous = texts.remove(key);
+            if (previous != null) {
+                unindex(key, previous);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void clear() {
+        lock.writeLock().lock();
+        try {
+            texts.clear();
+            postings.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return keys whose text contains {@code query}, best match first
+     */
+    List<String> search(String query, int limit) {
+        String q = normalise(query);
+        List<Match> matches = new ArrayList<>();
+
+        lock.readLock().lock();
+        try {
+            if (q.length() < N) {
+                for (Map.Entry<String, String> e : texts.entrySet()) {
+                    collect(matches, e.getKey(), e.getValue(), q);
+                }
+            } else {
+                for (String key : candidates(q)) {
+                    collect(matches, key, texts.get(key), q);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        matches.sort(null);
+        int n = Math.min(limit, matches.size());
+        List<String> keys = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            keys.add(matches.get(i).key);
+        }
+        return keys;
+    }
+
+    static String normalise(String s) {
+        return s.toLowerCase(Locale.ROOT);
+    }
+
+    // ---------------- Helpers ----------------
+
+    // Smallest posting list among the query's trigrams; empty if any is missing.
+    private Collection<String> candidates(String q) {
+        Set<String> smallest = null;
+        for (String gram : grams(q)) {
+            Set<String> keys = postings.get(gram);
+            if (keys == null) {
+                return Collections.emptySet();
+            }
+            if (smallest == null || keys.size() < smallest.size()) {
+                smallest = keys;
+            }
+        }
+        return smallest == null ? Collections.emptySet() : smallest;
+    }
+
+    private static void collect(List<Match> out, String key, String text, String q) {
+        int at = text.indexOf(q);
+        if (at < 0) {
+            return;
+        }
+        int rank;
+        if (text.length() == q.length()) {
+            rank = 0;
+        } else if (at == 0) {
+            rank = 1;
+        } else if (!Character.isLetterOrDigit(text.charAt(at - 1))) {
+            rank = 2;
+        } else {
+            rank = 3;
+        }
+        out.add(new Match(key, text, rank));
+    }
+
+    private void unindex(String key, String text) {
+        for (String gram : grams(text)) {
+            Set<String> keys = postings.get(gram);
+            if (keys != null) {
+                keys.remove(key);
+                if (keys.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+
+    private static Set<String> grams(String text) {
+        if (text.length() < N) {
+            return Collections.emptySet();
+        }
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + N <= text.length(); i++) {
+            grams.add(text.substring(i, i + N));
+        }
+        return grams;
+    }
+
+    private static final class Match implements Comparable<Match> {
+        private final String key;
+        private final String text;
+        private final int rank;
+
+        Match(String key, String text, int rank) {
+            this.key = key;
+            this.text = text;
+            this.rank = rank;
+        }
+
+        @Override
+        public int compareTo(Match o) {
+            if (rank != o.rank) {
+                return Integer.compare(rank, o.rank);
+            }
+            if (text.length() != o.text.length()) {
+                return Integer.compare(text.length(), o.text.length());
+            }
+            int byText = text.compareTo(o.text);
+            return byText != 0 ? byText : key.compareTo(o.key);
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.shoptracker;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PBKDF2 (HMAC-SHA512) password hashing with a random 16-byte salt per hash.
+ * <p>
+ * Hashes are stored as {@code pbkdf2-sha512$iterations$salt$hash} (Base64
+ * fields), so the cost can be raised later without breaking existing hashes;
+ * {@link #needsRehash} reports hashes made with a lower cost. The cost comes
+ * from {@value #ITERATIONS_PROPERTY} (see {@link #calibrate} and
+ * PasswordHasherBenchmark for choosing it).
+ * <p>
+ * Verification compares in constant time. Successful verifications are
+ * remembered in a small LRU cache keyed by an HMAC (under a random
+ * per-process key) of the stored hash and the password, so a repeated login
+ * costs one HMAC instead of a full PBKDF2 run; failures are never cached.
+ * Set {@value #CACHE_SIZE_PROPERTY} to 0 to turn the cache off.
+ * <p>
+ * {@link #verificationExecutor()} is a small bounded pool for logins: a login
+ * storm queues there (or is rejected when the queue is full) instead of
+ * occupying the shared {@link BackgroundExecutor}.
+ */
+public final class PasswordHasher {
+
+    public static final String ITERATIONS_PROPERTY = "shoptracker.password.iterations";
+    public static final String CACHE_SIZE_PROPERTY = "shoptracker.password.cache";
+    public static final int DEFAULT_ITERATIONS = 210_000;
+    public static final int DEFAULT_CACHE_SIZE = 1024;
+
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA512";
+    private static final String PREFIX = "pbkdf2-sha512";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+    private static final int VERIFY_QUEUE = 256;
+
+    private static final PasswordHasher INSTANCE = new PasswordHasher(
+            Integer.getInteger(ITERATIONS_PROPERTY, DEFAULT_ITERATIONS),
+            Integer.getInteger(CACHE_SIZE_PROPERTY, DEFAULT_CACHE_SIZE));
+
+    private final int iterations;
+    private final int cacheSize;
+    private final SecureRandom random = new SecureRandom();
+    private final byte[] cacheKey = new byte[32];
+    private final Set<String> verified; // guarded by itself
+    private final String dummyHash; // verified against for unknown users
+    private ExecutorService verifyPool; // guarded by this
+
+    public PasswordHasher(int iterations, int cacheSize) {
+        if (iterations < 1) {
+            throw new IllegalArgumentException("iterations must be positive: " + iterations);
+        }
+        this.iterations = iterations;
+        this.cacheSize = cacheSize;
+        this.verified = Collections.newSetFromMap(new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > PasswordHasher.this.cacheSize;
+            }
+        });
+        random.nextBytes(cacheKey);
+        this.dummyHash = hash("not-a-real-password");
+    }
+
+    public static PasswordHasher getInstance() {
+        return INSTANCE;
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    // ---------------- HASH / VERIFY ----------------
+
+    public String hash(String password) {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        byte[] hash = pbkdf2(password, salt, iterations);
+
+        Base64.Encoder b64 = Base64.getEncoder().withoutPadding();
+        return PREFIX + '$' + iterations + '$' + b64.encodeToString(salt) + '$' + b64.encodeToString(hash);
+    }
+
+    /**
+     * @return true if {@code password} matches {@code storedHash}; false for
+     *         a wrong password or a malformed hash
+     */
+    public boolean verify(String password, String storedHash) {
+        if (password == null || storedHash == null) {
+            return false;
+        }
+        String key = cacheSize > 0 ? cacheKey(password, storedHash) : null;
+        if (key != null) {
+            synchronized (verified) {
+                if (verified.contains(key)) {
+                    return true;
+                }
+            }
+        }
+
+        String[] parts = storedHash.split("\\$");
+        if (parts.length != 4 || !PREFIX.equals(parts[0])) {
+            return false;
+        }
+        boolean ok;
+        try {
+            int cost = Integer.parseInt(parts[1]);
+            byte[] salt = Base64.getDecoder().decode(parts[2]);
+            byte[] expected = Base64.getDecoder().decode(parts[3]);
+            ok = MessageDigest.isEqual(expected, pbkdf2(password, salt, cost));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+
+        if (ok && key != null) {
+            synchronized (verified) {
+                verified.add(key);
+            }
+        }
+        return ok;
+    }
+
+    /**
+     * Burns the same time as a real verification, so a login for an unknown
+     * username is not measurably faster than a wrong password.
+     */
+    public void verifyDummy(String password) {
+        verify(password == null ? "" : password, dummyHash);
+    }
+
+    /**
+     * @return true if the hash was made with fewer iterations than the
+     *         current setting (or is not a hash this class understands)
+     */
+    public boolean needsRehash(String storedHash) {
+        String[] parts = storedHash.split("\\$");
+        if (parts.length != 4 || !PREFIX.equals(parts[0])) {
+            return true;
+        }
+        try {
+            return Integer.parseInt(parts[1]) < iterations;
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    /**
+     * Executor for password verification: at most half the cores (minimum one)
+     * and {@value #VERIFY_QUEUE} queued requests; beyond that submissions are
+     * rejected with {@link java.util.concurrent.RejectedExecutionException}.
+     */
+    public synchronized ExecutorService verificationExecutor() {
+        if (verifyPool == null) {
+            int threads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+            verifyPool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(VERIFY_QUEUE),
+                    new BackgroundExecutor.DaemonThreadFactory("password-verify"),
+                    new ThreadPoolExecutor.AbortPolicy());
+        }
+        return verifyPool;
+    }
+
+    // ---------------- CALIBRATION ----------------
+
+    /**
+     * Largest power-of-two multiple of 10,000 iterations whose hash still
+     * takes at most {@code targetMillis} on this machine (minimum 10,000).
+     */
+    public static int calibrate(long targetMillis) {
+        byte[] salt = new byte[SALT_BYTES];
+        pbkdf2("warm-up", salt, 10_000);
+
+        int best = 10_000;
+        for (int candidate = 10_000; candidate > 0 && candidate <= 10_000_000; candidate *= 2) {
+            long start = System.nanoTime();
+            pbkdf2("calibrate", salt, candidate);
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            if (millis > targetMillis) {
+                break;
+            }
+            best = candidate;
+        }
+        return best;
+    }
+
+    // ---------------- Helpers ----------------
+
+    private static byte[] pbkdf2(String password, byte[] salt, int iterations) {
+        char[] chars = password.toCharArray();
+        PBEKeySpec spec = new PBEKeySpec(chars, salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        } finally {
+            spec.clearPassword();
+            Arrays.fill(chars, '\0');
+        }
+    }
+
+    private String cacheKey(String password, String storedHash) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(cacheKey, "HmacSHA256"));
+            mac.update(storedHash.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            return Base64.getEncoder().encodeToString(mac.doFinal(password.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+
+    /**
+     * Prints a suggested {@value #ITERATIONS_PROPERTY} for a latency budget in
+     * milliseconds (default 250).
+     */
+    public static void main(String[] args) {
+        long budget = args.length > 0 ? Long.parseLong(args[0]) : 250;
+        System.out.println("-D" + ITERATIONS_PROPERTY + "=" + calibrate(budget));
+    }
+}
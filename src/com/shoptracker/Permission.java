@@ -0,0 +1,24 @@
+package com.shoptracker;
+
+/**
+ * Individual rights a {@link Role} can be granted (see {@link AccessControl}).
+ * Each permission is one bit of an int mask, so a check is a single AND.
+ */
+public enum Permission {
+    /** Increase/decrease quantities of existing products. */
+    STOCK_ADJUST,
+    /** Add and remove products, set quantities and restock thresholds. */
+    STOCK_EDIT,
+    /** Change product prices. */
+    PRICE_EDIT,
+    /** Create, delete, (de)activate users and change their roles. */
+    USER_MANAGE,
+    /** Read the activity log. */
+    LOG_VIEW;
+
+    private final int mask = 1 << ordinal();
+
+    public int mask() {
+        return mask;
+    }
+}
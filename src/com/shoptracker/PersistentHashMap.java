@@ -0,0 +1,341 @@
+package com.shoptracker;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+
+/**
+ * Immutable hash array mapped trie (HAMT).
+ * <p>
+ * Every {@link #put}/{@link #remove} returns a new map that shares all but the
+ * O(log32 n) nodes on the changed path with the old one, so a reference to a
+ * map is a snapshot that never changes underneath its reader. Each level
+ * consumes five bits of the (spread) key hash; a node stores a 32-bit bitmap
+ * of occupied slots and a dense array holding entries or child nodes. Keys
+ * whose full hashes collide share a collision node.
+ * <p>
+ * Null keys and values are not supported.
+ */
+final class PersistentHashMap<K, V> {
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+
+    private static final PersistentHashMap<?, ?> EMPTY =
+            new PersistentHashMap<>(new BitmapNode(0, new Object[0]), 0);
+
+    private final BitmapNode root;
+    private final int size;
+
+    private PersistentHashMap(BitmapNode root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <K, V> PersistentHashMap<K, V> empty() {
+        return (PersistentHashMap<K, V>) EMPTY;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    // ---------------- LOOKUP ----------------
+
+    @SuppressWarnings("unchecked")
+    V get(Object key) {
+        int hash = hash(key);
+        Object node = root;
+        for (int shift = 0; ; shift += BITS) {
+            if (node instanceof BitmapNode) {
+                BitmapNode bn = (BitmapNode) node;
+                int bit = bit(hash, shift);
+                if ((bn.bitmap & bit) == 0) {
+                    return null;
+                }
+                node = bn.slots[bn.index(bit)];
+            } else if (node instanceof Entry) {
+                Entry e = (Entry) node;
+                return e.hash == hash && e.key.equals(key) ? (V) e.value : null;
+            } else {
+                Entry e = ((CollisionNode) node).find(key);
+                return e == null ? null : (V) e.value;
+            }
+        }
+    }
+
+    boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    // ---------------- UPDATE ----------------
+
+    /**
+     * @return a map with {@code key} mapped to {@code value}; {@code this} if
+     *         the key already maps to the identical value
+     */
+    PersistentHashMap<K, V> put(K key, V value) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(value);
+        boolean[] added = new boolean[1];
+        BitmapNode newRoot = (BitmapNode) put(root, 0, new Entry(hash(key), key, value), added);
+        return newRoot == root ? this : new PersistentHashMap<>(newRoot, added[0] ? size + 1 : size);
+    }
+
+    /**
+     * @return a map without {@code key}; {@code this} if it was absent
+     */
+    PersistentHashMap<K, V> remove(Object key) {
+        if (key == null) {
+            return this;
+        }
+        Object result = remove(root, 0, hash(key), key);
+        if (result == root) {
+            return this;
+        }
+        BitmapNode newRoot;
+        if (result == null) {
+            newRoot = EMPTY.root;
+        } else if (result instanceof BitmapNode) {
+            newRoot = (BitmapNode) result;
+        } else {
+            // the root is never collapsed into an entry or a collision node
+            newRoot = single(hashOf(result), 0, result);
+        }
+        return new PersistentHashMap<>(newRoot, size - 1);
+    }
+
+    // ---------------- ITERATION ----------------
+
+    @SuppressWarnings("unchecked")
+    void forEach(BiConsumer<? super K, ? super V> action) {
+        forEach(root, (BiConsumer<Object, Object>) action);
+    }
+
+    private static void forEach(Object node, BiConsumer<Object, Object> action) {
+        if (node instanceof Entry) {
+            Entry e = (Entry) node;
+            action.accept(e.key, e.value);
+        } else if (node instanceof BitmapNode) {
+            for (Object slot : ((BitmapNode) node).slots) {
+                forEach(slot, action);
+            }
+        } else {
+            for (Entry e : ((CollisionNode) node).entries) {
+                action.accept(e.key, e.value);
+            }
+        }
+    }
+
+    // ---------------- Nodes ----------------
+
+    private static Object put(Object node, int shift, Entry entry, boolean[] added) {
+        if (node instanceof BitmapNode) {
+            BitmapNode bn = (BitmapNode) node;
+            int bit = bit(entry.hash, shift);
+            int idx = bn.index(bit);
+            if ((bn.bitmap & bit) == 0) {
+                added[0] = true;
+                return bn.insert(bit, idx, entry);
+            }
+            Object child = bn.slots[idx];
+            Object updated = put(child, shift + BITS, entry, added);
+            return updated == child ? bn : bn.replace(idx, updated);
+        }
+        if (node instanceof Entry) {
+            Entry existing = (Entry) node;
+            if (existing.hash == entry.hash && existing.key.equals(entry.key)) {
+                return existing.value == entry.value ? existing : entry;
+            }
+            added[0] = true;
+            return merge(existing, existing.hash, entry, shift);
+        }
+        CollisionNode cn = (CollisionNode) node;
+        if (cn.hash != entry.hash) {
+            added[0] = true;
+            return merge(cn, cn.hash, entry, shift);
+        }
+        return cn.put(entry, added);
+    }
+
+    // Node holding two items (an entry or collision node, and an entry) that share a path up to shift.
+    private static Object merge(Object a, int hashA, Entry b, int shift) {
+        if (hashA == b.hash) {
+            Entry[] entries = a instanceof Entry
+                    ? new Entry[]{(Entry) a, b}
+                    : ((CollisionNode) a).with(b);
+            return new CollisionNode(hashA, entries);
+        }
+        int bitA = bit(hashA, shift);
+        int bitB = bit(b.hash, shift);
+        if (bitA == bitB) {
+            return new BitmapNode(bitA, new Object[]{merge(a, hashA, b, shift + BITS)});
+        }
+        Object[] slots = Integer.compareUnsigned(bitA, bitB) < 0 ? new Object[]{a, b} : new Object[]{b, a};
+        return new BitmapNode(bitA | bitB, slots);
+    }
+
+    // Returns the node unchanged if the key is absent, null if it became empty,
+    // or a lone entry / collision node for the parent to pull up.
+    private static Object remove(Object node, int shift, int hash, Object key) {
+        if (node instanceof Entry) {
+            Entry e = (Entry) node;
+            return e.hash == hash && e.key.equals(key) ? null : e;
+        }
+        if (node instanceof CollisionNode) {
+            return ((CollisionNode) node).remove(hash, key);
+        }
+
+        BitmapNode bn = (BitmapNode) node;
+        int bit = bit(hash, shift);
+        if ((bn.bitmap & bit) == 0) {
+            return bn;
+        }
+        int idx = bn.index(bit);
+        Object child = bn.slots[idx];
+        Object updated = remove(child, shift + BITS, hash, key);
+        if (updated == child) {
+            return bn;
+        }
+        if (updated == null) {
+            if (bn.slots.length == 1) {
+                return null;
+            }
+            BitmapNode smaller = bn.delete(bit, idx);
+            // a lone leaf moves up into the parent's slot
+            return smaller.slots.length == 1 && !(smaller.slots[0] instanceof BitmapNode)
+                    ? smaller.slots[0] : smaller;
+        }
+        if (bn.slots.length == 1 && !(updated instanceof BitmapNode)) {
+            return updated;
+        }
+        return bn.replace(idx, updated);
+    }
+
+    private static BitmapNode single(int hash, int shift, Object item) {
+        return new BitmapNode(bit(hash, shift), new Object[]{item});
+    }
+
+    private static int hashOf(Object item) {
+        return item instanceof Entry ? ((Entry) item).hash : ((CollisionNode) item).hash;
+    }
+
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private static int bit(int hash, int shift) {
+        return 1 << ((hash >>> shift) & MASK);
+    }
+
+    private static final class Entry {
+        final int hash;
+        final Object key;
+        final Object value;
+
+        Entry(int hash, Object key, Object value) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    private static final class BitmapNode {
+        final int bitmap;
+        final Object[] slots; // Entry, BitmapNode or CollisionNode, in bit order
+
+        BitmapNode(int bitmap, Object[] slots) {
+            this.bitmap = bitmap;
+            this.slots = slots;
+        }
+
+        int index(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        BitmapNode insert(int bit, int idx, Object item) {
+            Object[] copy = new Object[slots.length + 1];
+            System.arraycopy(slots, 0, copy, 0, idx);
+            copy[idx] = item;
+            System.arraycopy(slots, idx, copy, idx + 1, slots.length - idx);
+            return new BitmapNode(bitmap | bit, copy);
+        }
+
+        BitmapNode replace(int idx, Object item) {
+            Object[] copy = slots.clone();
+            copy[idx] = item;
+            return new BitmapNode(bitmap, copy);
+        }
+
+        BitmapNode delete(int bit, int idx) {
+            Object[] copy = new Object[slots.length - 1];
+            System.arraycopy(slots, 0, copy, 0, idx);
+            System.arraycopy(slots, idx + 1, copy, idx, slots.length - idx - 1);
+            return new BitmapNode(bitmap & ~bit, copy);
+        }
+    }
+
+    private static final class CollisionNode {
+        final int hash;
+        final Entry[] entries;
+
+        CollisionNode(int hash, Entry[] entries) {
+            this.hash = hash;
+            this.entries = entries;
+        }
+
+        Entry find(Object key) {
+            for (Entry e : entries) {
+                if (e.key.equals(key)) {
+                    return e;
+                }
+            }
+            return null;
+        }
+
+        Entry[] with(Entry entry) {
+            Entry[] copy = Arrays.copyOf(entries, entries.length + 1);
+            copy[entries.length] = entry;
+            return copy;
+        }
+
+        Object put(Entry entry, boolean[] added) {
+            for (int i = 0; i < entries.length; i++) {
+                if (entries[i].key.equals(entry.key)) {
+                    if (entries[i].value == entry.value) {
+                        return this;
+                    }
+                    Entry[] copy = entries.clone();
+                    copy[i] = entry;
+                    return new CollisionNode(hash, copy);
+                }
+            }
+            added[0] = true;
+            return new CollisionNode(hash, with(entry));
+        }
+
+        Object remove(int keyHash, Object key) {
+            if (keyHash != hash) {
+                return this;
+            }
+            for (int i = 0; i < entries.length; i++) {
+                if (entries[i].key.equals(key)) {
+                    if (entries.length == 2) {
+                        return entries[1 - i];
+                    }
+                    Entry[] copy = new Entry[entries.length - 1];
+                    System.arraycopy(entries, 0, copy, 0, i);
+                    System.arraycopy(entries, i + 1, copy, i, entries.length - i - 1);
+                    return new CollisionNode(hash, copy);
+                }
+            }
+            return this;
+        }
+    }
+}
@@ -2,15 +2,25 @@ package com.shoptracker;
 
 /**
  * Represents an item in the store inventory.
+ * Immutable: a stock or price change produces a new Product (see
+ * {@link #withQuantity}), which InventoryService publishes in a new
+ * {@link InventorySnapshot}, so a Product a reader holds never changes.
+ * <p>
+ * The price is held in minor units (cents, see {@link Money}); the
+ * {@code double} constructor and accessors convert at the boundary.
  */
 public final class Product {
 
     private final String id;
     private final String name;
-    private int quantity;
-    private double price;
+    private final int quantity;
+    private final long priceMinor;
 
     public Product(String id, String name, int quantity, double price) {
+        this(id, name, quantity, Money.toMinor(price));
+    }
+
+    private Product(String id, String name, int quantity, long priceMinor) {
         if (id == null || id.isBlank()) {
             throw new IllegalArgumentException("Product ID required");
         }
@@ -20,37 +30,46 @@ public final class Product {
         if (quantity < 0) {
             throw new IllegalArgumentException("Quantity cannot be negative");
         }
-        if (price < 0) {
+        if (priceMinor < 0) {
             throw new IllegalArgumentException("Price cannot be negative");
         }
 
         this.id = id;
         this.name = name;
         this.quantity = quantity;
-        this.price = price;
+        this.priceMinor = priceMinor;
+    }
+
+    /**
+     * @param priceMinor unit price in cents
+     */
+    public static Product ofMinorUnits(String id, String name, int quantity, long priceMinor) {
+        return new Product(id, name, quantity, priceMinor);
     }
 
     public String getId() { return id; }
     public String getName() { return name; }
     public int getQuantity() { return quantity; }
-    public double getPrice() { return price; }
+    public double getPrice() { return Money.toMajor(priceMinor); }
+    public long getPriceMinor() { return priceMinor; }
 
-    public void setQuantity(int quantity) {
-        if (quantity < 0) {
-            throw new IllegalArgumentException("Quantity cannot be negative");
-        }
-        this.quantity = quantity;
+    /**
+     * @return this product with a different quantity
+     */
+    public Product withQuantity(int quantity) {
+        return quantity == this.quantity ? this : new Product(id, name, quantity, priceMinor);
     }
 
-    public void setPrice(double price) {
-        if (price < 0) {
-            throw new IllegalArgumentException("Price cannot be negative");
-        }
-        this.price = price;
+    public Product withPrice(double price) {
+        return withPriceMinor(Money.toMinor(price));
+    }
+
+    public Product withPriceMinor(long priceMinor) {
+        return priceMinor == this.priceMinor ? this : new Product(id, name, quantity, priceMinor);
     }
 
     @Override
     public String toString() {
-        return name + " (" + id + ")  Qty: " + quantity + "  €" + price;
+        return name + " (" + id + ")  Qty: " + quantity + "  €" + Money.format(priceMinor);
     }
 }
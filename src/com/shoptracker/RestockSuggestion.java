@@ -0,0 +1,56 @@
+package com.shoptracker;
+
+/**
+ * One product that has reached its reorder point, with the demand figures
+ * behind the suggestion. Immutable.
+ */
+public final class RestockSuggestion {
+
+    private final Product product;
+    private final double dailyDemand;
+    private final int reorderPoint;
+    private final int quantity;
+
+    RestockSuggestion(Product product, double dailyDemand, int reorderPoint, int quantity) {
+        this.product = product;
+        this.dailyDemand = dailyDemand;
+        this.reorderPoint = reorderPoint;
+        this.quantity = quantity;
+    }
+
+    public Product getProduct() {
+        return product;
+    }
+
+    /**
+     * Recent units sold per day (exponentially weighted); 0 if no sales seen.
+     */
+    public double getDailyDemand() {
+        return dailyDemand;
+    }
+
+    /**
+     * Days the current stock lasts at the recent rate; infinite without sales.
+     */
+    public double getDaysOfCover() {
+        return dailyDemand == 0 ? Double.POSITIVE_INFINITY : product.getQuantity() / dailyDemand;
+    }
+
+    public int getReorderPoint() {
+        return reorderPoint;
+    }
+
+    /**
+     * Units to order.
+     */
+    public int getQuantity() {
+        return quantity;
+    }
+
+    @Override
+    public String toString() {
+        return product.getId() + ": order " + quantity
+                + " (stock " + product.getQuantity() + ", reorder at " + reorderPoint
+                + String.format(", %.1f/day)", dailyDemand);
+    }
+}
@@ -0,0 +1,46 @@
+package com.shoptracker;
+
+import java.time.Instant;
+
+/**
+ * A logged-in user, issued by {@link SessionManager}. Identity and role are
+ * fixed when the session starts, so an authorization check is a table
+ * lookup and a bit test; the only mutable state is the revoked flag, set
+ * when the session is ended or the user's role or status changes.
+ */
+public final class Session implements Actor {
+
+    private final String token;
+    private final String username;
+    private final String fullName;
+    private final Role role;
+    private final Instant startedAt;
+    private volatile boolean revoked;
+
+    Session(String token, User user) {
+        this.token = token;
+        this.username = user.getUsername();
+        this.fullName = user.getFullName();
+        this.role = user.getRole();
+        this.startedAt = Instant.now();
+    }
+
+    public String getToken() { return token; }
+    @Override public String getUsername() { return username; }
+    public String getFullName() { return fullName; }
+    @Override public Role getRole() { return role; }
+    public Instant getStartedAt() { return startedAt; }
+
+    public boolean isValid() {
+        return !revoked;
+    }
+
+    void revoke() {
+        revoked = true;
+    }
+
+    @Override
+    public String toString() {
+        return username + " (" + role + ")";
+    }
+}
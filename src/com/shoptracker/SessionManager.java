@@ -0,0 +1,113 @@
+package com.shoptracker;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Issues and tracks {@link Session}s. Changing a user's role, deactivating
+ * or deleting them revokes every session they hold, so stale permissions
+ * cannot outlive the change.
+ */
+public final class SessionManager {
+
+    private static final SessionManager INSTANCE = new SessionManager();
+    private static final int TOKEN_BYTES = 32;
+
+    private final SecureRandom random = new SecureRandom();
+    private final Map<String, Session> byToken = new ConcurrentHashMap<>(); // writes guarded by this
+    private final Map<String, Set<Session>> byUsername = new HashMap<>(); // guarded by this
+    // bumped by every invalidateUser, so a login that read the account before
+    // the change cannot register a session after it; guarded by this
+    private final Map<String, Long> generations = new HashMap<>();
+
+    /**
+     * A separate registry (mainly for tests); the application uses
+     * {@link #getInstance()}. Permissions are not fixed here: each
+     * {@link AccessControl} resolves a session's role against its own table.
+     */
+    public SessionManager() {
+        // nothing to configure
+    }
+
+    public static SessionManager getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Version of the user's account as far as sessions go. Read it before
+     * authenticating and hand it to {@link #start(User, long)}.
+     */
+    public synchronized long generation(String username) {
+        return generations.getOrDefault(username, 0L);
+    }
+
+    /**
+     * Starts a session for a user that has just been authenticated.
+     *
+     * @return null if the user is inactive
+     */
+    public synchronized Session start(User user) {
+        return start(user, generation(user.getUsername()));
+    }
+
+    /**
+     * Starts a session unless the user was invalidated after
+     * {@code generation} was read, or is inactive; both are checked here,
+     * under the same lock as {@link #invalidateUser}.
+     *
+     * @return the session, or null if it was refused
+     */
+    public synchronized Session start(User user, long generation) {
+        if (!user.isActive() || generation != generation(user.getUsername())) {
+            return null;
+        }
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        Session session = new Session(token, user);
+        byToken.put(token, session);
+        byUsername.computeIfAbsent(user.getUsername(), k -> new HashSet<>()).add(session);
+        return session;
+    }
+
+    /**
+     * @return the live session for {@code token}, or null
+     */
+    public Session get(String token) {
+        return token == null ? null : byToken.get(token);
+    }
+
+    /**
+     * Ends one session (logout).
+     */
+    public synchronized void end(Session session) {
+        session.revoke();
+        byToken.remove(session.getToken());
+        Set<Session> sessions = byUsername.get(session.getUsername());
+        if (sessions != null) {
+            sessions.remove(session);
+        }
+    }
+
+    /**
+     * Revokes every session of {@code username}; a login that read the
+     * account before this call is refused a session too.
+     */
+    public synchronized void invalidateUser(String username) {
+        generations.merge(username, 1L, Long::sum);
+        Set<Session> sessions = byUsername.remove(username);
+        if (sessions == null) {
+            return;
+        }
+        for (Session s : sessions) {
+            s.revoke();
+            byToken.remove(s.getToken());
+        }
+    }
+}
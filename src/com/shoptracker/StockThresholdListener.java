@@ -0,0 +1,18 @@
+package com.shoptracker;
+
+/**
+ * Notified when a product crosses its restock threshold.
+ * Called on the thread that changed the stock, once that product's lock
+ * has been released, so a listener may read or change inventory itself.
+ */
+@FunctionalInterface
+public interface StockThresholdListener {
+
+    /**
+     * @param product   the product after the change
+     * @param threshold its restock threshold
+     * @param nowLow    true if it just dropped to or below the threshold,
+     *                  false if it just climbed back above it
+     */
+    void thresholdCrossed(Product product, int threshold, boolean nowLow);
+}
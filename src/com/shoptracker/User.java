@@ -3,25 +3,43 @@ package com.shoptracker;
 import java.util.Objects;
 
 /**
- * Represents an authenticated user of the system.
+ * Represents a user account of the system.
  */
 public final class User {
 
     private final String username;
-    private String password; // For demo only
+    private volatile String passwordHash; // see PasswordHasher
     private String fullName;
     private String email;
     private Role role;
     private boolean active = true;
 
+    /**
+     * @param password plaintext; only its hash is kept
+     */
     public User(String username, String password, String fullName, String email, Role role) {
+        this(username, fullName, email, role);
+        setPassword(password);
+    }
+
+    private User(String username, String fullName, String email, Role role) {
         this.username = requireNonBlank(username, "username");
-        this.password = requireNonBlank(password, "password");
         this.fullName = requireNonBlank(fullName, "fullName");
         this.email = requireNonBlank(email, "email");
         this.role = Objects.requireNonNull(role, "role");
     }
 
+    /**
+     * Rebuilds a stored user from its password hash (no re-hashing).
+     */
+    public static User restore(String username, String passwordHash, String fullName, String email,
+                               Role role, boolean active) {
+        User u = new User(username, fullName, email, role);
+        u.passwordHash = requireNonBlank(passwordHash, "passwordHash");
+        u.active = active;
+        return u;
+    }
+
     private static String requireNonBlank(String v, String field) {
         if (v == null || v.isBlank()) {
             throw new IllegalArgumentException(field + " is required");
@@ -30,14 +48,21 @@ public final class User {
     }
 
     public String getUsername() { return username; }
-    public String getPassword() { return password; }
+    public String getPasswordHash() { return passwordHash; }
     public String getFullName() { return fullName; }
     public String getEmail() { return email; }
     public Role getRole() { return role; }
     public boolean isActive() { return active; }
 
+    public boolean checkPassword(String password) {
+        return PasswordHasher.getInstance().verify(password, passwordHash);
+    }
+
+    /**
+     * @param password plaintext; stored hashed
+     */
     public void setPassword(String password) {
-        this.password = requireNonBlank(password, "password");
+        this.passwordHash = PasswordHasher.getInstance().hash(requireNonBlank(password, "password"));
     }
 
     public void setFullName(String fullName) {
@@ -0,0 +1,364 @@
+package com.shoptracker;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * File-backed {@link UserStore}: a write-ahead log ({@code users.log}) of
+ * put/delete records plus a compacted snapshot ({@code users.snapshot}).
+ * <p>
+ * Opening the store only scans both files for usernames and keeps the file
+ * offset of each user's latest record; users are decoded one at a time when
+ * {@link #load} asks for them. Writes are appended straight away but forced
+ * to disk in batches, by a background task every {@value #SYNC_INTERVAL_MILLIS}ms
+ * and on {@link #close()}. Once the log holds mostly superseded records its
+ * live records are copied into a new snapshot and the log is truncated.
+ * <p>
+ * Every record is framed as {@code [int length][int crc32][payload]}; a torn
+ * record at the end of the log (crash mid-append) is cut off on open.
+ */
+public final class UserFileStore implements UserStore, Closeable {
+
+    static final String LOG_FILE = "users.log";
+    static final String SNAPSHOT_FILE = "users.snapshot";
+
+    private static final byte OP_PUT = 1;
+    private static final byte OP_DELETE = 2;
+    private static final int HEADER_BYTES = 8;
+    private static final long IN_SNAPSHOT = 1L << 62; // offset tag: record lives in the snapshot
+    private static final long SYNC_INTERVAL_MILLIS = 100;
+    private static final int COMPACT_MIN_RECORDS = 1024;
+
+    private final Path dir;
+    private final FileChannel log;
+    private FileChannel snapshot; // null until the first compaction
+    private final ScheduledExecutorService syncer;
+
+    // all guarded by this
+    private final Map<String, Long> offsets = new HashMap<>();
+    private long logEnd;
+    private int logRecords;
+    private boolean dirty;
+    private boolean closed;
+
+    private UserFileStore(Path dir) throws IOException {
+        this.dir = dir;
+        this.log = FileChannel.open(dir.resolve(LOG_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        Path snap = dir.resolve(SNAPSHOT_FILE);
+        if (Files.exists(snap)) {
+            snapshot = FileChannel.open(snap, StandardOpenOption.READ);
+            scan(snapshot, IN_SNAPSHOT);
+        }
+        logEnd = scan(log, 0);
+        if (logEnd < log.size()) {
+            log.truncate(logEnd); // torn tail
+        }
+
+        ScheduledThreadPoolExecutor ex =
+                new ScheduledThreadPoolExecutor(1, new BackgroundExecutor.DaemonThreadFactory("user-store-sync"));
+        ex.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        this.syncer = ex;
+        syncer.scheduleWithFixedDelay(this::syncQuietly,
+                SYNC_INTERVAL_MILLIS, SYNC_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    public static UserFileStore open(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        return new UserFileStore(directory);
+    }
+
+    // ---------------- UserStore ----------------
+
+    @Override
+    public synchronized User load(String username) {
+        Long at = offsets.get(username);
+        if (at == null) {
+            return null;
+        }
+        try {
+            return decode(read(at));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read user " + username, e);
+        }
+    }
+
+    @Override
+    public synchronized boolean contains(String username) {
+        return offsets.containsKey(username);
+    }
+
+    @Override
+    public synchronized Collection<String> usernames() {
+        return new ArrayList<>(offsets.keySet());
+    }
+
+    @Override
+    public synchronized int size() {
+        return offsets.size();
+    }
+
+    @Override
+    public synchronized void save(User user) {
+        long at = append(encodePut(user));
+        offsets.put(user.getUsername(), at);
+        maybeCompact();
+    }
+
+    @Override
+    public synchronized void delete(String username) {
+        if (offsets.remove(username) != null) {
+            append(encodeDelete(username));
+            maybeCompact();
+        }
+    }
+
+    @Override
+    public synchronized void clear() {
+        try {
+            offsets.clear();
+            log.truncate(0);
+            log.force(true);
+            logEnd = 0;
+            logRecords = 0;
+            dirty = false;
+            if (snapshot != null) {
+                snapshot.close();
+                snapshot = null;
+            }
+            Files.deleteIfExists(dir.resolve(SNAPSHOT_FILE));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not clear user store", e);
+        }
+    }
+
+    /**
+     * Forces pending writes to disk now instead of at the next batch.
+     */
+    public synchronized void sync() {
+        if (!dirty || closed) {
+            return;
+        }
+        try {
+            log.force(false);
+            dirty = false;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not sync user store", e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        syncer.shutdownNow();
+        sync();
+        closed = true;
+        try {
+            log.close();
+            if (snapshot != null) {
+                snapshot.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not close user store", e);
+        }
+    }
+
+    // ---------------- Log ----------------
+
+    private long append(byte[] payload) {
+        if (closed) {
+            throw new IllegalStateException("user store is closed");
+        }
+        long at = logEnd;
+        try {
+            ByteBuffer frame = frame(payload);
+            while (frame.hasRemaining()) {
+                logEnd += log.write(frame, logEnd);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not append to user log", e);
+        }
+        logRecords++;
+        dirty = true;
+        return at;
+    }
+
+    private void syncQuietly() {
+        try {
+            sync();
+        } catch (UncheckedIOException e) {
+            ActivityLogService.getInstance().log("User store sync failed: " + e.getCause());
+        }
+    }
+
+    // Rewrites the live records into a fresh snapshot once the log is mostly dead weight.
+    private void maybeCompact() {
+        if (logRecords < COMPACT_MIN_RECORDS || logRecords < 2 * offsets.size()) {
+            return;
+        }
+        Path tmp = dir.resolve(SNAPSHOT_FILE + ".tmp");
+        Map<String, Long> moved = new HashMap<>(offsets.size() * 2);
+        try {
+            try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                long pos = 0;
+                for (Map.Entry<String, Long> e : offsets.entrySet()) {
+                    ByteBuffer frame = frame(read(e.getValue()));
+                    moved.put(e.getKey(), IN_SNAPSHOT | pos);
+                    while (frame.hasRemaining()) {
+                        pos += out.write(frame, pos);
+                    }
+                }
+                out.force(true);
+            }
+            if (snapshot != null) {
+                snapshot.close();
+            }
+            Files.move(tmp, dir.resolve(SNAPSHOT_FILE),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            snapshot = FileChannel.open(dir.resolve(SNAPSHOT_FILE), StandardOpenOption.READ);
+
+            // A crash before this point just replays the old log over the new snapshot.
+            log.truncate(0);
+            log.force(true);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not compact user store", e);
+        }
+        offsets.clear();
+        offsets.putAll(moved);
+        logEnd = 0;
+        logRecords = 0;
+        dirty = false;
+    }
+
+    // Indexes every intact record in the channel; returns the end of the last one.
+    private long scan(FileChannel ch, long tag) throws IOException {
+        long pos = 0;
+        long size = ch.size();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        while (pos + HEADER_BYTES <= size) {
+            header.clear();
+            readFully(ch, header, pos);
+            header.flip();
+            int len = header.getInt();
+            int crc = header.getInt();
+            if (len <= 0 || pos + HEADER_BYTES + len > size) {
+                break;
+            }
+            byte[] payload = new byte[len];
+            readFully(ch, ByteBuffer.wrap(payload), pos + HEADER_BYTES);
+            if (crc != crc(payload)) {
+                break;
+            }
+
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+            byte op = in.readByte();
+            String username = in.readUTF();
+            if (op == OP_PUT) {
+                offsets.put(username, tag | pos);
+            } else {
+                offsets.remove(username);
+            }
+            if (tag == 0) {
+                logRecords++;
+            }
+            pos += HEADER_BYTES + len;
+        }
+        return pos;
+    }
+
+    private byte[] read(long at) throws IOException {
+        FileChannel ch = (at & IN_SNAPSHOT) != 0 ? snapshot : log;
+        long pos = at & ~IN_SNAPSHOT;
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        readFully(ch, header, pos);
+        header.flip();
+        byte[] payload = new byte[header.getInt()];
+        readFully(ch, ByteBuffer.wrap(payload), pos + HEADER_BYTES);
+        return payload;
+    }
+
+    private static void readFully(FileChannel ch, ByteBuffer buf, long pos) throws IOException {
+        while (buf.hasRemaining()) {
+            int n = ch.read(buf, pos);
+            if (n < 0) {
+                throw new IOException("Unexpected end of user store file");
+            }
+            pos += n;
+        }
+    }
+
+    // ---------------- Encoding ----------------
+
+    private static ByteBuffer frame(byte[] payload) {
+        ByteBuffer buf = ByteBuffer.allocate(HEADER_BYTES + payload.length);
+        buf.putInt(payload.length).putInt(crc(payload)).put(payload);
+        buf.flip();
+        return buf;
+    }
+
+    private static int crc(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    private static byte[] encodePut(User u) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(OP_PUT);
+            out.writeUTF(u.getUsername());
+            out.writeUTF(u.getPasswordHash());
+            out.writeUTF(u.getFullName());
+            out.writeUTF(u.getEmail());
+            out.writeUTF(u.getRole().name());
+            out.writeBoolean(u.isActive());
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // cannot happen for an in-memory stream
+        }
+    }
+
+    private static byte[] encodeDelete(String username) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(OP_DELETE);
+            out.writeUTF(username);
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static User decode(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        in.readByte(); // OP_PUT; deletes are never referenced by the offset index
+        return User.restore(in.readUTF(), in.readUTF(), in.readUTF(), in.readUTF(),
+                Role.valueOf(in.readUTF()), in.readBoolean());
+    }
+}
@@ -3,47 +3,235 @@ package com.shoptracker;
 import java.util.*;
 
 /**
- * Simple in-memory repository of User objects.
+ * Repository of User objects.
  * Singleton used across the application.
+ * <p>
+ * On its own it keeps every user in memory. Once a {@link UserStore} is
+ * attached ({@link #useStore}) the store holds the full user base and this
+ * class becomes a bounded LRU cache in front of it: hot usernames are still
+ * answered from memory, misses are loaded from the store, and every change
+ * is written through.
+ * <p>
+ * Username, full name and email of every user (cached or not) are kept in a
+ * trigram index for {@link #search}, and emails in a unique, case-insensitive
+ * index for {@link #findByEmail}. With a store attached both are built from
+ * it the first time they are needed, then maintained on save/delete.
  */
 public final class UserRepository {
 
+    public static final int DEFAULT_CACHE_SIZE = 10_000;
+
     private static final UserRepository INSTANCE = new UserRepository();
-    private final Map<String, User> byUsername = new HashMap<>();
+
+    private final int cacheSize;
+    private UserStore store; // null = memory only; guarded by this
+    private final Map<String, User> byUsername; // guarded by this
+
+    // secondary indexes over all users; guarded by this
+    private final NGramIndex searchIndex = new NGramIndex();
+    private final Map<String, String> usernameByEmail = new HashMap<>();
+    private final Map<String, String> emailByUsername = new HashMap<>();
+    private boolean indexed;
 
     private UserRepository() {
         // Singleton
+        this(null, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Repository over its own store (mainly for tests); the application uses
+     * {@link #getInstance()}.
+     */
+    public UserRepository(UserStore store, int cacheSize) {
+        this.store = store;
+        this.cacheSize = cacheSize;
+        this.indexed = store == null;
+        this.byUsername = new LinkedHashMap<>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, User> eldest) {
+                return UserRepository.this.store != null && size() > UserRepository.this.cacheSize;
+            }
+        };
     }
 
     public static UserRepository getInstance() {
         return INSTANCE;
     }
 
-    public boolean exists(String username) {
-        return byUsername.containsKey(username);
+    /**
+     * Makes {@code store} the system of record. Anything cached so far is
+     * dropped, so call this at startup before users are loaded.
+     */
+    public synchronized void useStore(UserStore store) {
+        this.store = store;
+        byUsername.clear();
+        clearIndexes();
+        indexed = false;
     }
 
-    public void save(User user) {
+    /**
+     * O(1): asks the store for its record count rather than loading users.
+     */
+    public synchronized boolean isEmpty() {
+        return store == null ? byUsername.isEmpty() : store.size() == 0;
+    }
+
+    /**
+     * Builds the search and email indexes now (e.g. on a background thread
+     * at startup) instead of on the first save, search or email lookup.
+     */
+    public synchronized void buildIndexes() {
+        ensureIndexed();
+    }
+
+    public synchronized boolean exists(String username) {
+        return byUsername.containsKey(username) || (store != null && store.contains(username));
+    }
+
+    /**
+     * @throws IllegalArgumentException if another user already has this email
+     */
+    public synchronized void save(User user) {
+        ensureIndexed();
+        String email = normaliseEmail(user.getEmail());
+        String owner = usernameByEmail.get(email);
+        if (owner != null && !owner.equals(user.getUsername())) {
+            throw new IllegalArgumentException("Email already in use: " + user.getEmail());
+        }
+
+        if (store != null) {
+            store.save(user); // first, so a failed write leaves nothing behind
+        }
+        index(user);
         byUsername.put(user.getUsername(), user);
     }
 
     public Optional<User> find(String username) {
-        return Optional.ofNullable(byUsername.get(username));
+        return Optional.ofNullable(findByUsername(username));
     }
 
-    public User findByUsername(String username) {
-        return byUsername.get(username);
+    public synchronized User findByUsername(String username) {
+        User user = byUsername.get(username);
+        if (user == null && store != null) {
+            user = store.load(username);
+            if (user != null) {
+                byUsername.put(username, user);
+            }
+        }
+        return user;
     }
 
-    public List<User> findAll() {
-        return new ArrayList<>(byUsername.values());
+    /**
+     * With a store attached, users not in the cache are loaded for the result
+     * but not cached, so a full listing does not evict the hot set.
+     */
+    public synchronized List<User> findAll() {
+        if (store == null) {
+            return new ArrayList<>(byUsername.values());
+        }
+        Collection<String> names = store.usernames();
+        List<User> out = new ArrayList<>(names.size());
+        for (String name : names) {
+            User cached = byUsername.get(name);
+            User user = cached != null ? cached : store.load(name);
+            if (user != null) {
+                out.add(user);
+            }
+        }
+        return out;
     }
 
-    public void delete(String username) {
+    /**
+     * Case-insensitive lookup through the email index.
+     */
+    public synchronized User findByEmail(String email) {
+        ensureIndexed();
+        String username = usernameByEmail.get(normaliseEmail(email));
+        return username == null ? null : findByUsername(username);
+    }
+
+    /**
+     * Users whose username, full name or email contains {@code query}
+     * (case-insensitive), best match first; see {@link NGramIndex}.
+     */
+    public synchronized List<User> search(String query) {
+        ensureIndexed();
+        List<User> out = new ArrayList<>();
+        for (String username : searchIndex.search(query, Integer.MAX_VALUE)) {
+            User user = findByUsername(username);
+            if (user != null) {
+                out.add(user);
+            }
+        }
+        return out;
+    }
+
+    public synchronized void delete(String username) {
+        ensureIndexed();
+        unindex(username);
         byUsername.remove(username);
+        if (store != null) {
+            store.delete(username);
+        }
     }
 
-    public void clear() {
+    public synchronized void clear() {
         byUsername.clear();
+        clearIndexes();
+        indexed = true; // nothing left to index
+        if (store != null) {
+            store.clear();
+        }
+    }
+
+    // ---------------- Indexes ----------------
+
+    private void ensureIndexed() {
+        if (indexed) {
+            return;
+        }
+        indexed = store.size() == 0; // nothing to load
+        if (indexed) {
+            return;
+        }
+        for (String name : store.usernames()) {
+            User cached = byUsername.get(name);
+            User user = cached != null ? cached : store.load(name);
+            if (user != null) {
+                index(user);
+            }
+        }
+        indexed = true;
+    }
+
+    private void index(User user) {
+        String username = user.getUsername();
+        String email = normaliseEmail(user.getEmail());
+        String previous = emailByUsername.put(username, email);
+        if (previous != null && !previous.equals(email)) {
+            usernameByEmail.remove(previous);
+        }
+        usernameByEmail.put(email, username);
+        searchIndex.put(username, username + '\u0000' + user.getFullName() + '\u0000' + user.getEmail());
+    }
+
+    private void unindex(String username) {
+        String email = emailByUsername.remove(username);
+        if (email != null) {
+            usernameByEmail.remove(email);
+        }
+        searchIndex.remove(username);
+    }
+
+    private void clearIndexes() {
+        searchIndex.clear();
+        usernameByEmail.clear();
+        emailByUsername.clear();
+    }
+
+    private static String normaliseEmail(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
     }
 }
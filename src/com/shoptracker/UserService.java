@@ -1,14 +1,18 @@
 package com.shoptracker;
 
-import java.util.ArrayList;
+import com.shoptracker.ActivityLogService.Action;
+import com.shoptracker.ActivityLogService.Outcome;
+
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Provides user management operations:
+ * - Authenticate / start sessions
  * - Create/delete user
  * - Search users
- * - Change roles
+ * - Change roles, activate/deactivate (revoking the user's sessions)
  * - Reset password
  * Uses AccessControl for authorization and ActivityLogService for audit logging.
  */
@@ -17,7 +21,13 @@ public final class UserService {
     private final UserRepository repo;
     private final AccessControl accessControl;
     private final ActivityLogService logService;
-    private static final String MSG_ACCESS_DENIED = "ACCESS DENIED";
+    private final SessionManager sessions;
+
+    private static final MetricsRegistry METRICS = MetricsRegistry.getInstance();
+    private final LatencyHistogram authTimer = METRICS.histogram("user.authenticate");
+    private final LatencyHistogram searchTimer = METRICS.histogram("user.searchUsers");
+    private final LongAdder loginFailures = METRICS.counter("user.login.failed");
+    private final LongAdder deniedCount = METRICS.counter("user.denied");
 
 
     // Constructor used by tests or services
@@ -27,44 +37,108 @@ public final class UserService {
 
     // Full constructor
     public UserService(UserRepository repo, AccessControl accessControl) {
+        this(repo, accessControl, SessionManager.getInstance());
+    }
+
+    public UserService(UserRepository repo, AccessControl accessControl, SessionManager sessions) {
         this.repo = repo;
         this.accessControl = accessControl;
         this.logService = ActivityLogService.getInstance();
+        this.sessions = sessions;
+    }
+
+    // ---------------- LOGIN ----------------
+
+    public Optional<User> authenticate(String username, String password) {
+        long start = System.nanoTime();
+        try {
+            Optional<User> user = doAuthenticate(username, password);
+            if (user.isEmpty()) {
+                loginFailures.increment();
+            }
+            return user;
+        } finally {
+            authTimer.recordSince(start);
+        }
+    }
+
+    private Optional<User> doAuthenticate(String username, String password) {
+        User user = repo.findByUsername(username);
+        if (user == null) {
+            PasswordHasher.getInstance().verifyDummy(password); // same cost as a wrong password
+            logService.log(Action.LOGIN, username, null, Outcome.FAILED);
+            return Optional.empty();
+        }
+        if (!user.checkPassword(password)) {
+            logService.log(Action.LOGIN, username, null, Outcome.FAILED);
+            return Optional.empty();
+        }
+        if (!user.isActive()) {
+            logService.log(Action.LOGIN, username, null, Outcome.DENIED, "inactive");
+            return Optional.empty();
+        }
+        if (PasswordHasher.getInstance().needsRehash(user.getPasswordHash())) {
+            user.setPassword(password); // upgrade to the current cost
+            repo.save(user);
+        }
+
+        logService.log(Action.LOGIN, username, null, Outcome.SUCCESS);
+        return Optional.of(user);
+    }
+
+    /**
+     * Authenticates and starts a session; the UI passes the session to the
+     * services instead of the User object.
+     */
+    public Optional<Session> login(String username, String password) {
+        long generation = sessions.generation(username); // before the account is read
+        return authenticate(username, password).map(user -> sessions.start(user, generation));
+    }
+
+    public void logout(Session session) {
+        sessions.end(session);
+        logService.log(Action.LOGOUT, session.getUsername(), null, Outcome.SUCCESS);
     }
 
     // ---------------- CREATE USER ----------------
 
-    public boolean createUser(User actor, User newUser) {
+    public boolean createUser(Actor actor, User newUser) {
         if (!accessControl.canManageUsers(actor)) {
-            logService.log(MSG_ACCESS_DENIED + safe(actor) + " tried to create user " + newUser.getUsername());
-            return false;
+            logService.log(Action.CREATE_USER, safe(actor), newUser.getUsername(), Outcome.DENIED);
+            return denied();
         }
 
         if (repo.exists(newUser.getUsername())) {
-            logService.log("User creation FAILED (duplicate username): " + newUser.getUsername());
+            logService.log(Action.CREATE_USER, safe(actor), newUser.getUsername(), Outcome.FAILED, "duplicate username");
+            return false;
+        }
+
+        if (repo.findByEmail(newUser.getEmail()) != null) {
+            logService.log(Action.CREATE_USER, safe(actor), newUser.getUsername(), Outcome.FAILED, "duplicate email");
             return false;
         }
 
         repo.save(newUser);
-        logService.log("User created: " + newUser.getUsername() + " by " + safe(actor));
+        logService.log(Action.CREATE_USER, safe(actor), newUser.getUsername(), Outcome.SUCCESS);
         return true;
     }
 
     // ---------------- DELETE USER ----------------
 
-    public boolean deleteUser(User actor, String username) {
+    public boolean deleteUser(Actor actor, String username) {
         if (!accessControl.canManageUsers(actor)) {
-            logService.log(MSG_ACCESS_DENIED + safe(actor) + " tried to delete user " + username);
-            return false;
+            logService.log(Action.DELETE_USER, safe(actor), username, Outcome.DENIED);
+            return denied();
         }
 
         if (!repo.exists(username)) {
-            logService.log("User deletion FAILED (not found): " + username);
+            logService.log(Action.DELETE_USER, safe(actor), username, Outcome.FAILED, "not found");
             return false;
         }
 
         repo.delete(username);
-        logService.log("User deleted: " + username + " by " + safe(actor));
+        sessions.invalidateUser(username);
+        logService.log(Action.DELETE_USER, safe(actor), username, Outcome.SUCCESS);
         return true;
     }
 
@@ -77,25 +151,20 @@ public final class UserService {
     // ---------------- SEARCH ----------------
 
     public List<User> searchUsers(String query) {
-        String q = query.toLowerCase();
-        List<User> out = new ArrayList<>();
-
-        for (User u : repo.findAll()) {
-            if (u.getUsername().toLowerCase().contains(q)
-                    || u.getFullName().toLowerCase().contains(q)
-                    || u.getEmail().toLowerCase().contains(q)) {
-                out.add(u);
-            }
+        long start = System.nanoTime();
+        try {
+            return repo.search(query);
+        } finally {
+            searchTimer.recordSince(start);
         }
-        return out;
     }
 
     // ---------------- CHANGE ROLE ----------------
 
-    public void changeUserRole(User actor, String targetUsername, Role newRole) {
+    public void changeUserRole(Actor actor, String targetUsername, Role newRole) {
         if (!accessControl.canManageUsers(actor)) {
-            logService.log(MSG_ACCESS_DENIED + safe(actor) +
-                    " tried to change role for " + targetUsername);
+            logService.log(Action.CHANGE_ROLE, safe(actor), targetUsername, Outcome.DENIED);
+            denied();
             throw new SecurityException("User does not have permission to change roles.");
         }
 
@@ -103,23 +172,48 @@ public final class UserService {
         Role old = target.getRole();
         target.setRole(newRole);
         repo.save(target);
+        sessions.invalidateUser(targetUsername);
 
-        logService.log("Role changed for " + targetUsername + ": " + old + " -> " + newRole +
-                " by " + safe(actor));
+        logService.log(Action.CHANGE_ROLE, safe(actor), targetUsername, Outcome.SUCCESS, old, newRole);
     }
 
-    // ---------------- RESET PASSWORD ----------------
+    // ---------------- ACTIVATE / DEACTIVATE ----------------
 
-    public String resetPassword(String username, String email) {
-        Optional<User> found = repo.find(username);
-        if (found.isEmpty()) {
-            logService.log("Password reset FAILED: user not found: " + username);
-            throw new IllegalArgumentException("User not found: " + username);
+    /**
+     * Deactivating a user ends all of their sessions and blocks new logins.
+     */
+    public boolean setUserActive(Actor actor, String username, boolean active) {
+        if (!accessControl.canManageUsers(actor)) {
+            logService.log(Action.SET_ACTIVE, safe(actor), username, Outcome.DENIED);
+            return denied();
         }
 
-        User user = found.get();
-        if (!user.getEmail().equalsIgnoreCase(email)) {
-            logService.log("Password reset FAILED for " + username + " (email mismatch)");
+        User target = repo.findByUsername(username);
+        if (target == null) {
+            logService.log(Action.SET_ACTIVE, safe(actor), username, Outcome.FAILED, "not found");
+            return false;
+        }
+
+        boolean old = target.isActive();
+        target.setActive(active);
+        repo.save(target);
+        if (!active) {
+            sessions.invalidateUser(username);
+        }
+        logService.log(Action.SET_ACTIVE, safe(actor), username, Outcome.SUCCESS, old, active);
+        return true;
+    }
+
+    // ---------------- RESET PASSWORD ----------------
+
+    public String resetPassword(String username, String email) {
+        User user = email == null ? null : repo.findByEmail(email);
+        if (user == null || !user.getUsername().equals(username)) {
+            if (!repo.exists(username)) {
+                logService.log(Action.RESET_PASSWORD, null, username, Outcome.FAILED, "user not found");
+                throw new IllegalArgumentException("User not found: " + username);
+            }
+            logService.log(Action.RESET_PASSWORD, null, username, Outcome.FAILED, "email mismatch");
             throw new SecurityException("Email does not match stored email.");
         }
 
@@ -127,7 +221,7 @@ public final class UserService {
         user.setPassword(temp);
         repo.save(user);
 
-        logService.log("Password reset for " + username);
+        logService.log(Action.RESET_PASSWORD, null, username, Outcome.SUCCESS);
         return temp;
     }
 
@@ -138,7 +232,13 @@ public final class UserService {
                 .orElseThrow(() -> new IllegalArgumentException("Target user not found: " + username));
     }
 
-    private String safe(User user) {
-        return (user == null ? "<null>" : user.getUsername());
+    // counts a permission failure; returns false for "return denied();"
+    private boolean denied() {
+        deniedCount.increment();
+        return false;
+    }
+
+    private String safe(Actor actor) {
+        return (actor == null ? "<null>" : actor.getUsername());
     }
 }
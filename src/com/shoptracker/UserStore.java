@@ -0,0 +1,36 @@
+package com.shoptracker;
+
+import java.util.Collection;
+
+/**
+ * Backing storage for {@link UserRepository}. Implementations are the system
+ * of record; the repository keeps a cache of hot users in front of them.
+ */
+public interface UserStore {
+
+    /**
+     * @return the stored user, or null if there is none
+     */
+    User load(String username);
+
+    boolean contains(String username);
+
+    /**
+     * @return a copy of every stored username
+     */
+    Collection<String> usernames();
+
+    /**
+     * @return number of stored users, without loading any of them
+     */
+    int size();
+
+    /**
+     * Inserts or replaces the user's record.
+     */
+    void save(User user);
+
+    void delete(String username);
+
+    void clear();
+}
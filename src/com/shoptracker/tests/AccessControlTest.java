@@ -1,9 +1,13 @@
 package com.shoptracker.tests;
 
-import com.shoptracker.AccessControl;
-import com.shoptracker.Role;
-import com.shoptracker.User;
+import com.shoptracker.*;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumSet;
+import java.util.Properties;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -20,8 +24,8 @@ final class AccessControlTest {
     void adminAndManagerCanManageStock() {
         AccessControl ac = AccessControl.getInstance();
 
-        User admin = new User("admin", "pw", "Admin User", "admin@shop.com", Role.ADMIN);
-        User manager = new User("manager", "pw", "Manager User", "manager@shop.com", Role.MANAGER);
+        Session admin = TestSessions.signIn(new User("admin", "pw", "Admin User", "admin@shop.com", Role.ADMIN));
+        Session manager = TestSessions.signIn(new User("manager", "pw", "Manager User", "manager@shop.com", Role.MANAGER));
 
         assertTrue(ac.canManageStock(admin));
         assertTrue(ac.canManageStock(manager));
@@ -31,7 +35,7 @@ final class AccessControlTest {
     void userAndNullCannotManageStock() {
         AccessControl ac = AccessControl.getInstance();
 
-        User user = new User("user", "pw", "Regular User", "user@shop.com", Role.USER);
+        Session user = TestSessions.signIn(new User("user", "pw", "Regular User", "user@shop.com", Role.USER));
 
         assertFalse(ac.canManageStock(user));
         assertFalse(ac.canManageStock(null));
@@ -41,8 +45,8 @@ final class AccessControlTest {
     void adminAndManagerCanManageUsers() {
         AccessControl ac = AccessControl.getInstance();
 
-        User admin = new User("admin", "pw", "Admin User", "admin@shop.com", Role.ADMIN);
-        User manager = new User("manager", "pw", "Manager User", "manager@shop.com", Role.MANAGER);
+        Session admin = TestSessions.signIn(new User("admin", "pw", "Admin User", "admin@shop.com", Role.ADMIN));
+        Session manager = TestSessions.signIn(new User("manager", "pw", "Manager User", "manager@shop.com", Role.MANAGER));
 
         assertTrue(ac.canManageUsers(admin));
         assertTrue(ac.canManageUsers(manager));
@@ -52,7 +56,7 @@ final class AccessControlTest {
     void userAndNullCannotManageUsers() {
         AccessControl ac = AccessControl.getInstance();
 
-        User user = new User("user", "pw", "Regular User", "user@shop.com", Role.USER);
+        Session user = TestSessions.signIn(new User("user", "pw", "Regular User", "user@shop.com", Role.USER));
 
         assertFalse(ac.canManageUsers(user));
         assertFalse(ac.canManageUsers(null));
@@ -62,9 +66,9 @@ final class AccessControlTest {
     void isAdminChecksCorrectRole() {
         AccessControl ac = AccessControl.getInstance();
 
-        User admin = new User("admin", "pw", "Admin", "a@x.com", Role.ADMIN);
-        User manager = new User("mgr", "pw", "Manager", "m@x.com", Role.MANAGER);
-        User normal = new User("bob", "pw", "Bob", "b@x.com", Role.USER);
+        Session admin = TestSessions.signIn(new User("admin", "pw", "Admin", "a@x.com", Role.ADMIN));
+        Session manager = TestSessions.signIn(new User("mgr", "pw", "Manager", "m@x.com", Role.MANAGER));
+        Session normal = TestSessions.signIn(new User("bob", "pw", "Bob", "b@x.com", Role.USER));
 
         assertTrue(ac.isAdmin(admin));
         assertFalse(ac.isAdmin(manager));
@@ -76,13 +80,66 @@ final class AccessControlTest {
     void isManagerChecksCorrectRole() {
         AccessControl ac = AccessControl.getInstance();
 
-        User admin = new User("admin", "pw", "Admin", "a@x.com", Role.ADMIN);
-        User manager = new User("mgr", "pw", "Manager", "m@x.com", Role.MANAGER);
-        User normal = new User("bob", "pw", "Bob", "b@x.com", Role.USER);
+        Session admin = TestSessions.signIn(new User("admin", "pw", "Admin", "a@x.com", Role.ADMIN));
+        Session manager = TestSessions.signIn(new User("mgr", "pw", "Manager", "m@x.com", Role.MANAGER));
+        Session normal = TestSessions.signIn(new User("bob", "pw", "Bob", "b@x.com", Role.USER));
 
         assertTrue(ac.isManager(manager));
         assertFalse(ac.isManager(admin));
         assertFalse(ac.isManager(normal));
         assertFalse(ac.isManager(null));
     }
+
+    @Test
+    void defaultRoleTableMatchesPermissionSets() {
+        AccessControl ac = AccessControl.getInstance();
+
+        assertEquals(EnumSet.allOf(Permission.class), ac.permissionSet(Role.ADMIN));
+        assertEquals(EnumSet.of(Permission.STOCK_ADJUST), ac.permissionSet(Role.USER));
+    }
+
+    @Test
+    void configOverridesListedRolesOnly() {
+        Properties config = new Properties();
+        config.setProperty("manager", "STOCK_ADJUST, STOCK_EDIT, log_view");
+        AccessControl ac = AccessControl.fromProperties(config);
+
+        Session manager = TestSessions.signIn(new User("mgr", "pw", "Manager", "m@x.com", Role.MANAGER));
+        Session admin = TestSessions.signIn(new User("admin", "pw", "Admin", "a@x.com", Role.ADMIN));
+
+        assertTrue(ac.canManageStock(manager));
+        assertTrue(ac.canViewLog(manager));
+        assertFalse(ac.canEditPrices(manager));
+        assertFalse(ac.canManageUsers(manager));
+        assertTrue(ac.canManageUsers(admin));
+        // the same session, judged by the built-in table
+        assertTrue(AccessControl.getInstance().canEditPrices(manager));
+    }
+
+    @Test
+    void unknownNamesInConfigAreRejected() {
+        Properties badRole = new Properties();
+        badRole.setProperty("OWNER", "STOCK_EDIT");
+        Properties badPermission = new Properties();
+        badPermission.setProperty("USER", "FLY");
+
+        assertThrows(IllegalArgumentException.class, () -> AccessControl.fromProperties(badRole));
+        assertThrows(IllegalArgumentException.class, () -> AccessControl.fromProperties(badPermission));
+    }
+
+    @Test
+    void loadsConfigFileAndServicesHonourPriceEdit(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("permissions.properties");
+        Files.writeString(file, "MANAGER = STOCK_ADJUST, STOCK_EDIT\n");
+        AccessControl ac = AccessControl.load(file);
+        Session admin = TestSessions.signIn(new User("admin", "pw", "Admin", "a@x.com", Role.ADMIN));
+        Session manager = TestSessions.signIn(new User("mgr", "pw", "Manager", "m@x.com", Role.MANAGER));
+        InventoryService inventory = new InventoryService(ac);
+        inventory.addProduct(admin, new Product("P1", "Plums", 5, 2.0));
+
+        assertTrue(inventory.updateProduct(manager, "P1", 8, 2.0));
+        assertFalse(inventory.updateProduct(manager, "P1", 8, 2.5));
+        assertTrue(inventory.updateProduct(admin, "P1", 8, 2.5));
+        assertEquals(2.5, inventory.getProduct("P1").getPrice());
+    }
 }
@@ -1,13 +1,26 @@
 package com.shoptracker.tests;
 
-import com.shoptracker.ActivityLogService;
+import com.shoptracker.*;
+import com.shoptracker.ActivityLogService.Action;
+import com.shoptracker.ActivityLogService.LogRecord;
+import com.shoptracker.ActivityLogService.Outcome;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 final class ActivityLogServiceTest {
 
+    @TempDir
+    Path dir;
+
     private ActivityLogService logService;
 
     @BeforeEach
@@ -24,4 +37,141 @@ final class ActivityLogServiceTest {
         assertEquals(2, logService.size());
         assertTrue(logService.getEntries().get(0).contains("Test entry 1"));
     }
+
+    @Test
+    void structuredRecordsRenderOnReadAndFilter() {
+        logService.log(Action.CHANGE_ROLE, "admin", "bob", Outcome.SUCCESS, Role.USER, Role.MANAGER);
+        logService.log(Action.DELETE_USER, "manager", "bob", Outcome.DENIED);
+        logService.log("free text");
+
+        assertTrue(logService.getEntries().get(0).endsWith("Change role: bob by admin (USER -> MANAGER)"));
+        assertTrue(logService.getEntries().get(1).endsWith("Delete user DENIED: bob by manager"));
+        assertTrue(logService.getEntries().get(2).endsWith(" - free text"));
+
+        List<LogRecord> denied = logService.getRecordsByActor("manager");
+        assertEquals(1, denied.size());
+        assertEquals(Outcome.DENIED, denied.get(0).getOutcome());
+        assertEquals(1, logService.getRecords(Action.CHANGE_ROLE).size());
+    }
+
+    @Test
+    void userServiceWritesStructuredRecords() {
+        UserRepository repo = UserRepository.getInstance();
+        repo.clear();
+        User adminAccount = new User("admin", "pw", "Admin", "admin@x.com", Role.ADMIN);
+        Session admin = TestSessions.signIn(adminAccount);
+        User userAccount = new User("user", "pw", "User", "user@x.com", Role.USER);
+        Session user = TestSessions.signIn(userAccount);
+        repo.save(adminAccount);
+        repo.save(userAccount);
+        UserService service = new UserService(repo);
+
+        service.deleteUser(user, "admin");
+        service.deleteUser(admin, "user");
+
+        List<LogRecord> deletes = logService.getRecords(Action.DELETE_USER);
+        assertEquals(2, deletes.size());
+        assertEquals(Outcome.DENIED, deletes.get(0).getOutcome());
+        assertEquals("user", deletes.get(0).getActor());
+        assertEquals(Outcome.SUCCESS, deletes.get(1).getOutcome());
+        assertEquals("user", deletes.get(1).getTarget());
+    }
+
+    @Test
+    void ringKeepsOnlyTheNewestEntries() {
+        ActivityLogService small = new ActivityLogService(8);
+        for (int i = 0; i < 20; i++) {
+            small.log("entry " + i);
+        }
+
+        List<String> entries = small.getEntries();
+        assertEquals(8, small.size());
+        assertEquals(8, entries.size());
+        assertTrue(entries.get(0).endsWith("entry 12"));
+        assertTrue(entries.get(7).endsWith("entry 19"));
+    }
+
+    @Test
+    void concurrentLoggingLosesNothingWithinCapacity() throws Exception {
+        ActivityLogService log = new ActivityLogService(1024);
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            int id = t;
+            threads[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < 200; i++) {
+                    log.log("t" + id + " " + i);
+                }
+            });
+            threads[t].start();
+        }
+        start.countDown();
+        for (Thread t : threads) {
+            t.join();
+        }
+
+        assertEquals(800, log.getEntries().size());
+    }
+
+    @Test
+    void fileSinkWritesAndRolls() throws Exception {
+        ActivityLogService log = new ActivityLogService(64);
+        log.log("before sink"); // not written: the sink starts at the current tail
+        log.startFileSink(dir, 200, 2);
+        for (int i = 0; i < 30; i++) {
+            log.log("line " + i);
+        }
+        log.stopFileSink();
+
+        String current = Files.readString(dir.resolve("activity.log"));
+        assertTrue(current.contains("line 29"));
+        assertTrue(Files.exists(dir.resolve("activity.log.1")));
+        assertFalse(Files.exists(dir.resolve("activity.log.3")));
+        assertFalse(current.contains("before sink"));
+    }
+
+    @Test
+    void fileSinkRollsOnBytesNotChars() throws Exception {
+        ActivityLogService log = new ActivityLogService(64);
+        log.startFileSink(dir, 200, 5);
+        String euros = "€".repeat(20); // 20 chars, 60 bytes
+        for (int i = 0; i < 12; i++) {
+            log.log(euros);
+        }
+        log.stopFileSink();
+
+        long longestLine = 0;
+        for (String line : Files.readAllLines(dir.resolve("activity.log.1"))) {
+            longestLine = Math.max(longestLine, line.getBytes(StandardCharsets.UTF_8).length + 1L);
+        }
+        // a file only grows past the limit by the line that crossed it
+        assertTrue(Files.size(dir.resolve("activity.log.1")) < 200 + longestLine);
+    }
+
+    @Test
+    void fileSinkThatFailsToWriteCanBeRestarted() throws Exception {
+        // a non-empty directory where the rolled file should go makes the roll fail
+        Files.createDirectories(dir.resolve("activity.log.1").resolve("blocker"));
+        ActivityLogService log = new ActivityLogService(64);
+        log.startFileSink(dir, 10, 1);
+        log.log("first line fills the file");
+        log.log("second line forces a roll");
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (log.isFileSinkRunning() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertFalse(log.isFileSinkRunning());
+
+        Path other = dir.resolve("other");
+        log.startFileSink(other, 1 << 20, 2);
+        assertTrue(log.isFileSinkRunning());
+        log.log("after restart");
+        log.stopFileSink();
+        assertTrue(Files.readString(other.resolve("activity.log")).contains("after restart"));
+    }
 }
@@ -0,0 +1,81 @@
+package com.shoptracker.tests;
+
+import com.shoptracker.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class AsyncServiceTest {
+
+    private UserRepository repo;
+    private Session admin;
+    private Session user;
+
+    @BeforeEach
+    void setUp() {
+        repo = UserRepository.getInstance();
+        repo.clear();
+
+        User adminAccount = new User("admin", "pw", "Admin", "admin@x.com", Role.ADMIN);
+
+        admin = TestSessions.signIn(adminAccount);
+        User userAccount = new User("user", "pw", "User", "user@x.com", Role.USER);
+        user = TestSessions.signIn(userAccount);
+        repo.save(adminAccount);
+        repo.save(userAccount);
+    }
+
+    @Test
+    void inventoryCallsCompleteOnBackgroundThread() throws Exception {
+        AtomicReference<Thread> worker = new AtomicReference<>();
+        Executor recording = task -> BackgroundExecutor.getInstance().execute(() -> {
+            worker.set(Thread.currentThread());
+            task.run();
+        });
+        AsyncInventoryService async =
+                new AsyncInventoryService(new InventoryService(AccessControl.getInstance()), recording);
+
+        assertTrue(async.addProduct(admin, new Product("Z1", "Zucchini", 4, 0.9)).get(5, TimeUnit.SECONDS));
+        assertTrue(async.adjustQuantity(user, "Z1", 2).get(5, TimeUnit.SECONDS));
+        assertNotSame(Thread.currentThread(), worker.get());
+        assertEquals(6, async.getAllProducts().get(5, TimeUnit.SECONDS).get(0).getQuantity());
+    }
+
+    @Test
+    void userServiceFailuresCompleteExceptionally() {
+        AsyncUserService async = new AsyncUserService(new UserService(repo, AccessControl.getInstance()));
+
+        ExecutionException ex = assertThrows(ExecutionException.class,
+                () -> async.changeUserRole(user, "admin", Role.USER).get(5, TimeUnit.SECONDS));
+        assertInstanceOf(SecurityException.class, ex.getCause());
+    }
+
+    @Test
+    void authenticateChecksCredentials() throws Exception {
+        AsyncUserService async = new AsyncUserService(new UserService(repo, AccessControl.getInstance()));
+
+        assertTrue(async.authenticate("admin", "pw").get(5, TimeUnit.SECONDS).isPresent());
+        assertTrue(async.authenticate("admin", "wrong").get(5, TimeUnit.SECONDS).isEmpty());
+        assertTrue(async.authenticate("ghost", "pw").get(5, TimeUnit.SECONDS).isEmpty());
+    }
+
+    @Test
+    void saturatedLoginPoolFailsFastInsteadOfQueueingOnSharedPool() {
+        Executor full = task -> {
+            throw new RejectedExecutionException("full");
+        };
+        AsyncUserService async = new AsyncUserService(
+                new UserService(repo, AccessControl.getInstance()), BackgroundExecutor.getInstance(), full);
+
+        ExecutionException ex = assertThrows(ExecutionException.class,
+                () -> async.authenticate("admin", "pw").get(5, TimeUnit.SECONDS));
+        assertInstanceOf(RejectedExecutionException.class, ex.getCause());
+    }
+}
@@ -0,0 +1,144 @@
+package com.shoptracker.tests;
+
+import com.shoptracker.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class CatalogueImporterTest {
+
+    @TempDir
+    Path dir;
+
+    private InventoryService inventory;
+    private Session admin;
+
+    @BeforeEach
+    void setUp() {
+        inventory = new InventoryService(AccessControl.getInstance());
+        admin = TestSessions.signIn(new User("admin", "pw", "Admin", "admin@x.com", Role.ADMIN));
+    }
+
+    @Test
+    void importsValidLinesAndReportsRejectsByLine() throws Exception {
+        Path csv = write(
+                "id,name,quantity,price",
+                "A1,Apples,10,0.5",
+                "A2,\"Pears, tinned\",4,1.25",
+                "A3,Bananas,-1,0.3",
+                "",
+                "A4,Cherries,x,2",
+                "A1,Apples again,1,1",
+                "A5,\"Quote \"\"special\"\"\",2,3");
+
+        CatalogueImporter.ImportResult result = new CatalogueImporter(inventory).importCsv(admin, csv);
+
+        assertTrue(result.isApplied());
+        assertEquals(3, result.getImportedCount());
+        assertEquals(3, result.getRejectedCount());
+        List<CatalogueImporter.Reject> rejects = result.getRejects();
+        assertEquals(4, rejects.get(0).getLine());
+        assertEquals(6, rejects.get(1).getLine());
+        assertEquals(7, rejects.get(2).getLine());
+        assertTrue(rejects.get(2).getReason().contains("first on line 2"));
+
+        assertEquals("Pears, tinned", inventory.getProduct("A2").getName());
+        assertEquals("Quote \"special\"", inventory.getProduct("A5").getName());
+        assertEquals(10, inventory.getProduct("A1").getQuantity());
+    }
+
+    @Test
+    void smallChunksKeepLineNumbersAndHistoryBlock() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 1; i <= 5000; i++) {
+            sb.append(i == 2500 ? "broken line" : "P" + i + ",Product " + i + "," + i + ",1.5").append('\n');
+        }
+        sb.append("P9999,").append("x".repeat(300)).append(",1,1"); // longer than a chunk, no final newline
+        Path csv = dir.resolve("big.csv");
+        Files.writeString(csv, sb.toString(), StandardCharsets.UTF_8);
+
+        CatalogueImporter importer = new CatalogueImporter(inventory, ForkJoinPool.commonPool(), 64);
+        CatalogueImporter.ImportResult result = importer.importCsv(admin, csv);
+
+        assertEquals(5000, result.getImportedCount());
+        assertEquals(1, result.getRejectedCount());
+        assertEquals(2500, result.getRejects().get(0).getLine());
+        assertEquals(5000, inventory.getAllProducts().size());
+        assertEquals(5000, inventory.getHistory().size());
+        assertEquals(300, inventory.getProduct("P9999").getName().length());
+    }
+
+    @Test
+    void userWithoutStockPermissionImportsNothing() throws Exception {
+        Session clerk = TestSessions.signIn(new User("clerk", "pw", "Clerk", "clerk@x.com", Role.USER));
+        Path csv = write("A1,Apples,10,0.5");
+
+        CatalogueImporter.ImportResult result = new CatalogueImporter(inventory).importCsv(clerk, csv);
+
+        assertFalse(result.isApplied());
+        assertEquals(0, result.getImportedCount());
+        assertNull(inventory.getProduct("A1"));
+    }
+
+    @Test
+    void exportRoundTripsThroughImport() throws Exception {
+        inventory.addProduct(admin, new Product("A1", "Apples", 10, 0.5));
+        inventory.addProduct(admin, new Product("A2", "Pears, \"tinned\"", 4, 12345678.25));
+
+        Path out = dir.resolve("catalogue.csv");
+        assertEquals(2, new CatalogueImporter(inventory).exportCsv(out));
+        assertEquals(CatalogueImporter.HEADER, Files.readAllLines(out).get(0));
+
+        InventoryService copy = new InventoryService(AccessControl.getInstance());
+        CatalogueImporter.ImportResult result = new CatalogueImporter(copy).importCsv(admin, out);
+
+        assertEquals(2, result.getImportedCount());
+        assertEquals(0, result.getRejectedCount());
+        assertEquals("Pears, \"tinned\"", copy.getProduct("A2").getName());
+        assertEquals(12345678.25, copy.getProduct("A2").getPrice());
+    }
+
+    @Test
+    void importsDuringLiveSalesKeepHistoryInTimeOrder() throws Exception {
+        inventory.addProduct(admin, new Product("TILL", "Till item", 1_000_000, 1.0));
+        Path csv = write("N1,Nuts,5,1.00", "N2,Nails,5,1.00", "N3,Noodles,5,1.00");
+
+        AtomicBoolean done = new AtomicBoolean();
+        Thread till = new Thread(() -> {
+            while (!done.get()) {
+                inventory.adjustQuantity(admin, "TILL", -1);
+            }
+        });
+        till.start();
+        try {
+            CatalogueImporter importer = new CatalogueImporter(inventory);
+            for (int i = 0; i < 500; i++) {
+                assertTrue(importer.importCsv(admin, csv).isApplied());
+            }
+        } finally {
+            done.set(true);
+            till.join();
+        }
+
+        List<InventoryEvent> history = inventory.getHistory();
+        for (int i = 1; i < history.size(); i++) {
+            assertFalse(history.get(i).getTimestamp().isBefore(history.get(i - 1).getTimestamp()),
+                    "event " + i + " is older than the one before it");
+        }
+    }
+
+    private Path write(String... lines) throws Exception {
+        Path csv = dir.resolve("catalogue.csv");
+        Files.write(csv, List.of(lines), StandardCharsets.UTF_8);
+        return csv;
+    }
+}
@@ -0,0 +1,72 @@
+package com.shoptracker.tests;
+
+import com.shoptracker.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class ColumnarHistoryStoreTest {
+
+    private ColumnarHistoryStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new ColumnarHistoryStore();
+    }
+
+    @Test
+    void materialisesEventsWithAllFields() {
+        LocalDateTime at = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        store.append(new InventoryEvent("P1", "Pears", "bob",
+                InventoryEvent.EventType.DECREASE, 7, 6, 1.25, at));
+
+        InventoryEvent e = store.get(0);
+        assertEquals("P1", e.getProductId());
+        assertEquals("Pears", e.getProductName());
+        assertEquals("bob", e.getUsername());
+        assertEquals(InventoryEvent.EventType.DECREASE, e.getType());
+        assertEquals(7, e.getOldQuantity());
+        assertEquals(6, e.getNewQuantity());
+        assertEquals(-1, e.getDelta());
+        assertEquals(1.25, e.getPrice());
+        assertEquals(at, e.getTimestamp());
+    }
+
+    @Test
+    void internsRepeatedStringsAndGrowsPastInitialCapacity() {
+        for (int i = 0; i < 5_000; i++) {
+            store.append(new InventoryEvent("P" + (i % 10), "Item " + (i % 10), "till" + (i % 3),
+                    InventoryEvent.EventType.ADJUST, i, i + 1, 1.0));
+        }
+
+        assertEquals(5_000, store.size());
+        assertEquals(23, store.internedStrings());
+        assertEquals(4_999, store.get(4_999).getOldQuantity());
+        assertEquals("till0", store.get(3).getUsername());
+    }
+
+    @Test
+    void clearResetsStore() {
+        store.append(new InventoryEvent("P1", "Pears", "bob", InventoryEvent.EventType.ADD, 0, 1, 1.0));
+        store.clear();
+
+        assertEquals(0, store.size());
+        assertThrows(IndexOutOfBoundsException.class, () -> store.get(0));
+    }
+
+    @Test
+    void inventoryServiceCanUseColumnarHistory() {
+        Session admin = TestSessions.signIn(new User("admin", "1234", "Admin User", "admin@test.com", Role.ADMIN));
+        InventoryService inventory = new InventoryService(AccessControl.getInstance(), store);
+
+        inventory.addProduct(admin, new Product("A1", "Apples", 3, 0.5));
+        inventory.adjustQuantity(admin, "A1", 2);
+
+        assertEquals(2, inventory.getHistory().size());
+        assertEquals(5, inventory.getHistory().get(1).getNewQuantity());
+    }
+}
@@ -0,0 +1,103 @@
+package com.shoptracker.tests;
+
+import com.shoptracker.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class InventoryEventDispatcherTest {
+
+    private InventoryService inventory;
+    private Session admin;
+
+    @BeforeEach
+    void setUp() {
+        inventory = new InventoryService(AccessControl.getInstance());
+        admin = TestSessions.signIn(new User("admin", "1234", "Admin User", "admin@test.com", Role.ADMIN));
+    }
+
+    @Test
+    void listenersReceiveEventsInHistoryOrderOffTheCallingThread() throws Exception {
+        CountDownLatch done = new CountDownLatch(3);
+        List<InventoryEvent> received = new CopyOnWriteArrayList<>();
+        List<Thread> threads = new CopyOnWriteArrayList<>();
+
+        inventory.addInventoryListener(e -> {
+            received.add(e);
+            threads.add(Thread.currentThread());
+            done.countDown();
+        });
+
+        inventory.addProduct(admin, new Product("E1", "Eggs", 6, 2.0));
+        inventory.adjustQuantity(admin, "E1", 6);
+        inventory.decreaseStock("E1");
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(InventoryEvent.EventType.ADD, received.get(0).getType());
+        assertEquals(12, received.get(1).getNewQuantity());
+        assertEquals(11, received.get(2).getNewQuantity());
+        assertNotSame(Thread.currentThread(), threads.get(0));
+    }
+
+    @Test
+    void removedListenerStopsReceiving() throws Exception {
+        CountDownLatch first = new CountDownLatch(1);
+        AtomicLong count = new AtomicLong();
+        InventoryListener listener = e -> {
+            count.incrementAndGet();
+            first.countDown();
+        };
+
+        inventory.addInventoryListener(listener);
+        inventory.addProduct(admin, new Product("E2", "Eggs", 6, 2.0));
+        assertTrue(first.await(5, TimeUnit.SECONDS));
+
+        inventory.removeInventoryListener(listener);
+        inventory.increaseStock("E2");
+        Thread.sleep(100);
+        assertEquals(1, count.get());
+    }
+
+    @Test
+    void fullQueueDropsInsteadOfBlockingAndReportsDrops() throws Exception {
+        InventoryEventDispatcher dispatcher = new InventoryEventDispatcher(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch dropsSeen = new CountDownLatch(1);
+        AtomicLong reported = new AtomicLong();
+
+        dispatcher.addListener(new InventoryListener() {
+            @Override
+            public void onInventoryEvent(InventoryEvent event) {
+                try {
+                    release.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            @Override
+            public void eventsDropped(long count) {
+                reported.addAndGet(count);
+                dropsSeen.countDown();
+            }
+        });
+
+        InventoryEvent e = new InventoryEvent("X", "X", "admin", InventoryEvent.EventType.ADJUST, 0, 1);
+        for (int i = 0; i < 50; i++) {
+            dispatcher.publish(e); // must never block
+        }
+        assertTrue(dispatcher.getDroppedCount() > 0);
+
+        release.countDown();
+        dispatcher.publish(e);
+        assertTrue(dropsSeen.await(5, TimeUnit.SECONDS));
+        assertTrue(reported.get() > 0);
+    }
+}
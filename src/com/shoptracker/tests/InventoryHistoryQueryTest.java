@@ -0,0 +1,230 @@
+package com.shoptracker.tests;
+
+import com.shoptracker.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class InventoryHistoryQueryTest {
+
+    private static final LocalDateTime DAY_1 = LocalDateTime.of(2025, 3, 1, 9, 0);
+    private static final LocalDateTime DAY_2 = DAY_1.plusDays(1);
+    private static final LocalDateTime DAY_3 = DAY_1.plusDays(2);
+
+    private InventoryService inventory;
+
+    @BeforeEach
+    void setUp() {
+        HistoryStore store = new InMemoryHistoryStore();
+        store.append(event("A1", "alice", InventoryEvent.EventType.ADD, 0, 10, DAY_1));
+        store.append(event("B1", "bob", InventoryEvent.EventType.ADD, 0, 5, DAY_1.plusHours(1)));
+        store.append(event("A1", "bob", InventoryEvent.EventType.ADJUST, 10, 8, DAY_2));
+        store.append(event("A1", "alice", InventoryEvent.EventType.ADJUST, 8, 7, DAY_2.plusHours(2)));
+        store.append(event("B1", "alice", InventoryEvent.EventType.DECREASE, 5, 4, DAY_3));
+        store.append(event("A1", "bob", InventoryEvent.EventType.SET, 7, 20, DAY_3.plusHours(1)));
+
+        // indexes are built from the existing store
+        inventory = new InventoryService(AccessControl.getInstance(), store);
+    }
+
+    @Test
+    void historyForProductIsOldestFirst() {
+        List<InventoryEvent> events = inventory.historyFor("A1", null, null, 100, 0);
+
+        assertEquals(4, events.size());
+        assertEquals(10, events.get(0).getNewQuantity());
+        assertEquals(20, events.get(3).getNewQuantity());
+    }
+
+    @Test
+    void historyForProductHonoursDateRange() {
+        List<InventoryEvent> events = inventory.historyFor("A1", DAY_2, DAY_3, 100, 0);
+
+        assertEquals(2, events.size());
+        assertEquals(8, events.get(0).getNewQuantity());
+        assertEquals(7, events.get(1).getNewQuantity());
+    }
+
+    @Test
+    void historyForProductPaginates() {
+        assertEquals(7, inventory.historyFor("A1", null, null, 1, 2).get(0).getNewQuantity());
+        assertEquals(1, inventory.historyFor("A1", null, null, 5, 3).size());
+        assertTrue(inventory.historyFor("A1", null, null, 5, 10).isEmpty());
+        assertTrue(inventory.historyFor("NOPE", null, null, 5, 0).isEmpty());
+    }
+
+    @Test
+    void historyByUserAndType() {
+        assertEquals(3, inventory.historyByUser("alice", 10, 0).size());
+        assertEquals(1, inventory.historyByUser("bob", 1, 1).size());
+        assertEquals(2, inventory.historyByType(InventoryEvent.EventType.ADJUST, 10, 0).size());
+        assertTrue(inventory.historyByType(InventoryEvent.EventType.REMOVE, 10, 0).isEmpty());
+    }
+
+    @Test
+    void historyBetweenUsesTimeOrder() {
+        List<InventoryEvent> events = inventory.historyBetween(DAY_1.plusMinutes(30), DAY_3, 10, 0);
+
+        assertEquals(3, events.size());
+        assertEquals("B1", events.get(0).getProductId());
+    }
+
+    @Test
+    void filterCombinesProductUserAndDates() {
+        HistoryFilter aliceOnA1 = HistoryFilter.all().forProduct("A1").byUser("alice");
+
+        assertEquals(2, inventory.countHistory(aliceOnA1));
+        assertEquals(7, inventory.queryHistory(aliceOnA1, 1, 1).get(0).getNewQuantity());
+        assertEquals(1, inventory.countHistory(aliceOnA1.between(DAY_2, null)));
+
+        HistoryFilter day2 = HistoryFilter.all().between(DAY_2, DAY_3);
+        assertEquals(2, inventory.countHistory(day2));
+        assertEquals(6, inventory.countHistory(HistoryFilter.all()));
+        assertEquals(0, inventory.countHistory(HistoryFilter.all().byUser("nobody")));
+        assertTrue(inventory.queryHistory(HistoryFilter.all().forProduct("B1").byUser("bob"), 10, 1).isEmpty());
+    }
+
+    @Test
+    void newEventsAreIndexed() {
+        Session admin = TestSessions.signIn(new User("admin", "1234", "Admin User", "admin@test.com", Role.ADMIN));
+        inventory.addProduct(admin, new Product("C1", "Carrots", 3, 0.2));
+        inventory.adjustQuantity(admin, "C1", 4);
+
+        assertEquals(2, inventory.historyFor("C1", null, null, 10, 0).size());
+        assertEquals(2, inventory.historyByUser("admin", 10, 0).size());
+    }
+
+    @Test
+    void quantityAsOfIncludesEventsAtThatInstant() {
+        assertEquals(0, inventory.quantityAsOf("A1", instant(DAY_1.minusSeconds(1))));
+        assertEquals(10, inventory.quantityAsOf("A1", instant(DAY_1)));
+        assertEquals(8, inventory.quantityAsOf("A1", instant(DAY_2.plusHours(1))));
+        assertEquals(20, inventory.quantityAsOf("A1", Instant.MAX));
+        assertEquals(0, inventory.quantityAsOf("NOPE", instant(DAY_3)));
+    }
+
+    @Test
+    void asOfQueriesRejectANullInstant() {
+        NullPointerException e = assertThrows(NullPointerException.class,
+                () -> inventory.quantityAsOf("A1", null));
+        assertEquals("at", e.getMessage());
+        e = assertThrows(NullPointerException.class, () -> inventory.snapshotAsOf(null));
+        assertEquals("at", e.getMessage());
+    }
+
+    @Test
+    void snapshotAsOfRebuildsTheCatalogue() {
+        InventorySnapshot day2 = inventory.snapshotAsOf(instant(DAY_2.plusHours(3)));
+        assertEquals(2, day2.size());
+        assertEquals(7, day2.getProduct("A1").getQuantity());
+        assertEquals(5, day2.getProduct("B1").getQuantity());
+        assertEquals("Item B1", day2.getProduct("B1").getName());
+        assertEquals(1200, day2.getStockValueMinor());
+
+        assertEquals(1, inventory.snapshotAsOf(instant(DAY_1)).size());
+        assertTrue(inventory.snapshotAsOf(instant(DAY_1.minusDays(1))).isEmpty());
+
+        Session admin = TestSessions.signIn(new User("admin", "1234", "Admin User", "admin@test.com", Role.ADMIN));
+        inventory.addProduct(admin, new Product("C1", "Carrots", 3, 0.2));
+        assertEquals(3, inventory.snapshotAsOf(Instant.now()).getProduct("C1").getQuantity());
+        assertTrue(inventory.removeProduct(admin, "C1"));
+        assertFalse(inventory.snapshotAsOf(Instant.now()).contains("C1"));
+        assertEquals(0, inventory.quantityAsOf("C1", Instant.MAX));
+        assertEquals(4, inventory.quantityAsOf("B1", Instant.MAX));
+    }
+
+    @Test
+    void pointInTimeQueriesUseInstantsNotLocalTime() {
+        // 01:30 happens twice in London on 2025-10-26: first in BST, then in GMT
+        Instant firstHalfPast = Instant.parse("2025-10-26T00:30:00Z");
+        Instant secondHalfPast = Instant.parse("2025-10-26T01:30:00Z");
+        HistoryStore store = new ColumnarHistoryStore();
+        store.append(InventoryEvent.ofMinorUnits("D1", "Item D1", "till", InventoryEvent.EventType.ADD,
+                0, 10, 100, firstHalfPast));
+        store.append(InventoryEvent.ofMinorUnits("D1", "Item D1", "till", InventoryEvent.EventType.ADJUST,
+                10, 3, 100, secondHalfPast));
+
+        TimeZone original = TimeZone.getDefault();
+        try {
+            TimeZone.setDefault(TimeZone.getTimeZone("Europe/London"));
+            InventoryService london = new InventoryService(AccessControl.getInstance(), store);
+            assertEquals(10, london.quantityAsOf("D1", secondHalfPast.minusSeconds(1)));
+            assertEquals(3, london.quantityAsOf("D1", secondHalfPast));
+
+            // moving the JVM to another zone does not re-map history
+            TimeZone.setDefault(TimeZone.getTimeZone("America/New_York"));
+            assertEquals(10, london.quantityAsOf("D1", secondHalfPast.minusSeconds(1)));
+            assertEquals(firstHalfPast, store.get(0).getInstant());
+            assertEquals(1, london.countHistory(HistoryFilter.all().between(firstHalfPast, secondHalfPast)));
+        } finally {
+            TimeZone.setDefault(original);
+        }
+    }
+
+    @Test
+    void startupDoesNotWaitForHistoryToBeRead() {
+        CountDownLatch released = new CountDownLatch(1);
+        HistoryStore events = new InMemoryHistoryStore();
+        HistoryStore slow = new HistoryStore() { // every read waits until released
+            @Override
+            public void append(InventoryEvent event) {
+                events.append(event);
+            }
+
+            @Override
+            public int size() {
+                return events.size();
+            }
+
+            @Override
+            public InventoryEvent get(int index) {
+                try {
+                    released.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return events.get(index);
+            }
+
+            @Override
+            public void clear() {
+                events.clear();
+            }
+        };
+        for (int i = 0; i < 100; i++) {
+            slow.append(event("S1", "till", InventoryEvent.EventType.DECREASE, 200 - i, 199 - i, DAY_1.plusMinutes(i)));
+        }
+
+        InventoryService opened = assertTimeoutPreemptively(Duration.ofSeconds(5),
+                () -> new InventoryService(AccessControl.getInstance(), slow));
+        released.countDown();
+
+        assertEquals(100, opened.historyFor("S1", null, null, 1_000, 0).size());
+        assertEquals(100, opened.countHistory(HistoryFilter.all().byUser("till")));
+        assertEquals(100, opened.quantityAsOf("S1", instant(DAY_2)));
+    }
+
+    @Test
+    void negativePagingRejected() {
+        assertThrows(IllegalArgumentException.class, () -> inventory.historyByUser("bob", -1, 0));
+        assertThrows(IllegalArgumentException.class, () -> inventory.historyBetween(null, null, 1, -1));
+    }
+
+    private static Instant instant(LocalDateTime t) {
+        return t.atZone(ZoneId.systemDefault()).toInstant();
+    }
+
+    private static InventoryEvent event(String id, String user, InventoryEvent.EventType type,
+                                        int oldQty, int newQty, LocalDateTime at) {
+        return new InventoryEvent(id, "Item " + id, user, type, oldQty, newQty, 1.0, at);
+    }
+}
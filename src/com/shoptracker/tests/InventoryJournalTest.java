@@ -0,0 +1,216 @@
+package com.shoptracker.tests;
+
+import com.shoptracker.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class InventoryJournalTest {
+
+    @TempDir
+    Path dir;
+
+    private Session admin;
+
+    @BeforeEach
+    void setUp() {
+        admin = TestSessions.signIn(new User("admin", "1234", "Admin User", "admin@test.com", Role.ADMIN));
+    }
+
+    @Test
+    void eventsSurviveReopen() throws Exception {
+        try (InventoryJournal journal = InventoryJournal.open(dir)) {
+            journal.append(new InventoryEvent("P1", "Apples", "admin", InventoryEvent.EventType.ADD, 0, 5, 0.5));
+            journal.append(new InventoryEvent("P1", "Apples", "bob", InventoryEvent.EventType.ADJUST, 5, 3, 0.5));
+        }
+
+        try (InventoryJournal journal = InventoryJournal.open(dir)) {
+            assertEquals(2, journal.size());
+
+            InventoryEvent e = journal.get(1);
+            assertEquals("P1", e.getProductId());
+            assertEquals("Apples", e.getProductName());
+            assertEquals("bob", e.getUsername());
+            assertEquals(InventoryEvent.EventType.ADJUST, e.getType());
+            assertEquals(5, e.getOldQuantity());
+            assertEquals(3, e.getNewQuantity());
+            assertEquals(-2, e.getDelta());
+            assertEquals(0.5, e.getPrice());
+        }
+    }
+
+    @Test
+    void rollsOverToNewSegmentsWhenFull() throws Exception {
+        int events = 200;
+        try (InventoryJournal journal = InventoryJournal.open(dir, 512)) {
+            for (int i = 0; i < events; i++) {
+                journal.append(new InventoryEvent("P" + i, "Item " + i, "admin",
+                        InventoryEvent.EventType.ADD, 0, i, 1.0));
+            }
+        }
+
+        try (Stream<Path> files = Files.list(dir)) {
+            assertTrue(files.filter(p -> p.toString().endsWith(".log")).count() > 1);
+        }
+
+        try (InventoryJournal journal = InventoryJournal.open(dir, 512)) {
+            assertEquals(events, journal.size());
+            for (int i = 0; i < events; i++) {
+                assertEquals("P" + i, journal.get(i).getProductId());
+                assertEquals(i, journal.get(i).getNewQuantity());
+            }
+        }
+    }
+
+    @Test
+    void serviceRebuildsProductsOnRestart() throws Exception {
+        try (InventoryJournal journal = InventoryJournal.open(dir)) {
+            InventoryService inventory = new InventoryService(AccessControl.getInstance(), journal);
+            inventory.addProduct(admin, new Product("A1", "Apples", 10, 0.50));
+            inventory.addProduct(admin, new Product("B1", "Bananas", 4, 0.40));
+            inventory.addProduct(admin, new Product("C1", "Cherries", 1, 3.00));
+            inventory.adjustQuantity(admin, "A1", -3);
+            inventory.updateProduct(admin, "B1", 9, 0.45);
+            inventory.removeProduct(admin, "C1");
+        }
+
+        try (InventoryJournal journal = InventoryJournal.open(dir)) {
+            InventoryService inventory = new InventoryService(AccessControl.getInstance(), journal);
+
+            assertEquals(7, inventory.getProduct("A1").getQuantity());
+            assertEquals(9, inventory.getProduct("B1").getQuantity());
+            assertEquals(0.45, inventory.getProduct("B1").getPrice());
+            assertNull(inventory.getProduct("C1"));
+            assertEquals(6, inventory.getHistory().size());
+        }
+    }
+
+    @Test
+    void recoveryReplaysOnlyEventsAfterCheckpoint() throws Exception {
+        try (InventoryJournal journal = InventoryJournal.open(dir)) {
+            journal.append(new InventoryEvent("P1", "Pears", "admin", InventoryEvent.EventType.ADD, 0, 5, 1.0));
+            journal.append(new InventoryEvent("P1", "Pears", "admin", InventoryEvent.EventType.ADJUST, 5, 6, 1.0));
+
+            journal.checkpoint(List.of(new Product("P1", "Pears", 6, 1.0)));
+            assertEquals(2, journal.getCheckpointedEventCount());
+
+            journal.append(new InventoryEvent("P1", "Pears", "admin", InventoryEvent.EventType.ADJUST, 6, 2, 1.0));
+        }
+
+        try (InventoryJournal journal = InventoryJournal.open(dir)) {
+            Map<String, Product> products = journal.recover();
+            assertEquals(1, products.size());
+            assertEquals(2, products.get("P1").getQuantity());
+        }
+    }
+
+    @Test
+    void checkpointCoversTheEventsItWasTakenAtAndNeverGoesBack() throws Exception {
+        try (InventoryJournal journal = InventoryJournal.open(dir)) {
+            journal.append(new InventoryEvent("P1", "Pears", "admin", InventoryEvent.EventType.ADD, 0, 5, 1.0));
+            journal.append(new InventoryEvent("P1", "Pears", "admin", InventoryEvent.EventType.ADJUST, 5, 6, 1.0));
+            journal.append(new InventoryEvent("P1", "Pears", "admin", InventoryEvent.EventType.ADJUST, 6, 2, 1.0));
+
+            // captured after two events, written once a third had landed
+            journal.checkpoint(2, List.of(new Product("P1", "Pears", 6, 1.0)));
+            assertEquals(2, journal.getCheckpointedEventCount());
+
+            journal.checkpoint(3, List.of(new Product("P1", "Pears", 2, 1.0)));
+            journal.checkpoint(2, List.of(new Product("P1", "Pears", 6, 1.0))); // overtaken: dropped
+            assertEquals(3, journal.getCheckpointedEventCount());
+            assertThrows(IllegalArgumentException.class, () -> journal.checkpoint(4, List.of()));
+        }
+
+        try (InventoryJournal journal = InventoryJournal.open(dir)) {
+            assertEquals(2, journal.recover().get("P1").getQuantity());
+        }
+    }
+
+    @Test
+    void clearEmptiesJournalAcrossReopen() throws Exception {
+        try (InventoryJournal journal = InventoryJournal.open(dir, 512)) {
+            for (int i = 0; i < 50; i++) {
+                journal.append(new InventoryEvent("P" + i, "Item", "admin", InventoryEvent.EventType.ADD, 0, 1, 1.0));
+            }
+            journal.checkpoint(List.of());
+            journal.clear();
+            journal.append(new InventoryEvent("N1", "New", "admin", InventoryEvent.EventType.ADD, 0, 3, 1.0));
+        }
+
+        try (InventoryJournal journal = InventoryJournal.open(dir, 512)) {
+            assertEquals(1, journal.size());
+            assertEquals(0, journal.getCheckpointedEventCount());
+            assertEquals(3, journal.recover().get("N1").getQuantity());
+        }
+    }
+
+    @Test
+    void staleSegmentsAfterClearAreNeverReplayed() throws Exception {
+        try (InventoryJournal journal = InventoryJournal.open(dir, 512)) {
+            for (int i = 0; i < 50; i++) { // fills several segments
+                journal.append(new InventoryEvent("P" + i, "Item", "admin", InventoryEvent.EventType.ADD, 0, 1, 1.0));
+            }
+            journal.clear();
+            journal.append(new InventoryEvent("N1", "New", "admin", InventoryEvent.EventType.ADD, 0, 3, 1.0));
+        }
+        try (InventoryJournal journal = InventoryJournal.open(dir, 512)) {
+            assertEquals(1, journal.size());
+            journal.append(new InventoryEvent("N2", "Newer", "admin", InventoryEvent.EventType.ADD, 0, 4, 1.0));
+        }
+        try (InventoryJournal journal = InventoryJournal.open(dir, 512)) {
+            assertEquals(2, journal.size());
+            assertEquals(Set.of("N1", "N2"), journal.recover().keySet());
+        }
+    }
+
+    @Test
+    void segmentsFromAnOlderEpochStopLoading() throws Exception {
+        try (InventoryJournal journal = InventoryJournal.open(dir, 512)) {
+            for (int i = 0; i < 50; i++) {
+                journal.append(new InventoryEvent("P" + i, "Item", "admin", InventoryEvent.EventType.ADD, 0, 1, 1.0));
+            }
+        }
+        // a clear() that only got as far as zeroing the first segment
+        try (FileChannel first = FileChannel.open(dir.resolve("segment-000000.log"), StandardOpenOption.WRITE)) {
+            first.write(ByteBuffer.allocate(512), 0);
+        }
+        try (InventoryJournal journal = InventoryJournal.open(dir, 512)) {
+            assertEquals(0, journal.size());
+            journal.append(new InventoryEvent("N1", "New", "admin", InventoryEvent.EventType.ADD, 0, 3, 1.0));
+        }
+        try (InventoryJournal journal = InventoryJournal.open(dir, 512)) {
+            assertEquals(1, journal.size());
+        }
+    }
+
+    @Test
+    void segmentWithoutHeaderIsTreatedAsEmpty() throws Exception {
+        // a record-shaped start with no segment header: not a journal this code wrote
+        ByteBuffer junk = ByteBuffer.allocate(512);
+        junk.putInt(0, 16);
+        try (FileChannel first = FileChannel.open(dir.resolve("segment-000000.log"),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            first.write(junk, 0);
+        }
+        try (InventoryJournal journal = InventoryJournal.open(dir, 512)) {
+            assertEquals(0, journal.size());
+            journal.append(new InventoryEvent("N1", "New", "admin", InventoryEvent.EventType.ADD, 0, 3, 1.0));
+        }
+        try (InventoryJournal journal = InventoryJournal.open(dir, 512)) {
+            assertEquals(1, journal.size());
+            assertEquals(Set.of("N1"), journal.recover().keySet());
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.shoptracker.tests;
+
+import com.shoptracker.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class InventoryServiceConcurrencyTest {
+
+    private static final int THREADS = 8;
+    private static final int OPS_PER_THREAD = 5_000;
+
+    private InventoryService inventory;
+    private Session admin;
+    private Session user;
+
+    @BeforeEach
+    void setUp() {
+        inventory = new InventoryService(AccessControl.getInstance());
+        admin = TestSessions.signIn(new User("admin", "1234", "Admin User", "admin@test.com", Role.ADMIN));
+        user = TestSessions.signIn(new User("user", "pw", "Regular User", "user@test.com", Role.USER));
+    }
+
+    @Test
+    void concurrentAdjustmentsOnSameSkuAreNeverLost() throws Exception {
+        inventory.addProduct(admin, new Product("HOT", "Hot Item", 0, 1.0));
+
+        runConcurrently(t -> {
+            Session actor = (t % 2 == 0) ? admin : user;
+            for (int i = 0; i < OPS_PER_THREAD; i++) {
+                assertTrue(inventory.adjustQuantity(actor, "HOT", 1));
+            }
+        });
+
+        assertEquals(THREADS * OPS_PER_THREAD, inventory.getProduct("HOT").getQuantity());
+        // one ADD plus one ADJUST per successful call
+        assertEquals(1 + THREADS * OPS_PER_THREAD, inventory.getHistory().size());
+    }
+
+    @Test
+    void mixedIncreaseDecreaseAcrossSkusBalancesOut() throws Exception {
+        int skus = 16;
+        for (int i = 0; i < skus; i++) {
+            inventory.addProduct(admin, new Product("S" + i, "Item " + i, 1_000, 1.0));
+        }
+
+        runConcurrently(t -> {
+            for (int i = 0; i < OPS_PER_THREAD; i++) {
+                String id = "S" + ((t + i) % skus);
+                assertTrue(inventory.increaseStock(id));
+                assertTrue(inventory.decreaseStock(id));
+            }
+        });
+
+        for (int i = 0; i < skus; i++) {
+            assertEquals(1_000, inventory.getProduct("S" + i).getQuantity());
+        }
+        assertEquals(skus + 2 * THREADS * OPS_PER_THREAD, inventory.getHistory().size());
+    }
+
+    @Test
+    void concurrentDecreasesNeverDriveStockNegative() throws Exception {
+        int start = THREADS * OPS_PER_THREAD / 2;
+        inventory.addProduct(admin, new Product("LIM", "Limited", start, 1.0));
+
+        runConcurrently(t -> {
+            for (int i = 0; i < OPS_PER_THREAD; i++) {
+                inventory.adjustQuantity(user, "LIM", -1);
+            }
+        });
+
+        assertEquals(0, inventory.getProduct("LIM").getQuantity());
+        assertEquals(1 + start, inventory.getHistory().size());
+    }
+
+    // ---------------- Helpers ----------------
+
+    @Test
+    void batchesAndSingleWritesKeepHistoryInTimeOrder() throws Exception {
+        for (int i = 0; i < THREADS; i++) {
+            inventory.addProduct(admin, new Product("B" + i, "Batch " + i, 0, 1.0));
+            inventory.addProduct(admin, new Product("S" + i, "Single " + i, 0, 1.0));
+        }
+
+        runConcurrently(t -> {
+            for (int i = 0; i < OPS_PER_THREAD; i++) {
+                if (i % 2 == 0) {
+                    inventory.adjustQuantities(admin, Map.of("B" + t, 1, "B" + ((t + 1) % THREADS), 1));
+                } else {
+                    inventory.adjustQuantity(admin, "S" + t, 1);
+                }
+            }
+        });
+
+        assertHistoryInTimeOrder(inventory);
+    }
+
+    static void assertHistoryInTimeOrder(InventoryService inventory) {
+        List<InventoryEvent> history = inventory.getHistory();
+        for (int i = 1; i < history.size(); i++) {
+            assertFalse(history.get(i).getTimestamp().isBefore(history.get(i - 1).getTimestamp()),
+                    "event " + i + " is older than the one before it");
+        }
+    }
+
+    private interface Worker {
+        void run(int threadIndex);
+    }
+
+    private static void runConcurrently(Worker worker) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                final int index = t;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    worker.run(index);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> f : futures) {
+                f.get(); // rethrows assertion failures from workers
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -4,23 +4,27 @@ import com.shoptracker.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 final class InventoryServiceTest {
 
     private InventoryService inventory;
-    private User admin;
-    private User manager;
-    private User user;
+    private Session admin;
+    private Session manager;
+    private Session user;
 
     @BeforeEach
     void setUp() {
         inventory = new InventoryService(AccessControl.getInstance());
-        admin = new User("admin", "1234", "Admin User", "admin@test.com", Role.ADMIN);
-        manager = new User("manager", "pw", "Manager User", "manager@test.com", Role.MANAGER);
-        user = new User("user", "pw", "Regular User", "user@test.com", Role.USER);
+        admin = TestSessions.signIn(new User("admin", "1234", "Admin User", "admin@test.com", Role.ADMIN));
+        manager = TestSessions.signIn(new User("manager", "pw", "Manager User", "manager@test.com", Role.MANAGER));
+        user = TestSessions.signIn(new User("user", "pw", "Regular User", "user@test.com", Role.USER));
     }
 
     // ---------------- BASIC STATE ----------------
@@ -132,6 +136,31 @@ final class InventoryServiceTest {
         assertFalse(inventory.searchByName("lue Ham").isEmpty());
     }
 
+    @Test
+    void searchRanksExactThenPrefixThenWordThenSubstring() {
+        inventory.addProduct(admin, new Product("R1", "Crabapple", 1, 1.0));
+        inventory.addProduct(admin, new Product("R2", "Green Apple", 1, 1.0));
+        inventory.addProduct(admin, new Product("R3", "Apple Juice", 1, 1.0));
+        inventory.addProduct(admin, new Product("R4", "Apple", 1, 1.0));
+
+        List<Product> found = inventory.searchByName("apple");
+        assertEquals(List.of("R4", "R3", "R2", "R1"),
+                found.stream().map(Product::getId).collect(Collectors.toList()));
+
+        assertEquals(2, inventory.searchByName("apple", 2).size());
+        assertEquals(4, inventory.searchByName("ap").size());
+    }
+
+    @Test
+    void searchIndexFollowsAddAndRemove() {
+        inventory.addProduct(admin, new Product("S3", "Garden Hose", 1, 1.0));
+        assertEquals(1, inventory.searchByName("hose").size());
+
+        inventory.removeProduct(admin, "S3");
+        assertTrue(inventory.searchByName("hose").isEmpty());
+        assertTrue(inventory.searchByName("ho").isEmpty());
+    }
+
     @Test
     void searchReturnsEmptyForNoMatch() {
         inventory.addProduct(admin, new Product("S2", "Red Wrench", 2, 2.0));
@@ -173,6 +202,61 @@ final class InventoryServiceTest {
         assertEquals(7, inventory.getProduct("A4").getQuantity());
     }
 
+    // ---------------- BATCH / COMPARE-AND-SET ----------------
+
+    @Test
+    void batchAdjustAppliesEveryLine() {
+        inventory.addProduct(admin, new Product("B1", "Beans", 5, 1.0));
+        inventory.addProduct(admin, new Product("B2", "Bread", 2, 1.0));
+        int before = inventory.getHistory().size();
+
+        Map<String, Integer> delivery = new LinkedHashMap<>();
+        delivery.put("B1", 10);
+        delivery.put("B2", -2);
+
+        assertTrue(inventory.adjustQuantities(user, delivery));
+        assertEquals(15, inventory.getProduct("B1").getQuantity());
+        assertEquals(0, inventory.getProduct("B2").getQuantity());
+
+        List<InventoryEvent> history = inventory.getHistory();
+        assertEquals(before + 2, history.size());
+        assertEquals("B1", history.get(before).getProductId());
+        assertEquals("B2", history.get(before + 1).getProductId());
+    }
+
+    @Test
+    void batchAdjustIsAllOrNothing() {
+        inventory.addProduct(admin, new Product("B3", "Butter", 5, 1.0));
+        inventory.addProduct(admin, new Product("B4", "Bacon", 1, 1.0));
+        int before = inventory.getHistory().size();
+
+        Map<String, Integer> bad = new LinkedHashMap<>();
+        bad.put("B3", 4);
+        bad.put("B4", -3);
+
+        assertFalse(inventory.adjustQuantities(admin, bad));
+        assertEquals(5, inventory.getProduct("B3").getQuantity());
+        assertEquals(1, inventory.getProduct("B4").getQuantity());
+        assertEquals(before, inventory.getHistory().size());
+
+        assertFalse(inventory.adjustQuantities(admin, Map.of("B3", 1, "NOPE", 1)));
+        assertEquals(5, inventory.getProduct("B3").getQuantity());
+    }
+
+    @Test
+    void compareAndSetOnlyAppliesWhenExpectedMatches() {
+        inventory.addProduct(admin, new Product("C1", "Cheese", 4, 1.0));
+
+        assertFalse(inventory.compareAndSetQuantity(user, "C1", 3, 10));
+        assertEquals(4, inventory.getProduct("C1").getQuantity());
+
+        assertTrue(inventory.compareAndSetQuantity(user, "C1", 4, 10));
+        assertEquals(10, inventory.getProduct("C1").getQuantity());
+
+        assertFalse(inventory.compareAndSetQuantity(admin, "C1", 10, -1));
+        assertFalse(inventory.compareAndSetQuantity(admin, "NOPE", 0, 1));
+    }
+
     // ---------------- INCREASE / DECREASE ----------------
 
     @Test
@@ -220,6 +304,79 @@ final class InventoryServiceTest {
         assertFalse(inventory.getLowStockProducts().isEmpty());
     }
 
+    @Test
+    void lowStockSetFollowsQuantityChanges() {
+        inventory.addProduct(admin, new Product("L3", "Item", 6, 1.0));
+        assertTrue(inventory.getLowStockProducts().isEmpty());
+
+        inventory.adjustQuantity(user, "L3", -1);
+        assertEquals(1, inventory.getLowStockProducts().size());
+
+        inventory.adjustQuantities(admin, Map.of("L3", 10));
+        assertTrue(inventory.getLowStockProducts().isEmpty());
+
+        inventory.updateProduct(admin, "L3", 0, 1.0);
+        assertEquals(1, inventory.getLowStockProducts().size());
+
+        inventory.removeProduct(admin, "L3");
+        assertTrue(inventory.getLowStockProducts().isEmpty());
+    }
+
+    @Test
+    void lowStockOrderedByShortfall() {
+        inventory.addProduct(admin, new Product("L4", "Slightly Low", 4, 1.0));
+        inventory.addProduct(admin, new Product("L5", "Empty", 0, 1.0));
+        inventory.addProduct(admin, new Product("L6", "Plenty", 50, 1.0));
+
+        List<Product> low = inventory.getLowStockProducts();
+        assertEquals(2, low.size());
+        assertEquals("L5", low.get(0).getId());
+        assertEquals("L4", low.get(1).getId());
+    }
+
+    @Test
+    void thresholdListenerFiresOnlyOnCrossings() {
+        List<String> crossings = new ArrayList<>();
+        inventory.addThresholdListener((p, threshold, nowLow) ->
+                crossings.add(p.getId() + (nowLow ? " low" : " ok")));
+
+        inventory.addProduct(admin, new Product("L7", "Item", 7, 1.0));
+        inventory.adjustQuantity(admin, "L7", -1);   // 6: still above 5
+        inventory.adjustQuantity(admin, "L7", -1);   // 5: crosses
+        inventory.adjustQuantity(admin, "L7", -1);   // 4: already low
+        inventory.setRestockThreshold(admin, "L7", 2); // threshold drop recovers it
+
+        assertEquals(List.of("L7 low", "L7 ok"), crossings);
+    }
+
+    @Test
+    void thresholdListenersRunAfterTheProductIsUnlocked() {
+        // another thread restocks from inside the listener; under the lock it would wait forever
+        List<Boolean> restocked = new ArrayList<>();
+        inventory.addThresholdListener((p, threshold, nowLow) -> {
+            if (!nowLow) {
+                return;
+            }
+            Thread restock = new Thread(() -> inventory.adjustQuantity(admin, p.getId(), 10));
+            restock.start();
+            try {
+                restock.join(5_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            restocked.add(!restock.isAlive());
+        });
+
+        inventory.addProduct(admin, new Product("U1", "Item", 6, 1.0));
+        inventory.addProduct(admin, new Product("U2", "Item", 6, 1.0));
+        inventory.adjustQuantity(admin, "U1", -2);
+        inventory.adjustQuantities(admin, Map.of("U2", -2));
+
+        assertEquals(List.of(true, true), restocked);
+        assertEquals(14, inventory.getProduct("U1").getQuantity());
+        assertEquals(14, inventory.getProduct("U2").getQuantity());
+    }
+
     // ---------------- HISTORY ----------------
 
     @Test
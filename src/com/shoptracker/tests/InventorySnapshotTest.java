@@ -0,0 +1,139 @@
+package com.shoptracker.tests;
+
+import com.shoptracker.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class InventorySnapshotTest {
+
+    private InventoryService inventory;
+    private Session admin;
+
+    @BeforeEach
+    void setUp() {
+        inventory = new InventoryService(AccessControl.getInstance());
+        admin = TestSessions.signIn(new User("admin", "pw", "Admin", "admin@x.com", Role.ADMIN));
+    }
+
+    @Test
+    void snapshotNeverChangesAfterItIsTaken() {
+        inventory.addProduct(admin, Product.ofMinorUnits("A", "Apples", 10, 50));
+        inventory.addProduct(admin, Product.ofMinorUnits("B", "Bread", 4, 200));
+        InventorySnapshot before = inventory.snapshot();
+
+        inventory.adjustQuantity(admin, "A", -3);
+        inventory.updateProduct(admin, "B", 9, 2.5);
+        inventory.removeProduct(admin, "A");
+        inventory.addProduct(admin, Product.ofMinorUnits("C", "Cheese", 1, 700));
+
+        assertEquals(2, before.size());
+        assertEquals(10, before.getProduct("A").getQuantity());
+        assertEquals(200, before.getProduct("B").getPriceMinor());
+        assertFalse(before.contains("C"));
+        assertEquals(14, before.getTotalUnits());
+        assertEquals(1300, before.getStockValueMinor());
+
+        InventorySnapshot after = inventory.snapshot();
+        assertFalse(after.contains("A"));
+        assertEquals(9, after.getProduct("B").getQuantity());
+        assertEquals(10, after.getTotalUnits());
+        assertEquals(9 * 250 + 700, after.getStockValueMinor());
+    }
+
+    @Test
+    void snapshotMatchesAPlainMapThroughRandomChanges() {
+        // "Aa"/"BB" and "AaAa"/"BBBB"/"AaBB"/"BBAa" share hash codes
+        List<String> ids = new ArrayList<>(List.of("Aa", "BB", "AaAa", "BBBB", "AaBB", "BBAa"));
+        for (int i = 0; i < 2_000; i++) {
+            ids.add("SKU-" + i);
+        }
+        Map<String, Integer> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int step = 0; step < 20_000; step++) {
+            String id = ids.get(random.nextInt(ids.size()));
+            if (random.nextInt(4) == 0) {
+                inventory.removeProduct(admin, id);
+                expected.remove(id);
+            } else {
+                int qty = random.nextInt(100);
+                inventory.addProduct(admin, Product.ofMinorUnits(id, "Item " + id, qty, 10));
+                expected.put(id, qty);
+            }
+        }
+
+        InventorySnapshot snapshot = inventory.snapshot();
+        assertEquals(expected.size(), snapshot.size());
+        long units = 0;
+        for (String id : ids) {
+            Product p = snapshot.getProduct(id);
+            assertEquals(expected.get(id), p == null ? null : p.getQuantity(), id);
+            units += p == null ? 0 : p.getQuantity();
+        }
+        assertEquals(expected.size(), snapshot.getProducts().size());
+        assertEquals(units, snapshot.getTotalUnits());
+        assertEquals(units * 10, snapshot.getStockValueMinor());
+    }
+
+    @Test
+    void readersSeeTotalsThatMatchTheirProducts() throws InterruptedException {
+        for (int i = 0; i < 32; i++) {
+            inventory.addProduct(admin, Product.ofMinorUnits("P" + i, "Item " + i, 5_000, 1 + i));
+        }
+
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<String> failure = new AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            while (!done.get() && failure.get() == null) {
+                InventorySnapshot s = inventory.snapshot();
+                long[] sums = new long[2];
+                s.forEach(p -> {
+                    sums[0] += p.getQuantity();
+                    sums[1] += p.getQuantity() * p.getPriceMinor();
+                });
+                if (sums[0] != s.getTotalUnits() || sums[1] != s.getStockValueMinor()) {
+                    failure.set("units " + sums[0] + " vs " + s.getTotalUnits()
+                            + ", value " + sums[1] + " vs " + s.getStockValueMinor());
+                }
+            }
+        });
+        reader.start();
+
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int seed = t;
+            Thread writer = new Thread(() -> {
+                for (int i = 0; i < 5_000; i++) {
+                    String id = "P" + ((i * 7 + seed) % 32);
+                    if (i % 10 == 0) {
+                        inventory.adjustQuantities(admin, Map.of(id, 1, "P" + ((i + seed + 1) % 32), -1));
+                    } else {
+                        inventory.adjustQuantity(admin, id, (i % 2 == 0) ? 2 : -2);
+                    }
+                }
+            });
+            writers.add(writer);
+            writer.start();
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        done.set(true);
+        reader.join();
+
+        assertNull(failure.get());
+        // per writer: 2000 adjustments of +2, 2500 of -2, and batches that net to zero;
+        // odd steps drain only half the products, so each starts with enough to never refuse one
+        assertEquals(32 * 5_000 - 4 * 1000, inventory.snapshot().getTotalUnits());
+    }
+}
@@ -0,0 +1,135 @@
+package com.shoptracker.tests;
+
+import com.shoptracker.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class InventoryValuationTest {
+
+    private InventoryService inventory;
+    private Session admin;
+
+    @BeforeEach
+    void setUp() {
+        inventory = new InventoryService(AccessControl.getInstance());
+        admin = TestSessions.signIn(new User("admin", "pw", "Admin", "admin@x.com", Role.ADMIN));
+    }
+
+    @Test
+    void moneyIsExactFixedPoint() {
+        assertEquals(10, Money.toMinor(0.1));
+        assertEquals(30, Money.toMinor(0.1 + 0.2)); // 0.30000000000000004
+        assertEquals(1250, Money.parse(" 12.5 "));
+        assertEquals("12.50", Money.format(1250));
+        assertThrows(IllegalArgumentException.class, () -> Money.parse("1.999"));
+        assertThrows(IllegalArgumentException.class, () -> Money.parse("abc"));
+
+        Product p = Product.ofMinorUnits("P1", "Pears", 3, 199);
+        assertEquals(1.99, p.getPrice());
+        assertEquals(7, p.withPrice(0.07).getPriceMinor());
+        assertEquals(199, p.getPriceMinor());
+    }
+
+    @Test
+    void valuationFollowsEveryKindOfChange() {
+        inventory.addProduct(admin, Product.ofMinorUnits("A", "Apples", 10, 10)); // 1.00
+        inventory.addProduct(admin, Product.ofMinorUnits("B", "Bread", 2, 249));  // 4.98
+        assertValuation(12, 598);
+
+        inventory.adjustQuantity(admin, "A", -3);
+        assertValuation(9, 568);
+
+        inventory.updateProduct(admin, "B", 4, 2.5);
+        assertValuation(11, 1070);
+
+        inventory.adjustQuantities(admin, Map.of("A", 5, "B", -1));
+        assertValuation(15, 870);
+
+        inventory.compareAndSetQuantity(admin, "A", 12, 2);
+        inventory.increaseStock("B");
+        inventory.decreaseStock("A");
+        assertValuation(5, 1010);
+
+        inventory.addProduct(admin, Product.ofMinorUnits("A", "Apples", 1, 30)); // replaces A
+        assertValuation(5, 1030);
+
+        inventory.addProducts(admin, List.of(Product.ofMinorUnits("C", "Cheese", 2, 1)));
+        inventory.removeProduct(admin, "B");
+        assertValuation(3, 32);
+
+        inventory.clearInventory();
+        assertValuation(0, 0);
+    }
+
+    @Test
+    void deniedAndFailedChangesLeaveValuationAlone() {
+        Session clerk = TestSessions.signIn(new User("clerk", "pw", "Clerk", "clerk@x.com", Role.USER));
+        inventory.addProduct(admin, Product.ofMinorUnits("A", "Apples", 10, 10));
+
+        assertFalse(inventory.adjustQuantity(admin, "A", -11));
+        assertFalse(inventory.updateProduct(clerk, "A", 50, 1.0));
+        assertFalse(inventory.adjustQuantities(admin, Map.of("A", 1, "missing", 1)));
+
+        assertValuation(10, 100);
+    }
+
+    @Test
+    void concurrentAdjustmentsKeepTotalsExact() throws InterruptedException {
+        for (int i = 0; i < 16; i++) {
+            inventory.addProduct(admin, Product.ofMinorUnits("P" + i, "Item " + i, 1000, 10 + i));
+        }
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            int seed = t;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 5_000; i++) {
+                    inventory.adjustQuantity(admin, "P" + ((i + seed) % 16), (i % 2 == 0) ? 3 : -2);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        long units = 0;
+        long value = 0;
+        for (Product p : inventory.getAllProducts()) {
+            units += p.getQuantity();
+            value += p.getQuantity() * p.getPriceMinor();
+        }
+        assertValuation(units, value);
+    }
+
+    @Test
+    void journalRecoveryRestoresValuationInCents(@TempDir Path dir) throws Exception {
+        try (InventoryJournal journal = InventoryJournal.open(dir)) {
+            InventoryService persisted = new InventoryService(AccessControl.getInstance(), journal);
+            persisted.addProduct(admin, new Product("A", "Apples", 3, 0.1));
+            persisted.addProduct(admin, new Product("B", "Bread", 1, 0.2));
+        }
+
+        try (InventoryJournal journal = InventoryJournal.open(dir)) {
+            InventoryService recovered = new InventoryService(AccessControl.getInstance(), journal);
+            assertEquals(50, recovered.getStockValueMinor());
+            assertEquals(new BigDecimal("0.50"), recovered.getStockValue());
+            assertEquals(10, recovered.getProduct("A").getPriceMinor());
+        }
+    }
+
+    private void assertValuation(long units, long valueMinor) {
+        assertEquals(units, inventory.getTotalUnits(), "units");
+        assertEquals(valueMinor, inventory.getStockValueMinor(), "value");
+    }
+}
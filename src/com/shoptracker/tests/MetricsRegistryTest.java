@@ -0,0 +1,111 @@
+package com.shoptracker.tests;
+
+import com.shoptracker.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class MetricsRegistryTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void percentilesAreWithinBucketPrecision() {
+        LatencyHistogram h = new MetricsRegistry().histogram("op");
+        for (long v = 1; v <= 100_000; v++) {
+            h.record(v * 1000); // 1us .. 100ms, uniform
+        }
+
+        LatencyHistogram.Snapshot s = h.snapshot();
+        assertEquals(100_000, s.getCount());
+        assertEquals(100_000_000, s.getMaxNanos());
+        assertWithin(50_000_000, s.percentileNanos(0.50));
+        assertWithin(99_000_000, s.percentileNanos(0.99));
+        assertWithin(99_900_000, s.percentileNanos(0.999));
+        assertWithin(50_000_500, s.getMeanNanos());
+    }
+
+    @Test
+    void emptyAndResetHistogramsReportZero() {
+        LatencyHistogram h = new MetricsRegistry().histogram("op");
+        assertEquals(0, h.snapshot().percentileNanos(0.99));
+
+        h.record(5_000);
+        h.reset();
+        assertEquals(0, h.snapshot().getCount());
+        assertEquals(0, h.snapshot().getMaxNanos());
+    }
+
+    @Test
+    void concurrentRecordingLosesNothing() throws InterruptedException {
+        MetricsRegistry metrics = new MetricsRegistry();
+        LatencyHistogram h = metrics.histogram("op");
+        LongAdder c = metrics.counter("calls");
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    h.record(i);
+                    c.increment();
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(80_000, h.snapshot().getCount());
+        assertEquals(80_000L, metrics.counterValues().get("calls"));
+        assertSame(h, metrics.histogram("op"));
+    }
+
+    @Test
+    void servicesRecordLatencyAndDenials() {
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        InventoryService inventory = new InventoryService(AccessControl.getInstance());
+        Session admin = TestSessions.signIn(new User("admin", "pw", "Admin", "admin@x.com", Role.ADMIN));
+        Session user = TestSessions.signIn(new User("u", "pw", "User", "u@x.com", Role.USER));
+
+        long adjusts = metrics.histogram("inventory.adjustQuantity").snapshot().getCount();
+        long denied = metrics.counter("inventory.denied").sum();
+
+        inventory.addProduct(admin, new Product("P1", "Pears", 3, 1.0));
+        assertTrue(inventory.adjustQuantity(user, "P1", 1));
+        assertFalse(inventory.addProduct(user, new Product("P2", "Plums", 3, 1.0)));
+
+        assertEquals(adjusts + 1, metrics.histogram("inventory.adjustQuantity").snapshot().getCount());
+        assertEquals(denied + 1, metrics.counter("inventory.denied").sum());
+        assertTrue(metrics.report().contains("inventory.adjustQuantity"));
+    }
+
+    @Test
+    void dumpWritesReportToFile() throws Exception {
+        MetricsRegistry metrics = new MetricsRegistry();
+        metrics.histogram("inventory.searchByName").record(12_000);
+        metrics.counter("user.login.failed").add(3);
+
+        Path file = dir.resolve("metrics.txt");
+        assertTrue(metrics.dump(file));
+
+        String text = Files.readString(file);
+        assertTrue(text.contains("inventory.searchByName"));
+        assertTrue(text.contains("p99="));
+        assertTrue(text.matches("(?s).*user\\.login\\.failed\\s+3.*"));
+    }
+
+    // log-linear buckets with 32 sub-buckets: at most ~3% off
+    private static void assertWithin(long expected, long actual) {
+        assertEquals(expected, actual, expected * 0.035, "expected ~" + expected + " but was " + actual);
+    }
+}
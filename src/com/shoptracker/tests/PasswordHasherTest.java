@@ -0,0 +1,62 @@
+package com.shoptracker.tests;
+
+import com.shoptracker.*;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class PasswordHasherTest {
+
+    private final PasswordHasher hasher = new PasswordHasher(1_000, 16);
+
+    @Test
+    void hashesAreSaltedAndVerify() {
+        String a = hasher.hash("secret");
+        String b = hasher.hash("secret");
+
+        assertNotEquals(a, b);
+        assertTrue(a.startsWith("pbkdf2-sha512$1000$"));
+        assertFalse(a.contains("secret"));
+        assertTrue(hasher.verify("secret", a));
+        assertTrue(hasher.verify("secret", b));
+        assertFalse(hasher.verify("Secret", a));
+    }
+
+    @Test
+    void cachedVerificationStillRejectsWrongPasswords() {
+        String h = hasher.hash("pw");
+
+        assertTrue(hasher.verify("pw", h));
+        assertTrue(hasher.verify("pw", h)); // cache hit
+        assertFalse(hasher.verify("pw2", h));
+        assertFalse(hasher.verify("pw", hasher.hash("other")));
+    }
+
+    @Test
+    void malformedHashesFailClosed() {
+        assertFalse(hasher.verify("pw", "plaintext"));
+        assertFalse(hasher.verify("pw", "pbkdf2-sha512$x$y$z"));
+        assertFalse(hasher.verify(null, hasher.hash("pw")));
+    }
+
+    @Test
+    void lowerCostHashesNeedRehash() {
+        PasswordHasher stronger = new PasswordHasher(2_000, 0);
+
+        assertTrue(stronger.needsRehash(hasher.hash("pw")));
+        assertFalse(stronger.needsRehash(stronger.hash("pw")));
+        assertTrue(stronger.verify("pw", hasher.hash("pw"))); // old cost still verifies
+    }
+
+    @Test
+    void usersKeepOnlyTheHash() {
+        User u = new User("zed", "hunter2", "Zed", "zed@x.com", Role.USER);
+
+        assertFalse(u.getPasswordHash().contains("hunter2"));
+        assertTrue(u.checkPassword("hunter2"));
+        assertFalse(u.checkPassword("hunter3"));
+
+        User restored = User.restore("zed", u.getPasswordHash(), "Zed", "zed@x.com", Role.USER, true);
+        assertTrue(restored.checkPassword("hunter2"));
+    }
+}
@@ -0,0 +1,109 @@
+package com.shoptracker.tests;
+
+import com.shoptracker.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class RestockSuggestionTest {
+
+    private HistoryStore store;
+    private Session admin;
+
+    @BeforeEach
+    void setUp() {
+        store = new InMemoryHistoryStore();
+        admin = TestSessions.signIn(new User("admin", "pw", "Admin", "admin@x.com", Role.ADMIN));
+    }
+
+    @Test
+    void steadySalesGiveTheirDailyRate() {
+        sellDaily("S1", 10, 30, 1); // 10 a day for the last month
+        InventoryService inventory = open();
+
+        double rate = inventory.getDailyDemand("S1");
+        assertTrue(rate > 9 && rate < 10.5, "rate " + rate);
+        assertEquals((int) Math.ceil(rate * 3), inventory.getReorderPoint("S1"));
+
+        Product p = Product.ofMinorUnits("S1", "Soap", 40, 150);
+        inventory.addProduct(admin, p);
+        assertEquals((int) Math.ceil(rate * 17) - 40, inventory.getSuggestedRestockQuantity(p));
+        assertTrue(inventory.getRestockSuggestions().isEmpty()); // 40 units is four days of cover
+    }
+
+    @Test
+    void withoutSalesTheThresholdRuleStillApplies() {
+        InventoryService inventory = open();
+        Product p = Product.ofMinorUnits("N1", "Nails", 3, 10);
+        inventory.addProduct(admin, p);
+        inventory.increaseStock("N1");
+        inventory.updateProduct(admin, "N1", 2, 0.1);
+
+        assertEquals(0, inventory.getDailyDemand("N1"));
+        assertEquals(5, inventory.getReorderPoint("N1"));
+        assertEquals(8, inventory.getSuggestedRestockQuantity(inventory.getProduct("N1")));
+
+        RestockSuggestion s = inventory.getRestockSuggestions().get(0);
+        assertEquals(8, s.getQuantity());
+        assertEquals(Double.POSITIVE_INFINITY, s.getDaysOfCover());
+    }
+
+    @Test
+    void oldSalesFadeAndRemovalForgets() {
+        sellDaily("F1", 10, 30, 60); // stopped selling two months ago
+        sellDaily("R1", 10, 5, 1);
+        InventoryService inventory = open();
+
+        assertTrue(inventory.getDailyDemand("F1") < 0.5);
+        assertTrue(inventory.getDailyDemand("R1") > 5);
+
+        inventory.addProduct(admin, Product.ofMinorUnits("R1", "Rice", 10, 100));
+        inventory.removeProduct(admin, "R1");
+        assertEquals(0, inventory.getDailyDemand("R1"));
+    }
+
+    @Test
+    void liveSalesUpdateTheRate() {
+        InventoryService inventory = open();
+        inventory.addProduct(admin, Product.ofMinorUnits("L1", "Lemons", 100, 30));
+        inventory.addProduct(admin, Product.ofMinorUnits("L2", "Limes", 4, 30));
+
+        inventory.adjustQuantity(admin, "L1", -30);
+        inventory.adjustQuantities(admin, Map.of("L1", -39));
+        inventory.decreaseStock("L1");
+        inventory.adjustQuantity(admin, "L1", 5); // a return is not demand
+
+        double rate = inventory.getDailyDemand("L1");
+        assertTrue(rate > 70 && rate < 80, "rate " + rate); // 70 units on the first day
+
+        List<RestockSuggestion> suggestions = inventory.getRestockSuggestions();
+        assertEquals(2, suggestions.size());
+        assertEquals("L1", suggestions.get(0).getProduct().getId()); // under a day of cover
+        assertEquals(inventory.getSuggestedRestockQuantity(inventory.getProduct("L1")),
+                suggestions.get(0).getQuantity());
+        assertEquals("L2", suggestions.get(1).getProduct().getId());
+
+        inventory.clearInventory();
+        assertEquals(0, inventory.getDailyDemand("L1"));
+    }
+
+    private InventoryService open() {
+        return new InventoryService(AccessControl.getInstance(), store);
+    }
+
+    // one DECREASE of perDay units a day for days days, the last one lastDaysAgo days ago
+    private void sellDaily(String id, int perDay, int days, int lastDaysAgo) {
+        LocalDateTime now = LocalDateTime.now();
+        int qty = perDay * days;
+        for (int d = lastDaysAgo + days - 1; d >= lastDaysAgo; d--) {
+            store.append(new InventoryEvent(id, "Item " + id, "till", InventoryEvent.EventType.DECREASE,
+                    qty, qty - perDay, 1.0, now.minusDays(d)));
+            qty -= perDay;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.shoptracker.tests;
+
+import com.shoptracker.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class SessionManagerTest {
+
+    private UserRepository repo;
+    private SessionManager sessions;
+    private UserService service;
+    private InventoryService inventory;
+    private Session admin;
+
+    @BeforeEach
+    void setUp() {
+        repo = UserRepository.getInstance();
+        repo.clear();
+        sessions = new SessionManager();
+        service = new UserService(repo, AccessControl.getInstance(), sessions);
+        inventory = new InventoryService(AccessControl.getInstance());
+
+        User adminAccount = new User("admin", "pw", "Admin", "admin@x.com", Role.ADMIN);
+        repo.save(adminAccount);
+        admin = sessions.start(adminAccount);
+        repo.save(new User("mgr", "pw", "Manager", "mgr@x.com", Role.MANAGER));
+    }
+
+    @Test
+    void loginIssuesSessionWithRolePermissions() {
+        Session s = service.login("mgr", "pw").orElseThrow();
+
+        assertTrue(s.isValid());
+        assertSame(s, sessions.get(s.getToken()));
+        assertTrue(AccessControl.getInstance().canManageStock(s));
+        assertTrue(inventory.addProduct(s, new Product("P1", "Pears", 3, 1.0)));
+        assertTrue(service.login("mgr", "wrong").isEmpty());
+    }
+
+    @Test
+    void roleChangeRevokesExistingSessions() {
+        Session s = service.login("mgr", "pw").orElseThrow();
+
+        service.changeUserRole(admin, "mgr", Role.USER);
+
+        assertFalse(s.isValid());
+        assertNull(sessions.get(s.getToken()));
+        assertFalse(inventory.addProduct(s, new Product("P1", "Pears", 3, 1.0)));
+
+        Session fresh = service.login("mgr", "pw").orElseThrow();
+        assertFalse(AccessControl.getInstance().canManageStock(fresh));
+        assertTrue(AccessControl.getInstance().canAdjustStock(fresh));
+    }
+
+    @Test
+    void deactivationRevokesSessionsAndBlocksLogin() {
+        Session s = service.login("mgr", "pw").orElseThrow();
+
+        assertTrue(service.setUserActive(admin, "mgr", false));
+
+        assertFalse(s.isValid());
+        assertTrue(service.login("mgr", "pw").isEmpty());
+        assertFalse(AccessControl.getInstance().canManageStock(s)); // revoked sessions hold no permissions
+
+        assertTrue(service.setUserActive(admin, "mgr", true));
+        assertTrue(service.login("mgr", "pw").isPresent());
+    }
+
+    @Test
+    void onlyIssuedSessionsAreAuthorized() {
+        Actor impostor = new Actor() {
+            @Override
+            public String getUsername() {
+                return "admin";
+            }
+
+            @Override
+            public Role getRole() {
+                return Role.ADMIN;
+            }
+        };
+
+        assertFalse(AccessControl.getInstance().canManageStock(impostor));
+        assertFalse(AccessControl.getInstance().isAdmin(impostor));
+        assertFalse(inventory.addProduct(impostor, new Product("P1", "Pears", 3, 1.0)));
+        assertThrows(SecurityException.class, () -> service.changeUserRole(impostor, "mgr", Role.ADMIN));
+
+        inventory.seedDefaultStockIfEmpty(); // internal path, no actor needed
+        assertEquals(3, inventory.getAllProducts().size());
+        assertEquals("system", inventory.getHistory().get(0).getUsername());
+    }
+
+    @Test
+    void loginThatReadTheAccountBeforeAnInvalidationGetsNoSession() {
+        // a login has checked the password, then the account changes before its session starts
+        long seen = sessions.generation("mgr");
+        User mgr = repo.findByUsername("mgr");
+        service.changeUserRole(admin, "mgr", Role.USER);
+
+        assertNull(sessions.start(mgr, seen));
+        assertNotNull(sessions.start(mgr, sessions.generation("mgr")));
+
+        assertTrue(service.setUserActive(admin, "mgr", false));
+        assertNull(sessions.start(mgr)); // inactive accounts are refused as well
+    }
+
+    @Test
+    void logoutEndsOnlyThatSession() {
+        Session first = service.login("mgr", "pw").orElseThrow();
+        Session second = service.login("mgr", "pw").orElseThrow();
+
+        service.logout(first);
+
+        assertFalse(first.isValid());
+        assertTrue(second.isValid());
+        assertNotEquals(first.getToken(), second.getToken());
+    }
+}
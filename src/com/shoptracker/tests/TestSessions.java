@@ -0,0 +1,18 @@
+package com.shoptracker.tests;
+
+import com.shoptracker.*;
+
+/**
+ * Services only honour sessions issued by {@link SessionManager}, so tests
+ * sign their actors in rather than passing User objects.
+ */
+final class TestSessions {
+
+    private TestSessions() {
+        // static helpers
+    }
+
+    static Session signIn(User user) {
+        return SessionManager.getInstance().start(user);
+    }
+}
@@ -0,0 +1,174 @@
+package com.shoptracker.tests;
+
+import com.shoptracker.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class UserFileStoreTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void usersSurviveReopen() throws Exception {
+        try (UserFileStore store = UserFileStore.open(dir)) {
+            UserRepository repo = new UserRepository(store, 100);
+            UserService service = new UserService(repo);
+            User adminAccount = new User("admin", "pw", "Admin", "admin@x.com", Role.ADMIN);
+            Session admin = TestSessions.signIn(adminAccount);
+            repo.save(adminAccount);
+            service.createUser(admin, new User("bob", "pw", "Bob", "bob@x.com", Role.USER));
+            service.createUser(admin, new User("carol", "pw", "Carol", "carol@x.com", Role.USER));
+            service.changeUserRole(admin, "bob", Role.MANAGER);
+            service.deleteUser(admin, "carol");
+        }
+
+        try (UserFileStore store = UserFileStore.open(dir)) {
+            UserRepository repo = new UserRepository(store, 100);
+            assertTrue(repo.exists("admin"));
+            assertFalse(repo.exists("carol"));
+            assertEquals(Role.MANAGER, repo.findByUsername("bob").getRole());
+            assertEquals("bob@x.com", repo.findByUsername("bob").getEmail());
+            assertEquals(2, repo.findAll().size());
+        }
+    }
+
+    @Test
+    void cacheIsBoundedButEverythingStaysReachable() throws Exception {
+        try (UserFileStore store = UserFileStore.open(dir)) {
+            UserRepository repo = new UserRepository(store, 4);
+            for (int i = 0; i < 20; i++) {
+                repo.save(new User("u" + i, "pw", "User " + i, "u" + i + "@x.com", Role.USER));
+            }
+
+            assertEquals(20, repo.findAll().size());
+            assertEquals("User 0", repo.findByUsername("u0").getFullName());
+            assertSame(repo.findByUsername("u19"), repo.findByUsername("u19"));
+        }
+    }
+
+    @Test
+    void emptinessIsAnsweredWithoutLoadingUsers() throws Exception {
+        try (UserFileStore store = UserFileStore.open(dir)) {
+            UserRepository repo = new UserRepository(store, 100);
+            assertTrue(repo.isEmpty());
+            for (int i = 0; i < 3; i++) {
+                repo.save(new User("u" + i, "pw", "User " + i, "u" + i + "@x.com", Role.USER));
+            }
+        }
+
+        try (UserFileStore files = UserFileStore.open(dir)) {
+            int[] loads = new int[1];
+            UserStore counting = new UserStore() {
+                @Override
+                public User load(String username) {
+                    loads[0]++;
+                    return files.load(username);
+                }
+
+                @Override
+                public boolean contains(String username) {
+                    return files.contains(username);
+                }
+
+                @Override
+                public Collection<String> usernames() {
+                    return files.usernames();
+                }
+
+                @Override
+                public int size() {
+                    return files.size();
+                }
+
+                @Override
+                public void save(User user) {
+                    files.save(user);
+                }
+
+                @Override
+                public void delete(String username) {
+                    files.delete(username);
+                }
+
+                @Override
+                public void clear() {
+                    files.clear();
+                }
+            };
+            UserRepository repo = new UserRepository(counting, 100);
+
+            assertEquals(3, files.size());
+            assertFalse(repo.isEmpty());
+            assertEquals(0, loads[0]);
+
+            repo.buildIndexes();
+            assertEquals(3, loads[0]);
+            assertEquals("u1", repo.findByEmail("U1@x.com").getUsername());
+        }
+    }
+
+    @Test
+    void failedWriteLeavesNoTraceInTheRepository() throws Exception {
+        UserFileStore store = UserFileStore.open(dir);
+        UserRepository repo = new UserRepository(store, 100);
+        repo.save(new User("kept", "pw", "Kept", "kept@x.com", Role.USER));
+        store.close();
+
+        assertThrows(IllegalStateException.class,
+                () -> repo.save(new User("lost", "pw", "Lost", "lost@x.com", Role.USER)));
+        assertFalse(repo.exists("lost"));
+        assertNull(repo.findByUsername("lost"));
+        assertNull(repo.findByEmail("lost@x.com"));
+        assertTrue(repo.search("lost").isEmpty());
+        assertEquals("kept", repo.findByEmail("kept@x.com").getUsername());
+    }
+
+    @Test
+    void compactionKeepsLatestVersions() throws Exception {
+        try (UserFileStore store = UserFileStore.open(dir)) {
+            User u = new User("churn", "pw", "Churn", "churn@x.com", Role.USER);
+            for (int i = 0; i < 3000; i++) {
+                u.setFullName("Churn " + i);
+                store.save(u);
+            }
+            store.save(new User("other", "pw", "Other", "other@x.com", Role.ADMIN));
+        }
+
+        assertTrue(Files.exists(dir.resolve("users.snapshot")));
+        try (UserFileStore store = UserFileStore.open(dir)) {
+            assertEquals("Churn 2999", store.load("churn").getFullName());
+            assertEquals(Role.ADMIN, store.load("other").getRole());
+            assertEquals(2, store.usernames().size());
+        }
+    }
+
+    @Test
+    void tornTailIsDiscarded() throws Exception {
+        try (UserFileStore store = UserFileStore.open(dir)) {
+            store.save(new User("a", "pw", "A", "a@x.com", Role.USER));
+            store.save(new User("b", "pw", "B", "b@x.com", Role.USER));
+        }
+
+        Path log = dir.resolve("users.log");
+        try (RandomAccessFile raf = new RandomAccessFile(log.toFile(), "rw")) {
+            raf.setLength(raf.length() - 3); // crash halfway through the last append
+        }
+
+        try (UserFileStore store = UserFileStore.open(dir)) {
+            assertNotNull(store.load("a"));
+            assertNull(store.load("b"));
+            store.save(new User("c", "pw", "C", "c@x.com", Role.USER));
+        }
+        try (UserFileStore store = UserFileStore.open(dir)) {
+            assertNotNull(store.load("c"));
+        }
+    }
+}
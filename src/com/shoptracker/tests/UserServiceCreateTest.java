@@ -10,15 +10,17 @@ class UserServiceCreateTest {
 
     private UserService userService;
     private UserRepository repo;
-    private User admin;
+    private Session admin;
 
     @BeforeEach
     void setUp() {
         repo = UserRepository.getInstance();
         repo.clear();
 
-        admin = new User("admin", "pass", "Admin User", "admin@shop.com", Role.ADMIN);
-        repo.save(admin);
+        User adminAccount = new User("admin", "pass", "Admin User", "admin@shop.com", Role.ADMIN);
+
+        admin = TestSessions.signIn(adminAccount);
+        repo.save(adminAccount);
 
         userService = new UserService(repo, AccessControl.getInstance());
     }
@@ -10,15 +10,17 @@ class UserServiceDeleteTest {
 
     private UserService userService;
     private UserRepository repo;
-    private User admin;
+    private Session admin;
 
     @BeforeEach
     void setUp() {
         repo = UserRepository.getInstance();
         repo.clear();
 
-        admin = new User("admin", "pass", "Admin User", "admin@shop.com", Role.ADMIN);
-        repo.save(admin);
+        User adminAccount = new User("admin", "pass", "Admin User", "admin@shop.com", Role.ADMIN);
+
+        admin = TestSessions.signIn(adminAccount);
+        repo.save(adminAccount);
         repo.save(new User("user1", "1111", "User One", "user1@shop.com", Role.USER));
 
         userService = new UserService(repo, AccessControl.getInstance());
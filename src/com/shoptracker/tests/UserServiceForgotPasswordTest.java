@@ -26,7 +26,7 @@ class UserServiceForgotPasswordTest {
         String newPw = service.resetPassword("alice", "alice@shop.com");
         Optional<User> maybeAlice = repo.find("alice");
         assertTrue(maybeAlice.isPresent());
-        assertEquals(newPw, maybeAlice.get().getPassword());
+        assertTrue(maybeAlice.get().checkPassword(newPw));
 
     }
 
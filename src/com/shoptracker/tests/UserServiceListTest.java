@@ -34,4 +34,39 @@ class UserServiceListTest {
         assertEquals(1, service.searchUsers("stone").size());
         assertEquals(3, service.searchUsers("@x.com").size());
     }
+
+    @Test
+    void searchFollowsSavesAndDeletesAndRanksUsernamePrefixFirst() {
+        repo.save(new User("tom", "pw", "Tom Mikeson", "tom@x.com", Role.USER));
+
+        assertEquals("mike", service.searchUsers("mike").get(0).getUsername());
+        assertEquals(2, service.searchUsers("mike").size());
+
+        User mike = repo.findByUsername("mike");
+        mike.setFullName("Michael Rivers");
+        repo.save(mike);
+        assertTrue(service.searchUsers("stone").isEmpty());
+        assertEquals(1, service.searchUsers("rivers").size());
+
+        repo.delete("maria");
+        assertTrue(service.searchUsers("lane").isEmpty());
+    }
+
+    @Test
+    void emailIndexIsUniqueAndCaseInsensitive() {
+        assertEquals("maria", repo.findByEmail("MARIA@x.com").getUsername());
+        assertNull(repo.findByEmail("nobody@x.com"));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> repo.save(new User("maria2", "pw", "Maria Two", "Maria@X.com", Role.USER)));
+
+        Session admin = TestSessions.signIn(repo.findByUsername("admin"));
+        assertFalse(service.createUser(admin, new User("copy", "pw", "Copy", "mike@x.com", Role.USER)));
+
+        User mike = repo.findByUsername("mike");
+        mike.setEmail("mike@y.com");
+        repo.save(mike);
+        assertNull(repo.findByEmail("mike@x.com"));
+        assertTrue(service.createUser(admin, new User("copy", "pw", "Copy", "mike@x.com", Role.USER)));
+    }
 }
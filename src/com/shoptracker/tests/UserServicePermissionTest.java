@@ -10,19 +10,22 @@ class UserServicePermissionTest {
 
     private UserRepository repo;
     private UserService service;
-    private User admin;
-    private User user;
+    private Session admin;
+    private Session user;
 
     @BeforeEach
     void setup() {
         repo = UserRepository.getInstance();
         repo.clear();
 
-        admin = new User("admin", "pw", "Admin", "admin@x.com", Role.ADMIN);
-        user = new User("user", "pw", "User", "user@x.com", Role.USER);
+        User adminAccount = new User("admin", "pw", "Admin", "admin@x.com", Role.ADMIN);
 
-        repo.save(admin);
-        repo.save(user);
+        admin = TestSessions.signIn(adminAccount);
+        User userAccount = new User("user", "pw", "User", "user@x.com", Role.USER);
+        user = TestSessions.signIn(userAccount);
+
+        repo.save(adminAccount);
+        repo.save(userAccount);
 
         service = new UserService(repo, AccessControl.getInstance());
     }
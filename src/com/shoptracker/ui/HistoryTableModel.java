@@ -0,0 +1,164 @@
+package com.shoptracker.ui;
+
+import com.shoptracker.AsyncInventoryService;
+import com.shoptracker.HistoryFilter;
+import com.shoptracker.InventoryEvent;
+
+import javax.swing.SwingUtilities;
+import javax.swing.table.AbstractTableModel;
+import java.time.format.DateTimeFormatter;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Virtual table model over the inventory history.
+ * <p>
+ * Only the row count is known up front; events are fetched from the service
+ * one page at a time, the first time a row on that page is painted, and kept
+ * in a small LRU page cache. Cells are formatted in {@link #getValueAt}, so
+ * only rows actually on screen are ever turned into strings.
+ */
+final class HistoryTableModel extends AbstractTableModel {
+
+    private static final long serialVersionUID = 1L;
+
+    static final int PAGE_SIZE = 200;
+    private static final int MAX_CACHED_PAGES = 16;
+    private static final String LOADING = "…";
+
+    private static final DateTimeFormatter TIME_FORMAT =
+            DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss");
+
+    private static final String[] COLUMNS = {"Time", "Product", "User", "Change", "New Qty"};
+
+    private final transient AsyncInventoryService inventory;
+
+    // EDT only
+    private HistoryFilter filter = HistoryFilter.all();
+    private int rowCount;
+    private int generation;
+    private final Set<Integer> loading = new HashSet<>();
+    private final Map<Integer, List<InventoryEvent>> pages =
+            new LinkedHashMap<Integer, List<InventoryEvent>>(MAX_CACHED_PAGES, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, List<InventoryEvent>> eldest) {
+                    return size() > MAX_CACHED_PAGES;
+                }
+            };
+
+    HistoryTableModel(AsyncInventoryService inventory) {
+        this.inventory = inventory;
+    }
+
+    /**
+     * Switches to a new filter and row count (fetched off the EDT by the
+     * caller). Drops cached pages; late page loads for the old filter are
+     * ignored. EDT only.
+     */
+    void reset(HistoryFilter filter, int rowCount) {
+        this.filter = filter;
+        this.rowCount = rowCount;
+        generation++;
+        pages.clear();
+        loading.clear();
+        fireTableDataChanged();
+    }
+
+    // ---------------- TableModel ----------------
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int col) {
+        return COLUMNS[col];
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int col) {
+        return false;
+    }
+
+    @Override
+    public Object getValueAt(int row, int col) {
+        int pageNo = row / PAGE_SIZE;
+        List<InventoryEvent> page = pages.get(pageNo);
+        if (page == null) {
+            requestPage(pageNo);
+            return col == 0 ? LOADING : "";
+        }
+
+        int i = row % PAGE_SIZE;
+        if (i >= page.size()) {
+            return ""; // history was cleared after the count was taken
+        }
+        InventoryEvent e = page.get(i);
+        switch (col) {
+            case 0:
+                return e.getTimestamp().format(TIME_FORMAT);
+            case 1:
+                return e.getProductName() + " (ID: " + e.getProductId() + ")";
+            case 2:
+                return e.getUsername();
+            case 3:
+                return describeChange(e);
+            default:
+                return e.getNewQuantity();
+        }
+    }
+
+    // ---------------- Paging ----------------
+
+    private void requestPage(int pageNo) {
+        if (!loading.add(pageNo)) {
+            return;
+        }
+        int expected = generation;
+        inventory.queryHistory(filter, PAGE_SIZE, pageNo * PAGE_SIZE)
+                .whenComplete((events, failure) -> SwingUtilities.invokeLater(() -> {
+                    if (expected != generation) {
+                        return;
+                    }
+                    loading.remove(pageNo);
+                    if (failure != null) {
+                        return; // retried the next time the row is painted
+                    }
+                    pages.put(pageNo, events);
+                    int first = pageNo * PAGE_SIZE;
+                    int last = Math.min(first + PAGE_SIZE, rowCount) - 1;
+                    if (first <= last) {
+                        fireTableRowsUpdated(first, last);
+                    }
+                }));
+    }
+
+    private static String describeChange(InventoryEvent e) {
+        switch (e.getType()) {
+            case ADD:
+                return "added";
+            case REMOVE:
+                return "removed";
+            default:
+                break;
+        }
+        int delta = e.getDelta();
+        if (delta > 0) {
+            return "increased by " + delta;
+        } else if (delta < 0) {
+            return "decreased by " + Math.abs(delta);
+        }
+        return "was updated";
+    }
+}
@@ -1,27 +1,37 @@
 package com.shoptracker.ui;
 
+import com.shoptracker.AsyncInventoryService;
+import com.shoptracker.HistoryFilter;
 import com.shoptracker.InventoryService;
-import com.shoptracker.InventoryEvent;
-import com.shoptracker.Product;
 
 import javax.swing.*;
 import java.awt.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
+import java.time.format.DateTimeParseException;
 
 /**
- * Displays the full history of inventory events.
- * Read-only window.
+ * Displays the history of inventory events.
+ * Read-only window; rows are paged in from the service as they scroll into
+ * view, and the product/user/date filters are answered by the history
+ * indexes rather than by filtering in the UI.
  */
 public final class InventoryHistoryUI extends JFrame {
 
     private static final long serialVersionUID = 1L;
 
-    private static final DateTimeFormatter TIME_FORMAT =
-            DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss");
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy");
 
-    private final InventoryService inventoryService;
-    private final JTextArea logArea;
+    private final transient AsyncInventoryService asyncInventory;
+    private final HistoryTableModel tableModel;
+
+    private final JTextField productField = new JTextField(8);
+    private final JTextField userField = new JTextField(8);
+    private final JTextField fromField = new JTextField(8);
+    private final JTextField toField = new JTextField(8);
+    private final JButton applyBtn;
+    private final JLabel countLabel = new JLabel(" ");
 
     /**
      * Legacy fallback constructor.
@@ -36,87 +46,105 @@ public final class InventoryHistoryUI extends JFrame {
      * Ensures history matches the actual active InventoryService instance.
      */
     public InventoryHistoryUI(InventoryService inventoryService) {
-        this.inventoryService = inventoryService;
+        this.asyncInventory = new AsyncInventoryService(inventoryService);
+        this.tableModel = new HistoryTableModel(asyncInventory);
 
         setTitle("Inventory History");
-        setSize(600, 400);
+        setSize(800, 500);
         setLocationRelativeTo(null);
         setDefaultCloseOperation(DISPOSE_ON_CLOSE);
 
         getContentPane().setBackground(UIConstants.BG_COLOR);
         setLayout(new BorderLayout(10, 10));
 
-        // ---- Title ----
+        // ---- Title + filters ----
         JLabel title = new JLabel("Inventory Change Log", SwingConstants.CENTER);
         title.setFont(UIConstants.FONT_BOLD);
-        title.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
-        add(title, BorderLayout.NORTH);
-
-        // ---- Log output ----
-        logArea = new JTextArea();
-        logArea.setEditable(false);
-        logArea.setFont(UIConstants.FONT_REGULAR);
-        logArea.setBackground(Color.WHITE);
-
-        JScrollPane scroll = new JScrollPane(logArea);
-        scroll.setBorder(BorderFactory.createEmptyBorder(0, 10, 10, 10));
+        title.setBorder(BorderFactory.createEmptyBorder(10, 10, 0, 10));
+
+        applyBtn = UIConstants.createModernButton("Filter");
+        applyBtn.addActionListener(e -> applyFilter());
+
+        JPanel filters = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        filters.setBackground(UIConstants.BG_COLOR);
+        filters.add(new JLabel("Product ID:"));
+        filters.add(productField);
+        filters.add(new JLabel("User:"));
+        filters.add(userField);
+        filters.add(new JLabel("From (dd/MM/yyyy):"));
+        filters.add(fromField);
+        filters.add(new JLabel("To:"));
+        filters.add(toField);
+        filters.add(applyBtn);
+
+        JPanel top = new JPanel(new BorderLayout());
+        top.setBackground(UIConstants.BG_COLOR);
+        top.add(title, BorderLayout.NORTH);
+        top.add(filters, BorderLayout.SOUTH);
+        add(top, BorderLayout.NORTH);
+
+        // ---- History table ----
+        JTable table = new JTable(tableModel);
+        table.setFont(UIConstants.FONT_REGULAR);
+        table.setRowHeight(24);
+        table.setFillsViewportHeight(true);
+        table.getColumnModel().getColumn(0).setPreferredWidth(150);
+        table.getColumnModel().getColumn(1).setPreferredWidth(220);
+
+        JScrollPane scroll = new JScrollPane(table);
+        scroll.setBorder(BorderFactory.createEmptyBorder(0, 10, 0, 10));
         add(scroll, BorderLayout.CENTER);
 
-        // ---- Close button ----
+        // ---- Count + close button ----
         JButton closeBtn = UIConstants.createModernButton("Close");
         closeBtn.addActionListener(e -> dispose());
 
-        JPanel bottom = new JPanel();
+        JPanel bottom = new JPanel(new BorderLayout());
         bottom.setBackground(UIConstants.BG_COLOR);
-        bottom.add(closeBtn);
+        bottom.setBorder(BorderFactory.createEmptyBorder(0, 10, 10, 10));
+        bottom.add(countLabel, BorderLayout.WEST);
+        bottom.add(closeBtn, BorderLayout.EAST);
         add(bottom, BorderLayout.SOUTH);
 
-        loadHistory();
+        loadHistory(HistoryFilter.all());
     }
 
     /**
-     * Loads and formats inventory events.
+     * Builds a filter from the input boxes; dates are whole days, inclusive.
      */
-    private void loadHistory() {
-        List<InventoryEvent> events = inventoryService.getHistory();
-
-        if (events.isEmpty()) {
-            logArea.setText("No inventory changes recorded yet.");
+    private void applyFilter() {
+        LocalDateTime from;
+        LocalDateTime to;
+        try {
+            LocalDate fromDate = parseDate(fromField.getText());
+            LocalDate toDate = parseDate(toField.getText());
+            from = fromDate == null ? null : fromDate.atStartOfDay();
+            to = toDate == null ? null : toDate.plusDays(1).atStartOfDay();
+        } catch (DateTimeParseException ex) {
+            JOptionPane.showMessageDialog(this, "Dates must be in dd/MM/yyyy format.");
             return;
         }
 
-        StringBuilder sb = new StringBuilder();
-
-        for (InventoryEvent e : events) {
-
-            String timestamp = e.getTimestamp().format(TIME_FORMAT);
-
-            Product product = inventoryService.getProduct(e.getProductId());
-            String productName = (product != null)
-                    ? product.getName()
-                    : ("Product " + e.getProductId());
-
-            int delta = e.getDelta();
-            String changeText;
-
-            if (delta > 0) {
-                changeText = "increased by " + delta;
-            } else if (delta < 0) {
-                changeText = "decreased by " + Math.abs(delta);
-            } else {
-                changeText = "was updated";
-            }
+        loadHistory(HistoryFilter.all()
+                .forProduct(productField.getText())
+                .byUser(userField.getText())
+                .between(from, to));
+    }
 
-            sb.append(timestamp)
-              .append(" - Stock for ")
-              .append(productName)
-              .append(" (ID: ").append(e.getProductId()).append(") ")
-              .append(changeText)
-              .append(" (new quantity: ").append(e.getNewQuantity()).append(")")
-              .append(System.lineSeparator());
-        }
+    /**
+     * Counts matching events off the EDT; the rows themselves are paged in
+     * by the table model as they are painted.
+     */
+    private void loadHistory(HistoryFilter filter) {
+        UiTasks.run(this, asyncInventory.countHistory(filter), count -> {
+            tableModel.reset(filter, count);
+            countLabel.setText(count == 0
+                    ? "No matching inventory changes."
+                    : count + " change(s)");
+        }, applyBtn);
+    }
 
-        logArea.setText(sb.toString());
-        logArea.setCaretPosition(0); // Start at top
+    private static LocalDate parseDate(String text) {
+        return text == null || text.isBlank() ? null : LocalDate.parse(text.trim(), DATE_FORMAT);
     }
 }
@@ -0,0 +1,176 @@
+package com.shoptracker.ui;
+
+import com.shoptracker.InventoryEvent;
+import com.shoptracker.InventoryListener;
+import com.shoptracker.InventoryService;
+import com.shoptracker.Money;
+import com.shoptracker.Product;
+
+import javax.swing.SwingUtilities;
+import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Table model for the main product table, backed directly by the inventory.
+ * <p>
+ * Rows hold only product ids (with an id-to-row index); cell values are read
+ * from the live product when painted. Inventory events arrive from the
+ * dispatcher thread, are queued, and applied on the EDT in one batch, each
+ * firing a single-row insert/update/delete instead of rebuilding the table.
+ */
+final class InventoryTableModel extends AbstractTableModel implements InventoryListener {
+
+    private static final long serialVersionUID = 1L;
+
+    static final int COL_ID = 0;
+    static final int COL_NAME = 1;
+    static final int COL_QTY = 2;
+    static final int COL_PRICE = 3;
+    static final int COL_PLUS = 4;
+    static final int COL_MINUS = 5;
+
+    private static final String[] COLUMNS = {"ID", "Name", "Quantity", "Price (€)", "+", "-"};
+
+    private final transient InventoryService inventoryService;
+
+    // EDT only
+    private final List<String> ids = new ArrayList<>();
+    private final Map<String, Integer> rowById = new HashMap<>();
+
+    private final transient Queue<InventoryEvent> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+
+    InventoryTableModel(InventoryService inventoryService) {
+        this.inventoryService = inventoryService;
+    }
+
+    /**
+     * Full resync from the inventory. EDT only.
+     */
+    void reload() {
+        reload(inventoryService.getAllProducts());
+    }
+
+    /**
+     * Resync from a product list fetched off the EDT. EDT only.
+     */
+    void reload(List<Product> products) {
+        ids.clear();
+        rowById.clear();
+        for (Product p : products) {
+            rowById.put(p.getId(), ids.size());
+            ids.add(p.getId());
+        }
+        fireTableDataChanged();
+    }
+
+    String getProductId(int row) {
+        return ids.get(row);
+    }
+
+    // ---------------- TableModel ----------------
+
+    @Override
+    public int getRowCount() {
+        return ids.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int col) {
+        return COLUMNS[col];
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int col) {
+        return false;
+    }
+
+    @Override
+    public Object getValueAt(int row, int col) {
+        String id = ids.get(row);
+        switch (col) {
+            case COL_ID:
+                return id;
+            case COL_PLUS:
+                return "+";
+            case COL_MINUS:
+                return "-";
+            default:
+                break;
+        }
+
+        Product p = inventoryService.getProduct(id);
+        if (p == null) {
+            return ""; // removal event still in flight
+        }
+        switch (col) {
+            case COL_NAME:
+                return p.getName();
+            case COL_QTY:
+                return p.getQuantity();
+            default:
+                return Money.format(p.getPriceMinor());
+        }
+    }
+
+    // ---------------- InventoryListener ----------------
+
+    @Override
+    public void onInventoryEvent(InventoryEvent event) {
+        pending.add(event);
+        if (drainScheduled.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(this::drainPending);
+        }
+    }
+
+    @Override
+    public void eventsDropped(long count) {
+        pending.clear();
+        SwingUtilities.invokeLater(this::reload);
+    }
+
+    private void drainPending() {
+        drainScheduled.set(false);
+        InventoryEvent e;
+        while ((e = pending.poll()) != null) {
+            apply(e);
+        }
+    }
+
+    private void apply(InventoryEvent e) {
+        String id = e.getProductId();
+        Integer row = rowById.get(id);
+
+        if (e.getType() == InventoryEvent.EventType.REMOVE) {
+            if (row != null) {
+                removeRow(row);
+            }
+        } else if (row != null) {
+            fireTableRowsUpdated(row, row);
+        } else if (inventoryService.getProduct(id) != null) {
+            int newRow = ids.size();
+            ids.add(id);
+            rowById.put(id, newRow);
+            fireTableRowsInserted(newRow, newRow);
+        }
+    }
+
+    private void removeRow(int row) {
+        rowById.remove(ids.remove(row));
+        for (int i = row; i < ids.size(); i++) {
+            rowById.put(ids.get(i), i);
+        }
+        fireTableRowsDeleted(row, row);
+    }
+}
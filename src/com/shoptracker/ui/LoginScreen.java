@@ -4,6 +4,11 @@ import com.shoptracker.*;
 
 import javax.swing.*;
 import java.awt.*;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
 
 public class LoginScreen extends JFrame {
 
@@ -17,6 +22,9 @@ public class LoginScreen extends JFrame {
     private final transient UserRepository userRepo;
     private final transient AccessControl accessControl;
     private final transient UserService userService;
+    private final transient AsyncUserService asyncUsers;
+    // default users are seeded off the EDT; sign-ins wait for it
+    private final transient CompletableFuture<Void> seeded;
     private static final String ERROR_TITLE = "Error";
 
 
@@ -24,8 +32,14 @@ public class LoginScreen extends JFrame {
         this.userRepo = UserRepository.getInstance();
         this.accessControl = AccessControl.getInstance();
         this.userService = new UserService(userRepo, accessControl);
+        this.asyncUsers = new AsyncUserService(userService);
 
-        seedUsersIfEmpty();
+        this.seeded = CompletableFuture
+                .runAsync(this::seedUsersIfEmpty, BackgroundExecutor.getInstance())
+                .exceptionally(ex -> {
+                    ActivityLogService.getInstance().log("Could not seed default users: " + ex);
+                    return null;
+                });
 
         setupWindow();
         buildHeader();
@@ -133,8 +147,8 @@ public class LoginScreen extends JFrame {
         JButton loginBtn = UIConstants.createModernButton("Login");
         JButton forgotBtn = UIConstants.createModernButton("Forgot Password");
 
-        loginBtn.addActionListener(evt -> handleLogin());
-        forgotBtn.addActionListener(evt -> handleForgotPassword());
+        loginBtn.addActionListener(evt -> handleLogin(loginBtn));
+        forgotBtn.addActionListener(evt -> handleForgotPassword(forgotBtn));
 
         buttonRow.add(loginBtn);
         buttonRow.add(forgotBtn);
@@ -149,22 +163,28 @@ public class LoginScreen extends JFrame {
     // ---------------------------------------------------------
     // Logic
     // ---------------------------------------------------------
-    private void handleLogin() {
+    // Service calls run on BackgroundExecutor (logins on the password-verify pool);
+    // UiTasks brings results back to the EDT.
+
+    private void handleLogin(JComponent trigger) {
         String username = userField.getText().trim();
         String password = new String(passField.getPassword());
 
-        User user = userRepo.findByUsername(username);
-
-        if (user != null && user.getPassword().equals(password)) {
-            msgLabel.setText("");
-            new ShopTrackerUI(user).setVisible(true);
-            dispose();
-        } else {
-            msgLabel.setText("Invalid username or password");
-        }
+        msgLabel.setText("Signing in...");
+        UiTasks.run(this, afterSeeding(() -> asyncUsers.login(username, password)), session -> {
+            if (session.isPresent()) {
+                msgLabel.setText("");
+                new ShopTrackerUI(session.get()).setVisible(true);
+                dispose();
+            } else {
+                msgLabel.setText("Invalid username or password");
+            }
+        }, ex -> msgLabel.setText(ex instanceof RejectedExecutionException
+                ? "Too many sign-ins right now, please try again"
+                : "Login failed: " + ex.getMessage()), trigger);
     }
 
-    private void handleForgotPassword() {
+    private void handleForgotPassword(JComponent trigger) {
         String username = JOptionPane.showInputDialog(this, "Enter your username:");
         if (username == null || username.isBlank()) {
             return;
@@ -175,41 +195,47 @@ public class LoginScreen extends JFrame {
             return;
         }
 
-        try {
-            String newPassword = userService.resetPassword(username, email);
-
-            JOptionPane.showMessageDialog(
-                    this,
-                    "Password reset successful.\nYour new temporary password is:\n\n" + newPassword,
-                    "Password Reset",
-                    JOptionPane.INFORMATION_MESSAGE
-            );
-
-        } catch (IllegalArgumentException ex) {
-            JOptionPane.showMessageDialog(
-                    this,
-                    "User not found: " + username,
-                    ERROR_TITLE,
-                    JOptionPane.ERROR_MESSAGE
-            );
-        } catch (SecurityException ex) {
-            JOptionPane.showMessageDialog(
-                    this,
-                    "Email does not match our records.",
-                    ERROR_TITLE,
-                    JOptionPane.ERROR_MESSAGE
-            );
-        }
+        UiTasks.run(this, afterSeeding(() -> asyncUsers.resetPassword(username, email)), newPassword ->
+                JOptionPane.showMessageDialog(
+                        this,
+                        "Password reset successful.\nYour new temporary password is:\n\n" + newPassword,
+                        "Password Reset",
+                        JOptionPane.INFORMATION_MESSAGE
+                ), ex -> {
+                    if (ex instanceof SecurityException) {
+                        JOptionPane.showMessageDialog(
+                                this,
+                                "Email does not match our records.",
+                                ERROR_TITLE,
+                                JOptionPane.ERROR_MESSAGE
+                        );
+                    } else {
+                        JOptionPane.showMessageDialog(
+                                this,
+                                "User not found: " + username,
+                                ERROR_TITLE,
+                                JOptionPane.ERROR_MESSAGE
+                        );
+                    }
+                }, trigger);
+    }
+
+    private <T> CompletableFuture<T> afterSeeding(Supplier<CompletableFuture<T>> call) {
+        return seeded.thenCompose(done -> call.get());
     }
 
     // ---------------------------------------------------------
     // Seed default users if repository empty
     // ---------------------------------------------------------
+    // Runs on BackgroundExecutor: the emptiness check is a record count, and
+    // an existing user base gets its indexes built before the first search.
     private void seedUsersIfEmpty() {
-        if (userRepo.findAll().isEmpty()) {
+        if (userRepo.isEmpty()) {
             userRepo.save(new User("admin", "1234", "Alice Admin", "admin@shop.com", Role.ADMIN));
             userRepo.save(new User("manager", "5678", "Mark Manager", "manager@shop.com", Role.MANAGER));
             userRepo.save(new User("user", "0000", "Uma User", "user@shop.com", Role.USER));
+        } else {
+            userRepo.buildIndexes();
         }
     }
 
@@ -217,6 +243,34 @@ public class LoginScreen extends JFrame {
     // Main entry point
     // ---------------------------------------------------------
     public static void main(String[] args) {
+        openDataStores();
         SwingUtilities.invokeLater(() -> new LoginScreen().setVisible(true));
     }
+
+    // Falls back to in-memory operation for anything that cannot be opened.
+    private static void openDataStores() {
+        Path dataDir = InventoryService.dataDirectory();
+        try {
+            ActivityLogService.getInstance().startFileSink(dataDir.resolve("logs"));
+        } catch (IOException e) {
+            ActivityLogService.getInstance().log("Activity log will not be written to disk: " + e);
+        }
+
+        try {
+            Path metricsFile = dataDir.resolve("metrics").resolve("metrics.txt");
+            MetricsRegistry.getInstance().startFileDump(metricsFile, 60);
+            Runtime.getRuntime().addShutdownHook(new Thread(
+                    () -> MetricsRegistry.getInstance().stopFileDump(metricsFile), "metrics-dump-close"));
+        } catch (IOException e) {
+            ActivityLogService.getInstance().log("Metrics will not be written to disk: " + e);
+        }
+
+        try {
+            UserFileStore store = UserFileStore.open(dataDir.resolve("users"));
+            Runtime.getRuntime().addShutdownHook(new Thread(store::close, "user-store-close"));
+            UserRepository.getInstance().useStore(store);
+        } catch (IOException e) {
+            ActivityLogService.getInstance().log("User accounts will not be saved: " + e);
+        }
+    }
 }
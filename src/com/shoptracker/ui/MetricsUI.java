@@ -0,0 +1,115 @@
+package com.shoptracker.ui;
+
+import com.shoptracker.LatencyHistogram;
+import com.shoptracker.MetricsRegistry;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+import java.awt.*;
+import java.util.Map;
+
+/**
+ * Live view of {@link MetricsRegistry}: one row per timed operation with its
+ * count and latency percentiles (microseconds), plus the counters.
+ * Refreshes itself every two seconds while open.
+ */
+public final class MetricsUI extends JFrame {
+
+    private static final long serialVersionUID = 1L;
+    private static final int REFRESH_MILLIS = 2000;
+
+    private final transient MetricsRegistry metrics;
+    private final DefaultTableModel latencyModel = readOnlyModel(
+            "Operation", "Count", "Mean (µs)", "p50 (µs)", "p99 (µs)", "p99.9 (µs)", "Max (µs)");
+    private final DefaultTableModel counterModel = readOnlyModel("Counter", "Value");
+    private final Timer refreshTimer;
+
+    public MetricsUI() {
+        this(MetricsRegistry.getInstance());
+    }
+
+    public MetricsUI(MetricsRegistry metrics) {
+        this.metrics = metrics;
+
+        setTitle("Metrics");
+        setSize(900, 500);
+        setLocationRelativeTo(null);
+        setDefaultCloseOperation(DISPOSE_ON_CLOSE);
+        getContentPane().setBackground(UIConstants.BG_COLOR);
+        setLayout(new BorderLayout(10, 10));
+
+        JLabel title = new JLabel("Operation Latency", SwingConstants.CENTER);
+        title.setFont(UIConstants.FONT_BOLD);
+        title.setBorder(BorderFactory.createEmptyBorder(10, 10, 0, 10));
+        add(title, BorderLayout.NORTH);
+
+        JSplitPane split = new JSplitPane(JSplitPane.VERTICAL_SPLIT,
+                new JScrollPane(createTable(latencyModel)), new JScrollPane(createTable(counterModel)));
+        split.setResizeWeight(0.7);
+        add(split, BorderLayout.CENTER);
+
+        JButton resetBtn = UIConstants.createModernButton("Reset");
+        resetBtn.addActionListener(e -> {
+            metrics.reset();
+            refresh();
+        });
+        JPanel buttons = new JPanel();
+        buttons.setBackground(UIConstants.BG_COLOR);
+        buttons.add(resetBtn);
+        add(buttons, BorderLayout.SOUTH);
+
+        refreshTimer = new Timer(REFRESH_MILLIS, e -> refresh());
+        refresh();
+        refreshTimer.start();
+    }
+
+    @Override
+    public void dispose() {
+        refreshTimer.stop();
+        super.dispose();
+    }
+
+    // Snapshots are cheap (a sum per bucket), so this runs on the EDT.
+    private void refresh() {
+        latencyModel.setRowCount(0);
+        for (LatencyHistogram.Snapshot s : metrics.histogramSnapshots()) {
+            latencyModel.addRow(new Object[]{
+                    s.getName(),
+                    s.getCount(),
+                    micros(s.getMeanNanos()),
+                    micros(s.percentileNanos(0.50)),
+                    micros(s.percentileNanos(0.99)),
+                    micros(s.percentileNanos(0.999)),
+                    micros(s.getMaxNanos())
+            });
+        }
+
+        counterModel.setRowCount(0);
+        for (Map.Entry<String, Long> c : metrics.counterValues().entrySet()) {
+            counterModel.addRow(new Object[]{c.getKey(), c.getValue()});
+        }
+    }
+
+    private static String micros(long nanos) {
+        return String.format("%.1f", nanos / 1000.0);
+    }
+
+    private static JTable createTable(DefaultTableModel model) {
+        JTable table = new JTable(model);
+        table.setFont(UIConstants.FONT_REGULAR);
+        table.setRowHeight(22);
+        table.getTableHeader().setFont(UIConstants.FONT_BOLD);
+        return table;
+    }
+
+    private static DefaultTableModel readOnlyModel(String... columns) {
+        return new DefaultTableModel(columns, 0) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+    }
+}
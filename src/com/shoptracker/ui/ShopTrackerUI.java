@@ -2,35 +2,37 @@ package com.shoptracker.ui;
 
 import com.shoptracker.*;
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
 
 public class ShopTrackerUI extends JFrame {
 
 	private static final long serialVersionUID = 1L;
 
-	private final transient InventoryService inventoryService;
-	private final transient User currentUser;
-    private final DefaultTableModel tableModel;
+	// opened on BackgroundExecutor; null until then. EDT only
+	private transient InventoryService inventoryService;
+	private transient AsyncInventoryService asyncInventory;
+	private final transient Session currentUser;
+    private InventoryTableModel tableModel;
     private final JTable table;
+    private boolean disposed;
+    private final JLabel valuationLabel = new JLabel();
 
-    private static final int COL_ID = 0;
-    private static final int COL_NAME = 1;
-    private static final int COL_QTY = 2;
-    private static final int COL_PRICE = 3;
-    private static final int COL_PLUS = 4;
-    private static final int COL_MINUS = 5;
+    private static final int COL_PLUS = InventoryTableModel.COL_PLUS;
+    private static final int COL_MINUS = InventoryTableModel.COL_MINUS;
+    private static final int MAX_REJECTS_SHOWN = 20;
 
-    public ShopTrackerUI(User user) {
+    public ShopTrackerUI(Session user) {
         this.currentUser = user;
-        this.inventoryService = InventoryService.getInstance();
-
-        inventoryService.seedDefaultStockIfEmpty();
 
         setTitle("Shop Tracker – Inventory Manager");
-        setSize(1000, 550);
+        setSize(1250, 550);
         setLocationRelativeTo(null);
         setDefaultCloseOperation(EXIT_ON_CLOSE);
         getContentPane().setBackground(UIConstants.BG_COLOR);
@@ -44,24 +46,16 @@ public class ShopTrackerUI extends JFrame {
         JPanel header = new JPanel();
         header.setBackground(UIConstants.BG_COLOR);
         header.add(headerLabel);
+        header.add(Box.createHorizontalStrut(30));
+        valuationLabel.setFont(UIConstants.FONT_REGULAR);
+        header.add(valuationLabel);
         add(header, BorderLayout.NORTH);
 
-        // Table setup
-        tableModel = new DefaultTableModel(
-                new Object[]{"ID", "Name", "Quantity", "Price (€)", "+", "-"}, 0
-        ) {
-            @Override
-            public boolean isCellEditable(int row, int col) {
-                return false;
-            }
-        };
-
-        table = new JTable(tableModel);
+        // Table setup: empty until the inventory is loaded, see connect()
+        table = new JTable();
         table.setFont(UIConstants.FONT_REGULAR);
         table.setRowHeight(25);
         table.getTableHeader().setFont(UIConstants.FONT_BOLD);
-        table.getColumnModel().getColumn(COL_PLUS).setMaxWidth(50);
-        table.getColumnModel().getColumn(COL_MINUS).setMaxWidth(50);
 
         add(new JScrollPane(table), BorderLayout.CENTER);
 
@@ -71,6 +65,9 @@ public class ShopTrackerUI extends JFrame {
             public void mouseClicked(MouseEvent e) {
                 int row = table.rowAtPoint(e.getPoint());
                 int col = table.columnAtPoint(e.getPoint());
+                if (row < 0 || tableModel == null) {
+                    return;
+                }
                 if (col == COL_PLUS) {
                     handleAdjustQuantity(row, +1);
                 } else if (col == COL_MINUS) {
@@ -82,18 +79,24 @@ public class ShopTrackerUI extends JFrame {
         // Buttons bottom
         JButton addBtn = UIConstants.createModernButton("Add Product");
         JButton delBtn = UIConstants.createModernButton("Delete Product");
+        JButton importBtn = UIConstants.createModernButton("Import CSV");
+        JButton exportBtn = UIConstants.createModernButton("Export CSV");
         JButton refreshBtn = UIConstants.createModernButton("Refresh");
         JButton userMgmtBtn = UIConstants.createModernButton("Manage Users");
         JButton logBtn = UIConstants.createModernButton("View Activity Log");
+        JButton metricsBtn = UIConstants.createModernButton("Metrics");
         JButton outBtn = UIConstants.createModernButton("Logout");
 
         JPanel buttons = new JPanel();
         buttons.setBackground(UIConstants.BG_COLOR);
         buttons.add(addBtn);
         buttons.add(delBtn);
+        buttons.add(importBtn);
+        buttons.add(exportBtn);
         buttons.add(refreshBtn);
         buttons.add(userMgmtBtn);
         buttons.add(logBtn);
+        buttons.add(metricsBtn);
         buttons.add(outBtn);
 
         add(buttons, BorderLayout.SOUTH);
@@ -104,39 +107,78 @@ public class ShopTrackerUI extends JFrame {
         if (!ac.canManageStock(user)) {
             addBtn.setEnabled(false);
             delBtn.setEnabled(false);
+            importBtn.setEnabled(false);
         }
         if (!ac.canManageUsers(user)) {
             userMgmtBtn.setEnabled(false);
+        }
+        if (!ac.canViewLog(user)) {
             logBtn.setEnabled(false);
+            metricsBtn.setEnabled(false);
         }
 
         // Button actions
-        addBtn.addActionListener(e -> addProduct());
-        delBtn.addActionListener(e -> deleteProduct());
-        refreshBtn.addActionListener(e -> refreshTable());
+        addBtn.addActionListener(e -> addProduct(addBtn));
+        delBtn.addActionListener(e -> deleteProduct(delBtn));
+        importBtn.addActionListener(e -> importCatalogue(importBtn, refreshBtn));
+        exportBtn.addActionListener(e -> exportCatalogue(exportBtn));
+        refreshBtn.addActionListener(e -> refreshTable(refreshBtn));
         outBtn.addActionListener(e -> logout());
         userMgmtBtn.addActionListener(e -> openUserManagement());
         logBtn.addActionListener(e -> showActivityLog());
+        metricsBtn.addActionListener(e -> new MetricsUI().setVisible(true));
 
-        refreshTable();
+        loadInventory(refreshBtn, addBtn, delBtn, importBtn, exportBtn, refreshBtn);
     }
 
-    private void handleAdjustQuantity(int row, int delta) {
-        String id = (String) tableModel.getValueAt(row, COL_ID);
-
-        boolean ok = inventoryService.adjustQuantity(currentUser, id, delta);
-        if (!ok) {
-            JOptionPane.showMessageDialog(
-                    this,
-                    "Could not adjust quantity.",
-                    "Error",
-                    JOptionPane.ERROR_MESSAGE
-            );
+    // Opening the journal replays or recovers it, so it runs off the EDT;
+    // the stock buttons stay disabled until the table is connected.
+    private void loadInventory(JComponent refreshTrigger, JComponent... busy) {
+        UiTasks.run(this, CompletableFuture.supplyAsync(() -> {
+            InventoryService service = InventoryService.getInstance();
+            service.seedDefaultStockIfEmpty();
+            return service;
+        }, BackgroundExecutor.getInstance()), service -> {
+            connect(service);
+            refreshTable(refreshTrigger);
+        }, busy);
+    }
+
+    // Rows follow inventory events from here on, no full rebuilds. EDT only.
+    private void connect(InventoryService service) {
+        if (disposed) {
+            return;
         }
-        refreshTable();
+        inventoryService = service;
+        asyncInventory = new AsyncInventoryService(service);
+        tableModel = new InventoryTableModel(service);
+        service.addInventoryListener(tableModel);
+        tableModel.addTableModelListener(e -> updateValuation()); // running totals, O(1) to read
+
+        table.setModel(tableModel);
+        table.getColumnModel().getColumn(COL_PLUS).setMaxWidth(50);
+        table.getColumnModel().getColumn(COL_MINUS).setMaxWidth(50);
+    }
+
+    // Service calls run on BackgroundExecutor; UiTasks brings results back to the EDT.
+
+    private void handleAdjustQuantity(int row, int delta) {
+        String id = tableModel.getProductId(row);
+
+        UiTasks.run(this, asyncInventory.adjustQuantity(currentUser, id, delta), ok -> {
+            if (!ok) {
+                JOptionPane.showMessageDialog(
+                        this,
+                        "Could not adjust quantity.",
+                        "Error",
+                        JOptionPane.ERROR_MESSAGE
+                );
+            }
+        });
     }
 
-    private void addProduct() {
+    private void addProduct(JComponent trigger) {
+        Product product;
         try {
             String id = JOptionPane.showInputDialog(this, "Product ID:");
             if (id == null) {
@@ -147,38 +189,107 @@ public class ShopTrackerUI extends JFrame {
                 return;
             }
             int qty = Integer.parseInt(JOptionPane.showInputDialog(this, "Quantity:"));
-            double price = Double.parseDouble(JOptionPane.showInputDialog(this, "Price (€):"));
+            long priceMinor = Money.parse(JOptionPane.showInputDialog(this, "Price (€):"));
 
-            inventoryService.addProduct(currentUser, new Product(id, name, qty, price));
-            refreshTable();
+            product = Product.ofMinorUnits(id, name, qty, priceMinor);
         } catch (Exception ex) {
             JOptionPane.showMessageDialog(this, "Invalid input: " + ex.getMessage());
+            return;
         }
+
+        UiTasks.run(this, asyncInventory.addProduct(currentUser, product), ok -> {
+            if (!ok) {
+                JOptionPane.showMessageDialog(this, "Could not add product.", "Error", JOptionPane.ERROR_MESSAGE);
+            }
+        }, trigger);
     }
 
-    private void deleteProduct() {
+    private void deleteProduct(JComponent trigger) {
         String id = JOptionPane.showInputDialog(this, "Product ID to Delete:");
         if (id != null) {
-            inventoryService.removeProduct(currentUser, id);
-            refreshTable();
+            UiTasks.run(this, asyncInventory.removeProduct(currentUser, id), ok -> {
+                if (!ok) {
+                    JOptionPane.showMessageDialog(this, "Could not delete product " + id + ".",
+                            "Error", JOptionPane.ERROR_MESSAGE);
+                }
+            }, trigger);
+        }
+    }
+
+    private void importCatalogue(JComponent trigger, JComponent refreshTrigger) {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Import catalogue (" + CatalogueImporter.HEADER + ")");
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        Path file = chooser.getSelectedFile().toPath();
+        CatalogueImporter importer = new CatalogueImporter(inventoryService);
+
+        UiTasks.run(this, CompletableFuture.supplyAsync(() -> {
+            try {
+                return importer.importCsv(currentUser, file);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }, BackgroundExecutor.getInstance()), result -> {
+            StringBuilder msg = new StringBuilder();
+            msg.append(result.isApplied()
+                    ? "Imported " + result.getImportedCount() + " products."
+                    : "Nothing was imported.");
+            if (result.getRejectedCount() > 0) {
+                msg.append("\n").append(result.getRejectedCount()).append(" lines rejected:");
+                result.getRejects().stream().limit(MAX_REJECTS_SHOWN)
+                        .forEach(r -> msg.append("\n  ").append(r));
+                if (result.getRejectedCount() > MAX_REJECTS_SHOWN) {
+                    msg.append("\n  ...");
+                }
+            }
+            JOptionPane.showMessageDialog(this, msg.toString(), "Import",
+                    result.isApplied() ? JOptionPane.INFORMATION_MESSAGE : JOptionPane.WARNING_MESSAGE);
+            refreshTable(refreshTrigger);
+        }, trigger);
+    }
+
+    private void exportCatalogue(JComponent trigger) {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Export catalogue");
+        chooser.setSelectedFile(new File("catalogue.csv"));
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
         }
+        Path file = chooser.getSelectedFile().toPath();
+        CatalogueImporter exporter = new CatalogueImporter(inventoryService);
+
+        UiTasks.run(this, CompletableFuture.supplyAsync(() -> {
+            try {
+                return exporter.exportCsv(file);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }, BackgroundExecutor.getInstance()), count ->
+                JOptionPane.showMessageDialog(this, "Exported " + count + " products to " + file + "."), trigger);
+    }
+
+    private void updateValuation() {
+        valuationLabel.setText("Stock value: €" + Money.format(inventoryService.getStockValueMinor())
+                + " (" + inventoryService.getTotalUnits() + " units)");
+    }
+
+    private void refreshTable(JComponent trigger) {
+        UiTasks.run(this, asyncInventory.getAllProducts(), tableModel::reload, trigger);
     }
 
-    private void refreshTable() {
-        tableModel.setRowCount(0);
-        for (Product p : inventoryService.getAllProducts()) {
-            tableModel.addRow(new Object[]{
-                    p.getId(),
-                    p.getName(),
-                    p.getQuantity(),
-                    p.getPrice(),
-                    "+",
-                    "-"
-            });
+    @Override
+    public void dispose() {
+        disposed = true;
+        if (inventoryService != null) {
+            inventoryService.removeInventoryListener(tableModel);
         }
+        super.dispose();
     }
 
     private void logout() {
+        new UserService(UserRepository.getInstance()).logout(currentUser);
         dispose();
         SwingUtilities.invokeLater(() -> new LoginScreen().setVisible(true));
     }
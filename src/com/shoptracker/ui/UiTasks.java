@@ -0,0 +1,72 @@
+package com.shoptracker.ui;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+
+/**
+ * Runs the tail end of a background service call back on the EDT.
+ * While the call is in flight the window shows a wait cursor and the given
+ * controls are disabled, so users can see something is happening and cannot
+ * fire the same action twice.
+ */
+final class UiTasks {
+
+    private UiTasks() {}
+
+    /**
+     * Must be called on the EDT.
+     *
+     * @param window    window that shows the busy state
+     * @param call      the background call
+     * @param onSuccess run on the EDT with the result
+     * @param onError   run on the EDT with the unwrapped failure
+     * @param busy      controls disabled until the call finishes
+     */
+    static <T> void run(Window window,
+                        CompletableFuture<T> call,
+                        Consumer<T> onSuccess,
+                        Consumer<Throwable> onError,
+                        JComponent... busy) {
+
+        window.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+        boolean[] wasEnabled = new boolean[busy.length];
+        for (int i = 0; i < busy.length; i++) {
+            wasEnabled[i] = busy[i].isEnabled();
+            busy[i].setEnabled(false);
+        }
+
+        call.whenComplete((result, failure) -> SwingUtilities.invokeLater(() -> {
+            window.setCursor(Cursor.getDefaultCursor());
+            for (int i = 0; i < busy.length; i++) {
+                busy[i].setEnabled(wasEnabled[i]);
+            }
+
+            if (failure == null) {
+                onSuccess.accept(result);
+            } else {
+                onError.accept(unwrap(failure));
+            }
+        }));
+    }
+
+    /**
+     * Shows failures as a plain error dialog.
+     */
+    static <T> void run(Window window, CompletableFuture<T> call, Consumer<T> onSuccess, JComponent... busy) {
+        run(window, call, onSuccess, ex -> JOptionPane.showMessageDialog(
+                window, "Error: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE), busy);
+    }
+
+    private static Throwable unwrap(Throwable t) {
+        Throwable cause = t;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException)
+                && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+}
@@ -19,18 +19,20 @@ public class UserManagementUI extends JFrame {
     private static final int GRID_COLS = 2;
     private static final int GRID_GAP = 5;
 
-    private final transient User currentUser;
+    private final transient Session currentUser;
     private final transient UserRepository userRepo;
     private final transient UserService userService;
+    private final transient AsyncUserService asyncUsers;
 
     private final DefaultTableModel tableModel;
     private final JTable table;
 
-    public UserManagementUI(final User currentUser) {
+    public UserManagementUI(final Session currentUser) {
 
         this.currentUser = currentUser;
         this.userRepo = UserRepository.getInstance();
         this.userService = new UserService(userRepo, AccessControl.getInstance());
+        this.asyncUsers = new AsyncUserService(userService);
 
         setTitle("User Management");
         setSize(DEFAULT_WIDTH, DEFAULT_HEIGHT);
@@ -74,18 +76,23 @@ public class UserManagementUI extends JFrame {
         add(buttons, BorderLayout.SOUTH);
 
         // Actions
-        addBtn.addActionListener(e -> addUser());
-        delBtn.addActionListener(e -> deleteUser());
-        roleBtn.addActionListener(e -> changeRole());
+        addBtn.addActionListener(e -> addUser(addBtn));
+        delBtn.addActionListener(e -> deleteUser(delBtn));
+        roleBtn.addActionListener(e -> changeRole(roleBtn));
         refreshBtn.addActionListener(e -> refreshTable());
         closeBtn.addActionListener(e -> dispose());
 
         refreshTable();
     }
 
+    // Service calls run on BackgroundExecutor; UiTasks brings results back to the EDT.
+
     private void refreshTable() {
+        UiTasks.run(this, asyncUsers.listUsers(), this::showUsers, table);
+    }
+
+    private void showUsers(List<User> users) {
         tableModel.setRowCount(0);
-        List<User> users = userRepo.findAll();
         for (User u : users) {
             tableModel.addRow(new Object[]{
                     u.getUsername(),
@@ -97,7 +104,7 @@ public class UserManagementUI extends JFrame {
         }
     }
 
-    private void addUser() {
+    private void addUser(JComponent trigger) {
         JTextField usernameField = new JTextField();
         JTextField fullNameField = new JTextField();
         JTextField emailField = new JTextField();
@@ -123,6 +130,7 @@ public class UserManagementUI extends JFrame {
             return;
         }
 
+        User newUser;
         try {
             String username = usernameField.getText();
             String fullName = fullNameField.getText();
@@ -130,9 +138,15 @@ public class UserManagementUI extends JFrame {
             String password = new String(passwordField.getPassword());
             Role role = (Role) roleBox.getSelectedItem();
 
-            User newUser = new User(username, password, fullName, email, role);
-            boolean created = userService.createUser(currentUser, newUser);
+            newUser = new User(username, password, fullName, email, role);
+        } catch (Exception ex) {
+            JOptionPane.showMessageDialog(this,
+                    "Error creating user: " + ex.getMessage(),
+                    "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
 
+        UiTasks.run(this, asyncUsers.createUser(currentUser, newUser), created -> {
             if (!created) {
                 JOptionPane.showMessageDialog(this,
                         "Could not create user (maybe duplicate or no permission).",
@@ -140,15 +154,10 @@ public class UserManagementUI extends JFrame {
             } else {
                 refreshTable();
             }
-
-        } catch (Exception ex) {
-            JOptionPane.showMessageDialog(this,
-                    "Error creating user: " + ex.getMessage(),
-                    "Error", JOptionPane.ERROR_MESSAGE);
-        }
+        }, trigger);
     }
 
-    private void deleteUser() {
+    private void deleteUser(JComponent trigger) {
         int row = table.getSelectedRow();
 
         if (row < 0) {
@@ -175,18 +184,18 @@ public class UserManagementUI extends JFrame {
             return;
         }
 
-        boolean deleted = userService.deleteUser(currentUser, username);
-
-        if (!deleted) {
-            JOptionPane.showMessageDialog(this,
-                    "Could not delete user (no permission or not found).",
-                    "Error", JOptionPane.ERROR_MESSAGE);
-        } else {
-            refreshTable();
-        }
+        UiTasks.run(this, asyncUsers.deleteUser(currentUser, username), deleted -> {
+            if (!deleted) {
+                JOptionPane.showMessageDialog(this,
+                        "Could not delete user (no permission or not found).",
+                        "Error", JOptionPane.ERROR_MESSAGE);
+            } else {
+                refreshTable();
+            }
+        }, trigger);
     }
 
-    private void changeRole() {
+    private void changeRole(JComponent trigger) {
         int row = table.getSelectedRow();
 
         if (row < 0) {
@@ -210,17 +219,20 @@ public class UserManagementUI extends JFrame {
 
         Role newRole = (Role) roleBox.getSelectedItem();
 
-        try {
-            userService.changeUserRole(currentUser, username, newRole);
-            refreshTable();
-        } catch (SecurityException ex) {
-            JOptionPane.showMessageDialog(this,
-                    "You do not have permission to change roles.",
-                    "Error", JOptionPane.ERROR_MESSAGE);
-        } catch (IllegalArgumentException ex) {
-            JOptionPane.showMessageDialog(this,
-                    "User not found while changing role.",
-                    "Error", JOptionPane.ERROR_MESSAGE);
-        }
+        UiTasks.run(this, asyncUsers.changeUserRole(currentUser, username, newRole), done -> refreshTable(), ex -> {
+            if (ex instanceof SecurityException) {
+                JOptionPane.showMessageDialog(this,
+                        "You do not have permission to change roles.",
+                        "Error", JOptionPane.ERROR_MESSAGE);
+            } else if (ex instanceof IllegalArgumentException) {
+                JOptionPane.showMessageDialog(this,
+                        "User not found while changing role.",
+                        "Error", JOptionPane.ERROR_MESSAGE);
+            } else {
+                JOptionPane.showMessageDialog(this,
+                        "Error changing role: " + ex.getMessage(),
+                        "Error", JOptionPane.ERROR_MESSAGE);
+            }
+        }, trigger);
     }
 }